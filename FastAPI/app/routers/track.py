@@ -5,6 +5,7 @@ import os
 import uuid
 
 from fastapi import APIRouter, UploadFile, File, Form, Query, Path, HTTPException, status, BackgroundTasks
+from fastapi.responses import StreamingResponse
 from celery import chain
 from typing import List, Optional
 from pydantic import BaseModel
@@ -175,6 +176,22 @@ async def reset_similarity(request: SimilarityResetRequest):
         utils.log(f"트랙 유사도 재계산 중 오류 발생: {str(e)}", level=logging.ERROR)
         raise CustomException(ResponseType.SERVER_ERROR, f"트랙 유사도 재계산 중 오류 발생: {str(e)}")
 
+@router.post(
+    "/similarity/stream",
+    summary="트랙 유사도 재계산 스트리밍 API",
+    description="트랙 유사도를 계산되는 대로 한 줄에 한 트랙씩 NDJSON으로 전송합니다.",
+)
+async def reset_similarity_stream(request: SimilarityResetRequest):
+    """
+    트랙 유사도를 재계산해 스트리밍하는 API입니다.
+    응답 전체를 만들지 않고 트랙마다 한 줄씩 보내므로, 받는 쪽도 도착하는 대로 처리할 수 있습니다.
+    """
+    utils.log(f"트랙 유사도 스트리밍 재계산 요청: {len(request.trackIds)}개", level=logging.DEBUG)
+    return StreamingResponse(
+        openl3_service.iter_similar_by_track_ids(trackIds=request.trackIds, limit=10),
+        media_type="application/x-ndjson",
+    )
+
 @router.get(
     "/delete/"+"{track_id}",
     summary="트랙 삭제 API",
@@ -5,6 +5,7 @@ import soundfile as sf
 import os
 import subprocess
 import logging
+import json
 from pymilvus import (
     connections,
     FieldSchema,
@@ -262,39 +263,7 @@ class OpenL3Service:
                 print("컬렉션에 충분한 데이터가 없습니다.")
                 return []
             
-            # 트랙 ID로 임베딩 검색
-            result = self.collection.query(
-                expr=f'track_id == {track_id}',
-                output_fields=["embedding"],
-                limit=1,
-            )
-            
-            if not result:
-                print(f"트랙 ID {track_id}에 해당하는 임베딩을 찾을 수 없습니다.")
-                return []
-            
-            search_embedding = result[0]['embedding']
-            print(f"임베딩을 찾았습니다. 크기: {len(search_embedding)}")
-            
-            # 임베딩 벡터로 유사 트랙 검색
-            similar_songs = self.find_similar_by_embedding(search_embedding, limit, exclude_track_id=track_id)
-            
-            # 결과 가공 및 정렬
-            processed_results = []
-            for track in similar_songs:
-                # L2 거리를 유사도 점수로 변환 (거리가 작을수록 유사도 높음)
-                similarity_score = 1.0 / (1.0 + track['distance'])
-                
-                processed_results.append({
-                    "track_id": track['track_id'],
-                    "similarity": round(similarity_score, 4),  # 소수점 4자리까지 표시
-                    "distance": round(track['distance'], 4)
-                })
-            
-            # 유사도 기준 내림차순 정렬
-            processed_results.sort(key=lambda x: x['similarity'], reverse=True)
-            
-            return processed_results[:limit]
+            return self._search_similar_tracks(track_id, limit) or []
             
         except Exception as e:
             print(f"유사 트랙 검색 중 오류 발생: {e}")
@@ -302,6 +271,51 @@ class OpenL3Service:
             traceback.print_exc()  # 상세 오류 추적
             return []
     
+    def _search_similar_tracks(self, track_id, limit):
+        """
+        트랙 ID로 유사한 곡 검색 (오류는 호출한 쪽으로 전달)
+        
+        Args:
+            track_id: 검색 기준이 되는 트랙 ID
+            limit: 반환할 유사 곡 수
+            
+        Returns:
+            list | None: 유사한 곡 목록, 트랙의 임베딩이 없으면 None
+        """
+        # 트랙 ID로 임베딩 검색
+        result = self.collection.query(
+            expr=f'track_id == {track_id}',
+            output_fields=["embedding"],
+            limit=1,
+        )
+        
+        if not result:
+            print(f"트랙 ID {track_id}에 해당하는 임베딩을 찾을 수 없습니다.")
+            return None
+        
+        search_embedding = result[0]['embedding']
+        print(f"임베딩을 찾았습니다. 크기: {len(search_embedding)}")
+        
+        # 임베딩 벡터로 유사 트랙 검색
+        similar_songs = self.find_similar_by_embedding(search_embedding, limit, exclude_track_id=track_id)
+        
+        # 결과 가공 및 정렬
+        processed_results = []
+        for track in similar_songs:
+            # L2 거리를 유사도 점수로 변환 (거리가 작을수록 유사도 높음)
+            similarity_score = 1.0 / (1.0 + track['distance'])
+            
+            processed_results.append({
+                "track_id": track['track_id'],
+                "similarity": round(similarity_score, 4),  # 소수점 4자리까지 표시
+                "distance": round(track['distance'], 4)
+            })
+        
+        # 유사도 기준 내림차순 정렬
+        processed_results.sort(key=lambda x: x['similarity'], reverse=True)
+        
+        return processed_results[:limit]
+    
     def find_similar_by_embedding(self, embedding, limit=5, exclude_track_id=None):
         """
         임베딩 벡터로 유사한 오디오 임베딩 검색
@@ -590,6 +604,39 @@ class OpenL3Service:
             traceback.print_exc()
             # 오류 발생 시 빈 결과 반환
             return SimilarityResetResponseDto(root={})
+
+    def iter_similar_by_track_ids(self, trackIds, limit=5):
+        """
+        여러 트랙 ID로 유사한 곡 검색 결과를 트랙 하나씩 NDJSON 줄로 생성
+        전체 결과를 모으지 않으므로 트랙 수와 관계없이 메모리 사용이 일정합니다.
+        임베딩이 없거나 검색에 실패한 트랙은 줄을 보내지 않습니다 (받는 쪽에서 기존 관계를 유지하고 다음에 다시 시도).
+        
+        Args:
+            trackIds: 검색 기준이 되는 트랙 ID 리스트
+            limit: 반환할 유사 곡 수 (기본값 5)
+            
+        Yields:
+            str: {"trackId": id, "similar": [{"trackId": id, "similarity": score}, ...]} + 줄바꿈
+        """
+        if self.collection.num_entities <= 1:
+            print("컬렉션에 충분한 데이터가 없습니다.")
+            return
+        
+        for track_id in trackIds:
+            try:
+                similar_tracks = self._search_similar_tracks(track_id, limit)
+            except Exception as e:
+                utils.log(f"트랙 {track_id} 유사 트랙 검색 실패, 건너뜀: {str(e)}", level=logging.ERROR)
+                continue
+            if similar_tracks is None:
+                continue
+            yield json.dumps({
+                "trackId": int(track_id),
+                "similar": [
+                    {"trackId": int(track["track_id"]), "similarity": float(track["similarity"])}
+                    for track in similar_tracks
+                ],
+            }, separators=(",", ":")) + "\n"
         
     def delete_track(self, track_id):
         """
@@ -1,18 +1,22 @@
 package com.ssafy.backend.ai.controller;
 
-import com.ssafy.backend.ai.service.SoundGeneratorService;
+import com.ssafy.backend.ai.service.SoundJobService;
+import com.ssafy.backend.ai.sound.SoundJob;
 import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
+import com.ssafy.backend.ai.sound.dto.response.SoundJobResponse;
+import com.ssafy.backend.audio.service.AudioEncodeService;
+import com.ssafy.backend.auth.service.AuthService;
+import com.ssafy.backend.common.ApiResponse;
+import com.ssafy.backend.common.service.AudioStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -20,10 +24,21 @@ import java.io.InputStream;
 @RequestMapping("/api/ai")
 public class AiController {
 
-    final private SoundGeneratorService soundGeneratorService;
+    final private SoundJobService soundJobService;
+    final private AudioStreamService audioStreamService;
+    final private AuthService authService;
 
+    /**
+     * 샘플 음원 생성
+     * 작업 대기열을 거쳐 생성하며, 기다리는 동안 요청 스레드를 점유하지 않는다.
+     *
+     * @param format 결과 포맷 (wav, opus, mp3, flac / 기본 wav)
+     * @param fresh  캐시된 AI 응답을 쓰지 않고 새로 작곡 (다시 생성)
+     */
     @GetMapping("/generate")
-    public ResponseEntity generate() {
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> generate(@RequestHeader HttpHeaders headers,
+                                                                             @RequestParam(required = false) String format,
+                                                                             @RequestParam(defaultValue = "false") boolean fresh) {
         String genre = "jazz";
         String mood = "happy";
         int tempo = 115; //
@@ -34,14 +49,82 @@ public class AiController {
 
         SoundGenerationRequest request = new SoundGenerationRequest(genre, mood, durationSeconds, tempo, instruments, additionalNotes);
 
-        InputStream audioStream = soundGeneratorService.generateSound(request);
+        SoundJob job = soundJobService.submit(authService.getMember().getId(), request, 1, fresh, AudioEncodeService.Format.from(format));
+        return job.getResult().thenApply(audio -> audioStreamService.stream(audio, headers));
+    }
+
+    /**
+     * 샘플 음원 스트리밍 생성
+     * 작곡이 끝나면 길이가 정해진 WAV 헤더부터 보내고, 렌더링되는 PCM을 청크마다 바로 전송한다.
+     *
+     * @param format 결과 포맷 (wav, opus, mp3, flac / 기본 wav)
+     * @param fresh  캐시된 AI 응답을 쓰지 않고 새로 작곡 (다시 생성)
+     */
+    @GetMapping("/generate/stream")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> generateStream(@RequestHeader HttpHeaders headers,
+                                                                                @RequestParam(required = false) String format,
+                                                                                @RequestParam(defaultValue = "false") boolean fresh) {
+        int tempo = 115;
+        double durationSeconds = 4 * 4 * (60 / (double) tempo);
+        SoundGenerationRequest request = new SoundGenerationRequest("jazz", "happy", durationSeconds, tempo, "piano", "none");
+        return soundJobService.stream(authService.getMember().getId(), request, fresh, AudioEncodeService.Format.from(format), headers);
+    }
+
+    /**
+     * 음원 생성 작업 등록
+     * 변형을 여러 개 요청하면 병렬로 만들어 결과를 하나의 ZIP(variant-1.wav ...)으로 받는다.
+     *
+     * @param request  생성 요청 (장르, 분위기, 길이, 템포, 악기, 추가 요청사항)
+     * @param variants 생성할 변형 수 (기본 1)
+     * @param format   결과 포맷 (wav, opus, mp3, flac / 기본 wav)
+     * @param fresh    캐시된 AI 응답을 쓰지 않고 새로 작곡 (변형이 여러 개면 항상 새로 작곡)
+     * @return 작업 ID와 상태
+     */
+    @PostMapping("/jobs")
+    public ApiResponse<?> submitJob(@RequestBody SoundGenerationRequest request,
+                                    @RequestParam(defaultValue = "1") int variants,
+                                    @RequestParam(required = false) String format,
+                                    @RequestParam(defaultValue = "false") boolean fresh) {
+        SoundJob job = soundJobService.submit(authService.getMember().getId(), request, variants, fresh, AudioEncodeService.Format.from(format));
+        return new ApiResponse.builder<Object>()
+                .payload(toResponse(job))
+                .build();
+    }
+
+    /**
+     * 음원 생성 작업 상태 조회
+     *
+     * @param jobId 작업 ID
+     * @return 작업 상태 (QUEUED, RUNNING, DONE, FAILED)
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ApiResponse<?> getJob(@PathVariable String jobId) {
+        SoundJob job = soundJobService.getJob(authService.getMember().getId(), jobId);
+        return new ApiResponse.builder<Object>()
+                .payload(toResponse(job))
+                .build();
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("audio/wav"));
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=generated_audio.wav");
+    /**
+     * 완료된 작업의 음원 다운로드 (Range 요청 지원)
+     *
+     * @param jobId   작업 ID
+     * @param headers 요청 헤더
+     * @return 요청 포맷의 음원 스트림 (변형이 여러 개면 ZIP)
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<StreamingResponseBody> getJobResult(@PathVariable String jobId, @RequestHeader HttpHeaders headers) {
+        return audioStreamService.stream(soundJobService.getResult(authService.getMember().getId(), jobId), headers);
+    }
 
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(new InputStreamResource(audioStream));
+    private SoundJobResponse toResponse(SoundJob job) {
+        return SoundJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .variants(job.getVariants())
+                .format(job.getFormat().getExtension())
+                .createdAt(job.getCreatedAt().toString())
+                .finishedAt(job.getFinishedAt() != null ? job.getFinishedAt().toString() : null)
+                .build();
     }
 }
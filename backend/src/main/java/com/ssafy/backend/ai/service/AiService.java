@@ -1,16 +1,26 @@
 package com.ssafy.backend.ai.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssafy.backend.ai.sound.SoundDataStreamParser;
 import com.ssafy.backend.ai.sound.dto.AIGeneratedSoundData;
 import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
-import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * LangChain4J를 활용하여 AI 모델과 통신하고, 음원 데이터를 생성하는 서비스를 구현
  */
@@ -18,8 +28,12 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class AiService {
-    private final ChatLanguageModel chatLanguageModel;
-    private final ObjectMapper objectMapper;
+    private static final int PULSES_PER_QUARTER_NOTE = 480;
+
+    private final StreamingChatLanguageModel streamingChatLanguageModel;
+
+    @Value("${AI_RESPONSE_TIMEOUT_SECONDS:300}")
+    private long responseTimeoutSeconds;
 
     // 개선된 AI 시스템 프롬프트
     private static final String SYSTEM_PROMPT = """
@@ -60,20 +74,6 @@ public class AiService {
             "description": "Brief description of the music",
             "bpm": <tempo>,
             "keySignature": "<key>",
-            "tracks": [
-                {
-                    "instrument": "<instrument name>",
-                    "midiChannel": <0-15>,
-                    "volume": <0-127>,
-                    "pan": <-64 to 63>,
-                    "notes": [
-                        {"pitch": <0-127>, "velocity": <1-127>, "startTick": <tick>, "duration": <tick>}
-                    ],
-                    "controlChanges": [
-                        {"type": <cc type>, "value": <0-127>, "tick": <tick>}
-                    ]
-                }
-            ],
             "sections": [
                 {
                     "name": "<section name>",
@@ -87,7 +87,21 @@ public class AiService {
                 "reverb": <0-100>,
                 "delay": <0-100>,
                 "chorus": <0-100>
-            }
+            },
+            "tracks": [
+                {
+                    "instrument": "<instrument name>",
+                    "midiChannel": <0-15>,
+                    "volume": <0-127>,
+                    "pan": <-64 to 63>,
+                    "notes": [
+                        {"pitch": <0-127>, "velocity": <1-127>, "startTick": <tick>, "duration": <tick>}
+                    ],
+                    "controlChanges": [
+                        {"type": <cc type>, "value": <0-127>, "tick": <tick>}
+                    ]
+                }
+            ]
             }
             
             IMPORTANT GUIDELINES:
@@ -95,6 +109,7 @@ public class AiService {
             - Follow genre-specific harmonic patterns (e.g., jazz: II-V-I, pop: I-IV-V)
             - Structure the composition with appropriate sections (intro, verse, chorus, etc.)
             - Provide sufficient note density to fill the requested duration (using 480 ticks per quarter note)
+            - Keep the key order of the OUTPUT FORMAT: write "sections" and "mixingSettings" BEFORE "tracks", and end the object right after "tracks"
             - When drums/percussion is requested, ALWAYS create a proper drum track on MIDI channel 9 with appropriate 16-bit rhythm patterns based on the provided DRUM PATTERN REQUIREMENTS and examples.
             - Use General MIDI program numbers correctly for instrument assignments
             - Ensure all musical elements sound natural and expressive for human listeners
@@ -108,6 +123,8 @@ public class AiService {
 
     /**
      * 사용자 요청에 따라 AI 모델을 활용하여 음원 데이터 생성
+     * 모델 응답을 스트리밍으로 받으며 바로 파싱하고, 렌더링에 필요한 트랙 정보가 모두 오면 수신을 중단한다.
+     * (트랙 목록이 끝난 뒤의 응답만 받지 않으며, 요청 길이를 넘는 노트도 트랙 목록이 끝날 때까지는 받는다)
      *
      * @param request 음원 생성 요청 정보
      * @return 생성된 AI 음원 데이터
@@ -118,37 +135,91 @@ public class AiService {
 
             log.debug("사용자 프롬프트: {}", userPrompt);
 
-            // AI 모델에서 응답 얻기
-            SystemMessage systemMessage = new SystemMessage(SYSTEM_PROMPT);
-            UserMessage userMessage = new UserMessage(userPrompt);
-            AiMessage aiMessage = chatLanguageModel.generate(systemMessage, userMessage).content();
-            // Langchain4j AiMessage에는 text() 메서드가 표준입니다. toString()은 객체 표현을 반환할 수 있습니다.
-            String response = aiMessage.text();
-
-            log.info("AI 응답 수신 완료: {} 자", response.length());
-            log.info(response);
-            log.debug("AI 응답 전문: {}", response);
-
-            // JSON 응답 파싱 시도
-            String jsonResponse = extractJsonFromResponse(response);
-            log.debug("추출된 JSON: {}", jsonResponse);
-
+            SoundDataStreamParser parser = new SoundDataStreamParser(totalTicks(request));
+            CompletableFuture<AIGeneratedSoundData> result = new CompletableFuture<>();
+            List<ChatMessage> messages = List.of(new SystemMessage(SYSTEM_PROMPT), new UserMessage(userPrompt));
+            try {
+                stream(messages, parser, result);
+            } catch (RuntimeException e) {
+                // 호출 스레드에서 응답을 받는 경우 수신 중단 예외가 그대로 전달된다 (결과가 있으면 무시)
+                result.completeExceptionally(e);
+            }
             try {
-                // JSON 응답을 AIGeneratedSoundData 객체로 파싱
-                return objectMapper.readValue(jsonResponse, AIGeneratedSoundData.class);
-            } catch (Exception e) {
-                log.error("JSON 파싱 오류: {}", e.getMessage());
-                // 실패 시 JSON 형식 정제 재시도
-                jsonResponse = cleanupJson(jsonResponse);
-                log.debug("정제된 JSON: {}", jsonResponse);
-                return objectMapper.readValue(jsonResponse, AIGeneratedSoundData.class);
+                return result.get(responseTimeoutSeconds, TimeUnit.SECONDS);
+            } finally {
+                // 시간 초과 시 남은 응답 수신도 중단되도록 결과를 닫는다
+                result.cancel(false);
             }
+        } catch (ExecutionException e) {
+            log.error("AI로 음원 데이터 생성 실패", e.getCause());
+            throw new RuntimeException("AI로 음원 데이터 생성 실패: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("AI로 음원 데이터 생성 중 인터럽트", e);
         } catch (Exception e) {
             log.error("AI로 음원 데이터 생성 실패", e);
             throw new RuntimeException("AI로 음원 데이터 생성 실패: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 모델 응답 조각을 받는 대로 파서에 넣고, 필요한 데이터가 모이면 남은 응답 수신을 중단한다
+     */
+    private void stream(List<ChatMessage> messages, SoundDataStreamParser parser,
+                        CompletableFuture<AIGeneratedSoundData> result) {
+        streamingChatLanguageModel.chat(messages, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (result.isDone()) {
+                    // 결과가 이미 나왔으면 남은 응답은 받지 않는다
+                    throw new CancellationException("AI 응답 수신 중단");
+                }
+                if (parser.feed(partialResponse)) {
+                    complete(parser, result);
+                    throw new CancellationException("AI 응답 수신 중단: 트랙 목록 수신 완료");
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                complete(parser, result);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                // 수신 중단으로 인한 오류는 이미 결과가 있으므로 무시된다
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void complete(SoundDataStreamParser parser, CompletableFuture<AIGeneratedSoundData> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            AIGeneratedSoundData soundData = parser.finish();
+            log.info("AI 응답 수신 완료: {} 자, 트랙 {}개, 노트 {}개 (요청 길이 밖 {}개 제외)",
+                    parser.getReceivedChars(), soundData.getTracks().size(), parser.getNoteCount(), parser.getSkippedCount());
+            if (parser.isTruncated() || parser.getRepairCount() > 0 || parser.getDroppedCount() > 0) {
+                // 형식 오류를 복구해 살린 응답
+                log.warn("AI 응답 복구: 중간 끊김 {}, 복구 {}건, 불완전한 노트 {}개 제외",
+                        parser.isTruncated(), parser.getRepairCount(), parser.getDroppedCount());
+            }
+            result.complete(soundData);
+        } catch (IOException e) {
+            log.error("JSON 파싱 오류: {}", e.getMessage());
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 요청된 길이(초)에 맞는 MIDI 틱
+     */
+    private long totalTicks(SoundGenerationRequest request) {
+        return (long) (request.getDurationSeconds() * request.getTempo() / 60.0 * PULSES_PER_QUARTER_NOTE);
+    }
+
     /**
      * 사용자 요청을 바탕으로 AI 모델에 전달할 프롬프트 생성
      *
@@ -264,6 +335,32 @@ public class AiService {
                       "description": "An 8-second, 120 BPM hip-hop drum composition featuring detailed 16-bit grooves with dynamic hi-hats, syncopated kicks, snare backbeats with ghost notes, and an exciting fill in the final measure.",
                       "bpm": 120,
                       "keySignature": "C",
+                      "sections": [
+                        {
+                          "name": "Intro",
+                          "startTick": 0,
+                          "endTick": 1920,
+                          "repeatCount": 1
+                        },
+                        {
+                          "name": "Verse",
+                          "startTick": 1920,
+                          "endTick": 5760,
+                          "repeatCount": 1
+                        },
+                        {
+                          "name": "Outro",
+                          "startTick": 5760,
+                          "endTick": 7680,
+                          "repeatCount": 1
+                        }
+                      ],
+                      "mixingSettings": {
+                        "masterVolume": 90,
+                        "reverb": 30,
+                        "delay": 20,
+                        "chorus": 10
+                      },
                       "tracks": [
                         {
                           "instrument": "Drum Kit",
@@ -353,7 +450,13 @@ public class AiService {
                           ],
                           "controlChanges": []
                         }
-                      ],
+                      ]
+                    }
+                    - EXAMPLE2: {
+                      "title": "Groovy Hip-Hop Pulse",
+                      "description": "An 8-second, 120 BPM hip-hop drum composition featuring detailed 16-bit grooves with dynamic hi-hats, syncopated kicks, strong snare backbeats with ghost notes, and an exciting tom fill in the final measure.",
+                      "bpm": 120,
+                      "keySignature": "C",
                       "sections": [
                         {
                           "name": "Intro",
@@ -379,13 +482,7 @@ public class AiService {
                         "reverb": 30,
                         "delay": 20,
                         "chorus": 10
-                      }
-                    }
-                    - EXAMPLE2: {
-                      "title": "Groovy Hip-Hop Pulse",
-                      "description": "An 8-second, 120 BPM hip-hop drum composition featuring detailed 16-bit grooves with dynamic hi-hats, syncopated kicks, strong snare backbeats with ghost notes, and an exciting tom fill in the final measure.",
-                      "bpm": 120,
-                      "keySignature": "C",
+                      },
                       "tracks": [
                         {
                           "instrument": "Drum Kit",
@@ -484,33 +581,7 @@ public class AiService {
                           ],
                           "controlChanges": []
                         }
-                      ],
-                      "sections": [
-                        {
-                          "name": "Intro",
-                          "startTick": 0,
-                          "endTick": 1920,
-                          "repeatCount": 1
-                        },
-                        {
-                          "name": "Verse",
-                          "startTick": 1920,
-                          "endTick": 5760,
-                          "repeatCount": 1
-                        },
-                        {
-                          "name": "Outro",
-                          "startTick": 5760,
-                          "endTick": 7680,
-                          "repeatCount": 1
-                        }
-                      ],
-                      "mixingSettings": {
-                        "masterVolume": 90,
-                        "reverb": 30,
-                        "delay": 20,
-                        "chorus": 10
-                      }
+                      ]
                     }
                     """;
             // --- 드럼 패턴 보고서 내용 반영 끝 ---
@@ -809,59 +880,4 @@ public class AiService {
                     "Apply standard Western harmony and develop rhythmic patterns appropriate for the specified genre and mood.";
         };
     }
-
-
-    /**
-     * AI 응답에서 JSON 데이터 추출
-     *
-     * @param response AI 응답 텍스트
-     * @return 추출된 JSON 문자열
-     */
-    private String extractJsonFromResponse(String response) {
-        // AI 응답에서 JSON 코드 블록을 찾거나, 전체가 JSON이라고 가정
-        String json = response.trim();
-
-        // 마크다운 코드 블록 ```json ... ``` 또는 ``` ... ``` 에서 JSON 추출 시도
-        if (json.startsWith("```")) {
-            int firstBlockStart = json.indexOf("```") + 3;
-            // Optional language specifier (like "json")
-            if (json.substring(firstBlockStart).trim().startsWith("json")) {
-                firstBlockStart = json.indexOf('\n', firstBlockStart) + 1; // Skip 'json' line
-            } else if (json.charAt(firstBlockStart) == '\n') {
-                firstBlockStart += 1; // Skip newline after ```
-            }
-            int firstBlockEnd = json.indexOf("```", firstBlockStart);
-            if (firstBlockEnd != -1) {
-                json = json.substring(firstBlockStart, firstBlockEnd).trim();
-            } else {
-                // If closing ``` is missing, assume rest of string is JSON
-                json = json.substring(firstBlockStart).trim();
-            }
-        }
-        // Sometimes the response might just be the JSON object without backticks
-        // Ensure it starts with { and ends with }
-        if (!json.startsWith("{") && json.contains("{")) {
-            json = json.substring(json.indexOf("{"));
-        }
-        if (!json.endsWith("}") && json.contains("}")) {
-            json = json.substring(0, json.lastIndexOf("}") + 1);
-        }
-
-
-        return json;
-    }
-
-    /**
-     * JSON 형식 오류 수정을 위한 정제 작업 (기본적인 정리)
-     *
-     * @param json 정제할 JSON 문자열
-     * @return 정제된 JSON 문자열
-     */
-    private String cleanupJson(String json) {
-        // 기본적인 정리 시도: 불필요한 후행 쉼표 제거 등
-        return json.replaceAll(",\\s*}", "}")  // 객체 끝 불필요한 쉼표 제거
-                .replaceAll(",\\s*]", "]")  // 배열 끝 불필요한 쉼표 제거
-                .trim(); // 앞뒤 공백 제거
-        // 더 복잡한 오류는 이 함수로 처리하기 어려울 수 있음
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,378 @@
+package com.ssafy.backend.ai.service;
+
+import com.ssafy.backend.ai.sound.MidiTimeline;
+import com.ssafy.backend.ai.sound.RenderPlan;
+import com.ssafy.backend.audio.util.WavUtils;
+import com.sun.media.sound.AudioSynthesizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.sound.midi.*;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>MIDI 렌더링 엔진</pre>
+ * JVM 내장 소프트웨어 신디사이저(Gervill)로 MIDI 이벤트 목록을 PCM으로 바로 렌더링한다.
+ * - SoundFont는 기동 시 한 번만 메모리에 적재
+ * - 미리 열어둔 신디사이저를 풀로 재사용 (요청마다 외부 프로세스 / 임시 파일 없음)
+ * - 요청한 길이만큼만 읽어 길이를 맞춘다 (남는 구간은 무음)
+ * - 반복되는 마디가 많으면 서로 다른 마디만 렌더링하고 PCM을 겹쳐 더해 전체를 만든다 (RenderPlan)
+ * 신디사이저 출력 스트림 API가 java.desktop 내부 패키지에 있으므로
+ * 실행 시 --add-exports java.desktop/com.sun.media.sound=ALL-UNNAMED 가 필요하다 (bootJar 매니페스트에 포함).
+ *
+ * @author 박병주
+ * @version 1.2
+ * @since 2025-04-20
+ * @changes 1.0 - 최초 작성
+ *          1.1 - Sequence 대신 기본형 배열 기반 MidiTimeline을 바로 렌더링
+ *          1.2 - 반복 마디 재사용 렌더링
+ */
+@Slf4j
+@Service
+public class MidiRenderService {
+    public static final int SAMPLE_RATE = 44100;
+    public static final int CHANNELS = 2;
+    public static final int FRAME_BYTES = 2 * CHANNELS;
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+    private static final String DEFAULT_SOUNDFONT = "1mgm.sf2";
+    private static final int CHUNK_FRAMES = 4096;
+    private static final int MIDI_CHANNELS = 16;
+    // 렌더링 후 리버브 잔향이 다음 요청에 섞이지 않도록 버리는 구간
+    private static final int RELEASE_FRAMES = SAMPLE_RATE / 4;
+    // 재사용 세그먼트의 마지막 Note Off 이후 함께 담는 잔향 구간과 그중 끝부분 페이드 아웃 구간
+    private static final int TAIL_FRAMES = SAMPLE_RATE / 2;
+    private static final int FADE_FRAMES = SAMPLE_RATE / 4;
+
+    @Value("${SOUNDFONT_PATH:}")
+    private String soundfontPath;
+    @Value("${MIDI_RENDER_POOL_SIZE:2}")
+    private int poolSize;
+    @Value("${MIDI_RENDER_WAIT_SECONDS:30}")
+    private long waitSeconds;
+    // 서로 다른 세그먼트 길이 합이 전체의 이 비율 이하일 때만 재사용 렌더링 (0이면 사용 안 함)
+    @Value("${MIDI_RENDER_REUSE_RATIO:0.6}")
+    private double reuseRatio;
+
+    private Soundbank soundbank;
+    private BlockingQueue<PooledSynth> pool;
+    private final List<PooledSynth> synths = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws IOException, InvalidMidiDataException, MidiUnavailableException {
+        soundbank = loadSoundbank();
+        pool = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            PooledSynth synth = open();
+            synths.add(synth);
+            pool.add(synth);
+        }
+        log.info("MIDI 렌더링 엔진 준비 완료: SoundFont {}, 신디사이저 {}개", soundbank.getName(), poolSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PooledSynth synth : synths) {
+            synth.close();
+        }
+    }
+
+    /**
+     * 이벤트 목록을 WAV로 렌더링
+     *
+     * @param timeline        MIDI 이벤트 목록
+     * @param durationSeconds 결과 길이 (초)
+     * @return WAV 파일 데이터 (44.1kHz, 16bit, 스테레오)
+     */
+    public byte[] renderWav(MidiTimeline timeline, double durationSeconds) {
+        long frames = Math.round(durationSeconds * SAMPLE_RATE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) (WavUtils.HEADER_SIZE + frames * FRAME_BYTES));
+        try {
+            renderWav(timeline, durationSeconds, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 이벤트 목록을 WAV로 렌더링해 스트림에 기록
+     *
+     * @param timeline        MIDI 이벤트 목록
+     * @param durationSeconds 결과 길이 (초)
+     * @param out             WAV를 받을 스트림
+     */
+    public void renderWav(MidiTimeline timeline, double durationSeconds, OutputStream out) throws IOException {
+        long frames = Math.round(durationSeconds * SAMPLE_RATE);
+        out.write(WavUtils.header(SAMPLE_RATE, CHANNELS, 16, frames * FRAME_BYTES));
+        render(timeline, frames, out);
+    }
+
+    /**
+     * 이벤트 목록을 raw PCM(s16le, 스테레오, 44.1kHz)으로 렌더링해 청크 단위로 기록
+     *
+     * @param timeline MIDI 이벤트 목록
+     * @param frames   렌더링할 프레임 수
+     * @param out      PCM을 받을 스트림
+     */
+    public void render(MidiTimeline timeline, long frames, OutputStream out) throws IOException {
+        timeline.sort();
+        RenderPlan plan = plan(timeline, frames);
+        PooledSynth synth = acquire();
+        try {
+            byte[] buffer = new byte[CHUNK_FRAMES * FRAME_BYTES];
+            if (plan != null) {
+                renderPlan(synth, timeline, plan, frames, buffer, out);
+            } else {
+                renderTimeline(synth, timeline, frames, buffer, out);
+            }
+            release(synth);
+        } catch (IOException | RuntimeException e) {
+            // 상태를 알 수 없는 신디사이저는 새로 열어 교체
+            replace(synth);
+            throw e;
+        }
+    }
+
+    /**
+     * 타임라인 전체를 처음부터 끝까지 렌더링
+     */
+    private void renderTimeline(PooledSynth synth, MidiTimeline timeline, long frames, byte[] buffer, OutputStream out) throws IOException {
+        long startMicros = synth.synthesizer.getMicrosecondPosition();
+        long endMicros = frames * 1_000_000L / SAMPLE_RATE;
+        for (int i = 0; i < timeline.size(); i++) {
+            long micros = timeline.getMicros(i);
+            // 요청 길이 밖의 이벤트는 다음 요청에 남지 않도록 보내지 않는다
+            if (micros >= endMicros) {
+                break;
+            }
+            synth.receiver.send(timeline.getMessage(i), startMicros + micros);
+        }
+
+        long remaining = frames * FRAME_BYTES;
+        while (remaining > 0) {
+            int read = readFully(synth.stream, buffer, (int) Math.min(buffer.length, remaining));
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        reset(synth, buffer);
+    }
+
+    /**
+     * 반복 마디가 충분히 많을 때만 재사용 렌더링 계획을 반환
+     */
+    private RenderPlan plan(MidiTimeline timeline, long frames) {
+        if (reuseRatio <= 0) {
+            return null;
+        }
+        long endTick = timeline.toTick(frames * 1_000_000L / SAMPLE_RATE);
+        RenderPlan plan = RenderPlan.of(timeline, endTick);
+        if (plan == null || plan.uniqueTicks() > endTick * reuseRatio) {
+            return null;
+        }
+        log.debug("반복 마디 재사용 렌더링: 마디 {}개, 소리 있는 마디 {}개, 렌더링 세그먼트 {}개",
+                plan.getBars(), plan.placements(), plan.getSegments().size());
+        return plan;
+    }
+
+    /**
+     * 서로 다른 세그먼트만 렌더링한 뒤 마디 위치에 겹쳐 더해 기록
+     * 세그먼트는 마디 시작 시점의 채널 상태부터 다시 설정하고, 뒤 마디로 넘어가는 잔향은 페이드 아웃해 이어 붙인다.
+     * 세그먼트는 처음 필요한 위치에서 렌더링하므로 앞부분은 전체 세그먼트를 기다리지 않고 기록된다.
+     */
+    private void renderPlan(PooledSynth synth, MidiTimeline timeline, RenderPlan plan, long frames, byte[] buffer, OutputStream out) throws IOException {
+        List<RenderPlan.Segment> segments = plan.getSegments();
+        short[][] samples = new short[segments.size()][];
+        int[] placementSegments = plan.getPlacementSegments();
+        long[] offsets = new long[placementSegments.length];
+        for (int p = 0; p < offsets.length; p++) {
+            offsets[p] = toFrames(timeline.toMicros(plan.getPlacementTicks()[p]));
+        }
+        int[] mix = new int[CHUNK_FRAMES * CHANNELS];
+        int first = 0;
+        for (long frame = 0; frame < frames; frame += CHUNK_FRAMES) {
+            int length = (int) Math.min(CHUNK_FRAMES, frames - frame);
+            long chunkEnd = frame + length;
+            Arrays.fill(mix, 0, length * CHANNELS, 0);
+            for (int p = first; p < offsets.length && offsets[p] < chunkEnd; p++) {
+                if (samples[placementSegments[p]] == null) {
+                    samples[placementSegments[p]] = renderSegment(synth, timeline, segments.get(placementSegments[p]), buffer);
+                }
+                short[] segment = samples[placementSegments[p]];
+                long from = Math.max(frame, offsets[p]);
+                long to = Math.min(chunkEnd, offsets[p] + segment.length / CHANNELS);
+                int target = (int) (from - frame) * CHANNELS;
+                int source = (int) (from - offsets[p]) * CHANNELS;
+                for (int n = (int) (to - from) * CHANNELS; n > 0; n--) {
+                    mix[target++] += segment[source++];
+                }
+            }
+            while (first < offsets.length && offsets[first] < chunkEnd
+                    && offsets[first] + samples[placementSegments[first]].length / CHANNELS <= chunkEnd) {
+                first++;
+            }
+            for (int i = 0; i < length * CHANNELS; i++) {
+                int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                buffer[i * 2] = (byte) value;
+                buffer[i * 2 + 1] = (byte) (value >> 8);
+            }
+            out.write(buffer, 0, length * FRAME_BYTES);
+        }
+    }
+
+    /**
+     * 세그먼트 하나를 렌더링 (마지막 Note Off 이후 잔향 포함)
+     *
+     * @return 인터리브된 16bit 샘플
+     */
+    private short[] renderSegment(PooledSynth synth, MidiTimeline timeline, RenderPlan.Segment segment, byte[] buffer) throws IOException {
+        long startMicros = synth.synthesizer.getMicrosecondPosition();
+        for (int message : segment.getState()) {
+            synth.receiver.send(MidiTimeline.toMessage(message), startMicros);
+        }
+        for (long event : segment.getEvents()) {
+            long micros = timeline.toMicros(RenderPlan.Segment.tick(event));
+            synth.receiver.send(MidiTimeline.toMessage(RenderPlan.Segment.message(event)), startMicros + micros);
+        }
+
+        int frames = (int) toFrames(timeline.toMicros(segment.getLengthTicks())) + TAIL_FRAMES;
+        short[] samples = new short[frames * CHANNELS];
+        int position = 0;
+        while (position < samples.length) {
+            int read = readFully(synth.stream, buffer, Math.min(buffer.length, (samples.length - position) * 2));
+            for (int i = 0; i < read; i += 2) {
+                samples[position++] = (short) ((buffer[i] & 0xFF) | (buffer[i + 1] << 8));
+            }
+        }
+        for (int frame = frames - FADE_FRAMES; frame < frames; frame++) {
+            double gain = (double) (frames - frame) / FADE_FRAMES;
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                samples[frame * CHANNELS + channel] = (short) (samples[frame * CHANNELS + channel] * gain);
+            }
+        }
+        reset(synth, buffer);
+        return samples;
+    }
+
+    private static long toFrames(long micros) {
+        return micros * SAMPLE_RATE / 1_000_000L;
+    }
+
+    /**
+     * 남은 음과 채널 설정을 초기화하고 잔향 구간을 버린다
+     */
+    private void reset(PooledSynth synth, byte[] buffer) throws IOException {
+        try {
+            for (int channel = 0; channel < MIDI_CHANNELS; channel++) {
+                synth.receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, 120, 0), -1); // All Sound Off
+                synth.receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, 121, 0), -1); // Reset All Controllers
+                synth.receiver.send(new ShortMessage(ShortMessage.PROGRAM_CHANGE, channel, 0, 0), -1);
+            }
+        } catch (InvalidMidiDataException e) {
+            throw new IllegalStateException(e);
+        }
+        long remaining = (long) RELEASE_FRAMES * FRAME_BYTES;
+        while (remaining > 0) {
+            remaining -= readFully(synth.stream, buffer, (int) Math.min(buffer.length, remaining));
+        }
+    }
+
+    private int readFully(AudioInputStream stream, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = stream.read(buffer, total, length - total);
+            if (read < 0) {
+                throw new EOFException("신디사이저 출력 스트림 종료");
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private PooledSynth acquire() {
+        try {
+            PooledSynth synth = pool.poll(waitSeconds, TimeUnit.SECONDS);
+            if (synth == null) {
+                throw new IllegalStateException("MIDI 렌더링 대기 시간 초과");
+            }
+            return synth;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("MIDI 렌더링 대기 중 인터럽트", e);
+        }
+    }
+
+    private void release(PooledSynth synth) {
+        pool.add(synth);
+    }
+
+    private void replace(PooledSynth broken) {
+        broken.close();
+        synchronized (synths) {
+            synths.remove(broken);
+            try {
+                PooledSynth synth = open();
+                synths.add(synth);
+                release(synth);
+            } catch (MidiUnavailableException e) {
+                log.error("신디사이저 재생성 실패: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 출력 스트림 모드로 신디사이저를 열고 SoundFont 악기를 적재
+     */
+    private PooledSynth open() throws MidiUnavailableException {
+        Synthesizer synthesizer = MidiSystem.getSynthesizer();
+        if (!(synthesizer instanceof AudioSynthesizer audioSynthesizer)) {
+            throw new MidiUnavailableException("출력 스트림을 지원하는 신디사이저가 없습니다: " + synthesizer.getClass());
+        }
+        AudioInputStream stream = audioSynthesizer.openStream(FORMAT, null);
+        audioSynthesizer.loadAllInstruments(soundbank);
+        return new PooledSynth(audioSynthesizer, audioSynthesizer.getReceiver(), stream);
+    }
+
+    /**
+     * SoundFont 적재 (스트림으로 읽어 샘플 데이터까지 메모리에 올림)
+     * SOUNDFONT_PATH가 없으면 클래스패스의 기본 SoundFont를 사용한다.
+     */
+    private Soundbank loadSoundbank() throws IOException, InvalidMidiDataException {
+        InputStream in = StringUtils.hasText(soundfontPath)
+                ? Files.newInputStream(Paths.get(soundfontPath))
+                : new ClassPathResource(DEFAULT_SOUNDFONT).getInputStream();
+        try (InputStream buffered = new BufferedInputStream(in)) {
+            return MidiSystem.getSoundbank(buffered);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PooledSynth {
+        private AudioSynthesizer synthesizer;
+        private Receiver receiver;
+        private AudioInputStream stream;
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+            synthesizer.close();
+        }
+    }
+}
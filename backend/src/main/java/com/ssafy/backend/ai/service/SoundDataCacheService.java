@@ -0,0 +1,199 @@
+package com.ssafy.backend.ai.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssafy.backend.ai.sound.dto.AIGeneratedSoundData;
+import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
+import com.ssafy.backend.common.service.RedisService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <pre>AI 생성 결과 캐시</pre>
+ * 정규화한 생성 요청(장르, 분위기, 템포, 악기, 길이, 추가 요청)을 키로 AI 응답을 Redis에 보관한다.
+ * - 키마다 최대 K개의 변형을 모은 뒤부터는 순서대로 돌려가며 반환 (K개가 모이기 전에는 새로 생성)
+ * - TTL 만료, 전체 키 개수를 넘으면 가장 오래 사용되지 않은 키부터 제거
+ * 렌더링 결과 키에는 저장된 응답의 해시를 넣어, 키가 만료된 뒤 다른 응답으로 다시 채워져도 이전 음원을 쓰지 않게 한다.
+ *
+ * @author 박병주
+ * @version 1.2
+ * @since 2025-04-22
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 순환 카운터 키 TTL을 증가 후에 설정, 렌더링 결과 키에 응답 해시 추가
+ *          1.2 - 기본 변형 수 3 (같은 요청이 하루 동안 한 곡만 반복되지 않도록)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SoundDataCacheService {
+    private static final String KEY_PREFIX = "ai:sound:";
+    private static final String ROTATION_SUFFIX = ":rr";
+    // 키별 마지막 사용 시각 (LRU 제거용)
+    private static final String INDEX_KEY = "ai:sound:index";
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${AI_CACHE_ENABLED:true}")
+    private boolean enabled;
+    @Value("${AI_CACHE_VARIANTS:3}")
+    private int variants;
+    @Value("${AI_CACHE_TTL_SECONDS:86400}")
+    private long ttlSeconds;
+    @Value("${AI_CACHE_MAX_ENTRIES:1000}")
+    private long maxEntries;
+
+    /**
+     * 캐시 조회
+     * 키에 변형이 K개 모두 모였을 때만 적중으로 보고 돌아가며 하나를 반환한다.
+     *
+     * @param request 생성 요청
+     * @return 캐시된 AI 응답과 변형 번호, 없으면 empty
+     */
+    public Optional<CachedSoundData> get(SoundGenerationRequest request) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String key = key(request);
+        try {
+            long size = redisService.getListSize(key);
+            if (size < variants) {
+                return Optional.empty();
+            }
+            long variant = (redisService.increment(key + ROTATION_SUFFIX) - 1) % size;
+            // 카운터 키는 첫 증가 때 만들어지므로 TTL은 증가한 뒤에 건다
+            redisService.expire(key + ROTATION_SUFFIX, ttlSeconds);
+            Object json = redisService.getListIndex(key, variant);
+            if (json == null) {
+                return Optional.empty();
+            }
+            redisService.addSortedSet(INDEX_KEY, key, System.currentTimeMillis());
+            log.info("AI 생성 캐시 적중: {} (변형 {})", key, variant);
+            return Optional.of(new CachedSoundData(renderKey(key, variant, json.toString()), objectMapper.readValue(json.toString(), AIGeneratedSoundData.class)));
+        } catch (Exception e) {
+            // 캐시 오류는 생성으로 대체
+            log.warn("AI 생성 캐시 조회 실패: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 새로 생성한 AI 응답 저장
+     *
+     * @param request 생성 요청
+     * @param data    AI 응답 (길이 보정 전)
+     * @return 저장된 변형 번호, 저장하지 않았으면 null
+     */
+    public CachedSoundData put(SoundGenerationRequest request, AIGeneratedSoundData data) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(request);
+        try {
+            String json = objectMapper.writeValueAsString(data);
+            long size = redisService.rightPush(key, json);
+            redisService.expire(key, ttlSeconds);
+            redisService.addSortedSet(INDEX_KEY, key, System.currentTimeMillis());
+            evict();
+            if (size > variants) {
+                // 동시에 생성된 변형이 K개를 넘으면 앞의 K개만 남긴다 (방금 넣은 변형은 버려짐)
+                redisService.trimList(key, 0, variants - 1);
+                return null;
+            }
+            return new CachedSoundData(renderKey(key, size - 1, json), data);
+        } catch (JsonProcessingException e) {
+            log.warn("AI 응답 직렬화 실패: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("AI 생성 캐시 저장 실패: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 키 개수가 최대치를 넘으면 가장 오래 사용되지 않은 키부터 제거
+     */
+    private void evict() {
+        long overflow = redisService.getSortedSetSize(INDEX_KEY) - maxEntries;
+        if (overflow <= 0) {
+            return;
+        }
+        Set<Object> expired = redisService.getRangeSortedSet(INDEX_KEY, 0, overflow - 1);
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        for (Object key : expired) {
+            redisService.delete(key.toString());
+            redisService.delete(key + ROTATION_SUFFIX);
+        }
+        redisService.removeSortedSet(INDEX_KEY, expired.toArray());
+        log.info("AI 생성 캐시 {}개 제거", expired.size());
+    }
+
+    /**
+     * 정규화한 요청의 해시 키
+     * 대소문자, 공백, 악기 순서 차이는 같은 요청으로 보고, 길이는 0.1초 단위로 맞춘다.
+     */
+    private String key(SoundGenerationRequest request) {
+        String instruments = request.getInstruments() == null ? "" : Arrays.stream(request.getInstruments().split(","))
+                .map(this::normalize)
+                .filter(instrument -> !instrument.isEmpty())
+                .sorted()
+                .collect(Collectors.joining(","));
+        String notes = normalize(request.getAdditionalNotes());
+        if (notes.equals("none")) {
+            notes = "";
+        }
+        String canonical = String.join("|",
+                normalize(request.getGenre()),
+                normalize(request.getMood()),
+                String.valueOf(request.getTempo()),
+                instruments,
+                String.valueOf(Math.round(request.getDurationSeconds() * 10)),
+                notes);
+        return KEY_PREFIX + sha256(canonical);
+    }
+
+    /**
+     * 렌더링 결과 키 (캐시 키 / 변형 번호 - 저장된 응답 해시 앞 16자리)
+     */
+    private String renderKey(String key, long variant, String json) {
+        return key + "/" + variant + "-" + sha256(json).substring(0, 16);
+    }
+
+    private String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 캐시된 AI 응답 (렌더링 결과 키로 렌더링 결과도 재사용)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedSoundData {
+        private String renderKey;
+        private AIGeneratedSoundData data;
+    }
+}
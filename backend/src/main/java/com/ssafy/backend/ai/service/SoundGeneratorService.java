@@ -1,31 +1,30 @@
 package com.ssafy.backend.ai.service;
 
+import com.ssafy.backend.ai.sound.ComposedSound;
+import com.ssafy.backend.ai.sound.MidiTimeline;
 import com.ssafy.backend.ai.sound.dto.AIGeneratedSoundData;
+import com.ssafy.backend.ai.sound.dto.NoteColumns;
 import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.sound.midi.*;
-import javax.sound.sampled.AudioFileFormat;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import java.io.*;
+import javax.sound.midi.ShortMessage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SoundGeneratorService {
+    private static final int PULSES_PER_QUARTER_NOTE = 480; // PPQ 값
 
     private final AiService aiService;
-    @Value("${FLUIDSYNTH_PATH}")
-    private String FLUIDSYNTH_PATH;
-    @Value("${SOUNDFONT_PATH}")
-    private String SOUNDFONT_PATH;
+    private final MidiRenderService midiRenderService;
+    private final SoundDataCacheService soundDataCacheService;
     // 악기 이름과 MIDI 프로그램 번호 매핑 테이블
     private static final Map<String, Integer> INSTRUMENT_MAP = new HashMap<>();
 
@@ -76,73 +75,71 @@ public class SoundGeneratorService {
 
     public InputStream generateSound(SoundGenerationRequest request) {
         try {
-            AIGeneratedSoundData soundData = aiService.generateSoundData(request);
-
-            // 요청된 길이에 맞게 MIDI 데이터 검증 및 조정
-            validateAndAdjustSoundData(soundData, request);
-
-            Sequence sequence = createMidiSequence(soundData, request.getTempo());
-
-            // MIDI 파일 생성
-            File tempMidiFile = File.createTempFile("temp", ".mid");
-            tempMidiFile.deleteOnExit();
-            MidiSystem.write(sequence, MidiSystem.getMidiFileTypes(sequence)[0], tempMidiFile);
-
-            // WAV 파일 생성
-            File tempWavFile = File.createTempFile("temp", ".wav");
-            tempWavFile.deleteOnExit();
-
-            // FluidSynth를 사용하여 MIDI를 WAV로 변환 - 개선된 설정
-            ProcessBuilder pb = new ProcessBuilder(
-                    FLUIDSYNTH_PATH,
-                    "-ni",
-                    "-g", "1.0", // 게인 설정
-                    SOUNDFONT_PATH,
-                    tempMidiFile.getAbsolutePath(),
-                    "-F",
-                    tempWavFile.getAbsolutePath(),
-                    "-r", "44100",
-                    "--reverb", "0.3", // 리버브 약간 추가
-                    "--chorus", "0.2"  // 코러스 약간 추가
-            );
-
-            Process process = pb.start();
-            process.waitFor();
-
-            // 생성된 WAV 파일 길이 조정
-            File adjustedWavFile = adjustWavFileDuration(tempWavFile, request.getDurationSeconds());
-
-            // WAV 파일을 InputStream으로 변환
-            return new FileInputStream(adjustedWavFile);
+            MidiTimeline timeline = compose(request).getTimeline();
+
+            // 프로세스 실행이나 임시 파일 없이 메모리에서 바로 WAV로 렌더링 (요청 길이에 맞춰 자르거나 무음으로 채움)
+            return new ByteArrayInputStream(midiRenderService.renderWav(timeline, request.getDurationSeconds()));
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("음원 생성 실패", e);
         }
     }
 
+    /**
+     * AI로 MIDI 데이터를 생성해 이벤트 목록으로 변환 (LLM 단계)
+     * 같은 요청의 AI 응답이 캐시에 있으면 AI 호출 없이 사용한다.
+     *
+     * @param request 생성 요청
+     * @return 요청 길이에 맞춘 MIDI 이벤트 목록과 렌더링 캐시 키
+     */
+    public ComposedSound compose(SoundGenerationRequest request) {
+        return compose(request, false);
+    }
+
+    /**
+     * AI로 MIDI 데이터를 생성해 이벤트 목록으로 변환 (LLM 단계)
+     *
+     * @param request 생성 요청
+     * @param fresh   캐시를 조회하지 않고 새로 생성할지 여부 (여러 변형을 한 번에 만들 때 중복 방지)
+     * @return 요청 길이에 맞춘 MIDI 이벤트 목록과 렌더링 캐시 키
+     */
+    public ComposedSound compose(SoundGenerationRequest request, boolean fresh) {
+        SoundDataCacheService.CachedSoundData cached = fresh ? null : soundDataCacheService.get(request).orElse(null);
+        AIGeneratedSoundData soundData;
+        if (cached != null) {
+            soundData = cached.getData();
+        } else {
+            soundData = aiService.generateSoundData(request);
+            // 길이 보정 전 응답을 저장 (보정은 요청마다 다시 수행)
+            cached = soundDataCacheService.put(request, soundData);
+        }
+
+        // 요청된 길이에 맞게 MIDI 데이터 검증 및 조정
+        validateAndAdjustSoundData(soundData, request);
+
+        String renderKey = cached != null ? cached.getRenderKey() : null;
+        return new ComposedSound(createTimeline(soundData, request.getTempo()), renderKey);
+    }
+
     /**
      * AIGeneratedSoundData의 길이 검증 및 조정
      */
     private void validateAndAdjustSoundData(AIGeneratedSoundData soundData, SoundGenerationRequest request) {
-        int pulsesPerQuarterNote = 480; // PPQ 값
         double beatsPerSecond = request.getTempo() / 60.0; // BPS
-        long expectedTotalTicks = (long) (request.getDurationSeconds() * beatsPerSecond * pulsesPerQuarterNote);
+        long expectedTotalTicks = (long) (request.getDurationSeconds() * beatsPerSecond * PULSES_PER_QUARTER_NOTE);
 
         // 현재 생성된 데이터에서 가장 마지막 노트의 종료 틱 계산
         long actualEndTick = 0;
 
         for (AIGeneratedSoundData.Track track : soundData.getTracks()) {
-            for (AIGeneratedSoundData.Note note : track.getNotes()) {
-                long noteEndTick = note.getStartTick() + note.getDuration();
-                if (noteEndTick > actualEndTick) {
-                    actualEndTick = noteEndTick;
-                }
+            if (track.getNotes() != null) {
+                actualEndTick = Math.max(actualEndTick, track.getNotes().endTick());
             }
         }
 
         // 생성된 데이터가 예상 길이와 5% 이상 차이가 있는 경우 조정
         double difference = Math.abs(1.0 - (double) actualEndTick / expectedTotalTicks);
-        if (difference > 0.05) {
+        if (actualEndTick > 0 && difference > 0.05) {
             log.info("조정 필요: 예상 길이 {} 틱, 실제 길이 {} 틱", expectedTotalTicks, actualEndTick);
 
             // 스케일링 비율 계산
@@ -150,9 +147,8 @@ public class SoundGeneratorService {
 
             // 모든 트랙의 노트 시작 시간과 길이 조정
             for (AIGeneratedSoundData.Track track : soundData.getTracks()) {
-                for (AIGeneratedSoundData.Note note : track.getNotes()) {
-                    note.setStartTick((long) (note.getStartTick() * scaleFactor));
-                    note.setDuration((long) (note.getDuration() * scaleFactor));
+                if (track.getNotes() != null) {
+                    track.getNotes().scale(scaleFactor);
                 }
 
                 // 컨트롤 체인지 조정
@@ -176,77 +172,15 @@ public class SoundGeneratorService {
     }
 
     /**
-     * WAV 파일 길이 조정
+     * 트랙 데이터를 렌더링용 이벤트 목록으로 변환
+     * 노트마다 MidiEvent / ShortMessage 객체를 만들지 않고 열 단위 노트를 그대로 이벤트 배열에 옮긴다.
      */
-    private File adjustWavFileDuration(File wavFile, double requestedDurationSeconds) throws Exception {
-        // 현재 WAV 파일의 길이 확인
-        AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(wavFile);
-        AudioFormat format = audioInputStream.getFormat();
-        long frameLength = audioInputStream.getFrameLength();
-        double durationInSeconds = frameLength / format.getFrameRate();
-        audioInputStream.close();
-
-        log.info("WAV 파일 길이: {} 초, 요청 길이: {} 초", durationInSeconds, requestedDurationSeconds);
-
-        // 허용 오차 범위 내에 있으면 조정하지 않음
-        double tolerance = 0.1; // 0.1초 오차 허용
-        if (Math.abs(durationInSeconds - requestedDurationSeconds) <= tolerance) {
-            return wavFile;
-        }
-
-        // 정확한 길이로 WAV 파일 조정 필요
-        File adjustedWavFile = File.createTempFile("adjusted", ".wav");
-        adjustedWavFile.deleteOnExit();
-
-        // 오디오 처리를 통한 파일 길이 조정
-        AudioInputStream originalStream = AudioSystem.getAudioInputStream(wavFile);
-        int targetFrameLength = (int) (requestedDurationSeconds * format.getFrameRate());
-
-        // 원본보다 짧게 조정하는 경우
-        if (targetFrameLength < frameLength) {
-            AudioInputStream trimmedStream = new AudioInputStream(
-                    originalStream,
-                    format,
-                    targetFrameLength
-            );
-            AudioSystem.write(trimmedStream, AudioFileFormat.Type.WAVE, adjustedWavFile);
-            trimmedStream.close();
-        }
-        // 원본보다 길게 조정하는 경우
-        else if (targetFrameLength > frameLength) {
-            // 무음을 추가하는 방식
-            byte[] audioData = new byte[(int) frameLength * format.getFrameSize()];
-            originalStream.read(audioData);
-
-            byte[] adjustedData = new byte[targetFrameLength * format.getFrameSize()];
-            System.arraycopy(audioData, 0, adjustedData, 0, audioData.length);
-
-            ByteArrayInputStream bais = new ByteArrayInputStream(adjustedData);
-            AudioInputStream adjustedStream = new AudioInputStream(
-                    bais,
-                    format,
-                    targetFrameLength
-            );
-
-            AudioSystem.write(adjustedStream, AudioFileFormat.Type.WAVE, adjustedWavFile);
-            adjustedStream.close();
-        }
-
-        originalStream.close();
-        return adjustedWavFile;
-    }
-
-    private Sequence createMidiSequence(AIGeneratedSoundData soundData, int tempo) throws InvalidMidiDataException {
-        Sequence sequence = new Sequence(Sequence.PPQ, 480);
-
-        // 템포 트랙 생성
-        Track tempoTrack = sequence.createTrack();
-        setTempo(tempoTrack, tempo);
+    private MidiTimeline createTimeline(AIGeneratedSoundData soundData, int tempo) {
+        MidiTimeline timeline = new MidiTimeline(PULSES_PER_QUARTER_NOTE, tempo);
 
         // 모든 트랙 생성
         for (int i = 0; i < soundData.getTracks().size(); i++) {
             AIGeneratedSoundData.Track trackData = soundData.getTracks().get(i);
-            Track track = sequence.createTrack();
 
             // 드럼 트랙인지 확인
             boolean isDrumTrack = isDrumTrack(trackData);
@@ -256,34 +190,22 @@ public class SoundGeneratorService {
 
             // 악기 설정 (드럼 트랙은 프로그램 변경 없음)
             if (!isDrumTrack) {
-                setInstrument(track, channel, trackData.getInstrument());
-            } else {
-                // 드럼 트랙에 대한 트랙 이름 메타 이벤트 추가
-                MetaMessage trackNameMessage = new MetaMessage(0x03, "Drum Kit".getBytes(), "Drum Kit".length());
-                track.add(new MidiEvent(trackNameMessage, 0));
+                setInstrument(timeline, channel, trackData.getInstrument());
             }
 
             // 볼륨 및 팬 설정
-            setVolume(track, channel, trackData.getVolume());
-            setPan(track, channel, trackData.getPan());
+            timeline.add(0, ShortMessage.CONTROL_CHANGE, channel, 7, trackData.getVolume());
+            timeline.add(0, ShortMessage.CONTROL_CHANGE, channel, 10, trackData.getPan() + 64);
 
             // 컨트롤 변경 및 노트 추가
-            addControlChanges(track, channel, trackData.getControlChanges());
-            addNotes(track, channel, trackData.getNotes(), isDrumTrack);
+            addControlChanges(timeline, channel, trackData.getControlChanges());
+            if (trackData.getNotes() != null) {
+                addNotes(timeline, channel, trackData.getNotes(), isDrumTrack);
+            }
         }
 
-        return sequence;
-    }
-
-
-    private void setTempo(Track track, int tempo) throws InvalidMidiDataException {
-        int mpqn = 60000000 / tempo;
-        MetaMessage tempoMessage = new MetaMessage(0x51, new byte[]{
-                (byte) ((mpqn >> 16) & 0xFF),
-                (byte) ((mpqn >> 8) & 0xFF),
-                (byte) (mpqn & 0xFF)
-        }, 3);
-        track.add(new MidiEvent(tempoMessage, 0));
+        timeline.sort();
+        return timeline;
     }
 
     /**
@@ -296,7 +218,7 @@ public class SoundGeneratorService {
         }
 
         // 악기 이름으로 드럼 트랙 식별
-        String instrument = track.getInstrument().toLowerCase();
+        String instrument = track.getInstrument() == null ? "" : track.getInstrument().toLowerCase();
         return instrument.contains("drum") ||
                 instrument.contains("percussion") ||
                 instrument.contains("kit") ||
@@ -322,51 +244,34 @@ public class SoundGeneratorService {
         return channel;
     }
 
-    private void setInstrument(Track track, int channel, String instrumentName) throws InvalidMidiDataException {
+    private void setInstrument(MidiTimeline timeline, int channel, String instrumentName) {
         int instrumentNumber = getInstrumentNumber(instrumentName);
-        ShortMessage programChange = new ShortMessage(ShortMessage.PROGRAM_CHANGE, channel, instrumentNumber, 0);
-        track.add(new MidiEvent(programChange, 0));
+        timeline.add(0, ShortMessage.PROGRAM_CHANGE, channel, instrumentNumber, 0);
         log.info("악기 {} 설정: MIDI 프로그램 번호 {}", instrumentName, instrumentNumber);
     }
 
-    private void setVolume(Track track, int channel, int volume) throws InvalidMidiDataException {
-        ShortMessage volumeChange = new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, 7, volume);
-        track.add(new MidiEvent(volumeChange, 0));
-    }
-
-    private void setPan(Track track, int channel, int pan) throws InvalidMidiDataException {
-        ShortMessage panChange = new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, 10, pan + 64);
-        track.add(new MidiEvent(panChange, 0));
-    }
-
-    private void addControlChanges(Track track, int channel, java.util.List<AIGeneratedSoundData.ControlChange> controlChanges) throws InvalidMidiDataException {
+    private void addControlChanges(MidiTimeline timeline, int channel, List<AIGeneratedSoundData.ControlChange> controlChanges) {
         if (controlChanges != null) {
             for (AIGeneratedSoundData.ControlChange cc : controlChanges) {
-                ShortMessage controlChange = new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, cc.getType(), cc.getValue());
-                track.add(new MidiEvent(controlChange, cc.getTick()));
+                timeline.add(cc.getTick(), ShortMessage.CONTROL_CHANGE, channel, cc.getType(), cc.getValue());
             }
         }
     }
 
-    private void addNotes(Track track, int channel, java.util.List<AIGeneratedSoundData.Note> notes, boolean isDrumTrack) throws InvalidMidiDataException {
-        for (AIGeneratedSoundData.Note note : notes) {
+    private void addNotes(MidiTimeline timeline, int channel, NoteColumns notes, boolean isDrumTrack) {
+        boolean debug = isDrumTrack && log.isDebugEnabled();
+        for (int i = 0; i < notes.size(); i++) {
+            int pitch = notes.getPitch(i);
+            long startTick = notes.getStartTick(i);
             // 드럼 트랙인 경우 노트 매핑 로그 추가
-            if (isDrumTrack && DRUM_NOTE_MAP.containsKey(note.getPitch())) {
+            if (debug && DRUM_NOTE_MAP.containsKey(pitch)) {
                 log.debug("드럼 노트 추가: {} (MIDI 노트 {}), 시작 틱: {}, 길이: {}, 강도: {}",
-                        DRUM_NOTE_MAP.get(note.getPitch()),
-                        note.getPitch(),
-                        note.getStartTick(),
-                        note.getDuration(),
-                        note.getVelocity());
+                        DRUM_NOTE_MAP.get(pitch), pitch, startTick, notes.getDuration(i), notes.getVelocity(i));
             }
 
-            // Note On 이벤트 추가
-            ShortMessage noteOn = new ShortMessage(ShortMessage.NOTE_ON, channel, note.getPitch(), note.getVelocity());
-            track.add(new MidiEvent(noteOn, note.getStartTick()));
-
-            // Note Off 이벤트 추가
-            ShortMessage noteOff = new ShortMessage(ShortMessage.NOTE_OFF, channel, note.getPitch(), 0);
-            track.add(new MidiEvent(noteOff, note.getStartTick() + note.getDuration()));
+            // Note On / Note Off 이벤트 추가
+            timeline.add(startTick, ShortMessage.NOTE_ON, channel, pitch, notes.getVelocity(i));
+            timeline.add(startTick + notes.getDuration(i), ShortMessage.NOTE_OFF, channel, pitch, 0);
         }
     }
 
@@ -0,0 +1,568 @@
+package com.ssafy.backend.ai.service;
+
+import com.ssafy.backend.ai.sound.ComposedSound;
+import com.ssafy.backend.ai.sound.SoundJob;
+import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
+import com.ssafy.backend.audio.service.AudioEncodeService;
+import com.ssafy.backend.audio.util.ClientTeeOutputStream;
+import com.ssafy.backend.audio.util.WavUtils;
+import com.ssafy.backend.common.error.exception.InvalidFormattedRequest;
+import com.ssafy.backend.common.error.exception.NotFoundException;
+import com.ssafy.backend.common.error.exception.NotPermittedException;
+import com.ssafy.backend.common.error.exception.TooManyRequestsException;
+import com.ssafy.backend.common.service.AudioCacheService;
+import com.ssafy.backend.common.service.AudioStreamService;
+import com.ssafy.backend.common.util.ZipUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <pre>AI 음원 생성 작업 대기열</pre>
+ * 생성 요청을 작업으로 등록하고 요청 스레드와 분리된 전용 스레드에서 실행한다.
+ * - LLM 단계(작곡)와 렌더링 단계는 각각 동시 실행 수를 따로 제한
+ * - 대기 중인 작업은 회원별로 번갈아 꺼내 한 회원의 연속 요청이 다른 회원을 막지 않게 함
+ * - 회원별 / 전체 대기 작업 수를 넘는 요청은 거절
+ * - 렌더링 대기열도 크기를 제한하고, 가득 차면 LLM 작업자가 빈자리가 날 때까지 기다려 다음 작업을 꺼내지 않음
+ * 결과 WAV는 음원 캐시에 보관하며, 완료 후 일정 시간이 지난 작업은 정리한다.
+ * 캐시된 AI 응답으로 만든 결과는 같은 요청끼리 렌더링 결과도 공유한다.
+ * 변형을 여러 개 요청하면 변형마다 대기열 항목을 넣어 LLM 단계 / 렌더링 단계에서 병렬로 만들고,
+ * 모두 끝나면 하나의 ZIP으로 묶어 결과로 보관한다.
+ * 스트리밍 생성은 작곡이 끝나는 대로 WAV 헤더(길이 확정)를 보내고, 렌더링한 PCM을 청크 단위로 바로 흘려보낸다.
+ * 스트리밍 렌더링은 응답 스레드에서 진행하지만 렌더링 작업자와 같은 실행 허가를 받아 동시 렌더링 수 제한을 지킨다.
+ * 압축 포맷(Opus, MP3, FLAC)을 요청하면 렌더링 출력을 ffmpeg 파이프로 바로 인코딩해 기록한다.
+ *
+ * @author 박병주
+ * @version 1.7
+ * @since 2025-04-21
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 캐시된 AI 응답의 렌더링 결과 재사용
+ *          1.2 - 다중 변형 생성 (ZIP 결과)
+ *          1.3 - 렌더링 중 스트리밍 응답
+ *          1.4 - 결과 포맷 선택 (ffmpeg 인코딩)
+ *          1.5 - 렌더링 대기열 크기 제한
+ *          1.6 - 스트리밍 렌더링도 렌더링 실행 허가를 받도록 변경
+ *          1.7 - 캐시를 건너뛰고 새로 작곡하는 요청 추가
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SoundJobService {
+    private static final String RESULT_KEY_PREFIX = "ai/";
+    private static final String RENDER_KEY_PREFIX = "ai-render/";
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+    private static final double MAX_DURATION_SECONDS = 120;
+    private static final int MIN_TEMPO = 20;
+    private static final int MAX_TEMPO = 300;
+
+    private final SoundGeneratorService soundGeneratorService;
+    private final MidiRenderService midiRenderService;
+    private final AudioCacheService audioCacheService;
+    private final AudioStreamService audioStreamService;
+    private final AudioEncodeService audioEncodeService;
+
+    @Value("${AI_LLM_CONCURRENCY:4}")
+    private int llmConcurrency;
+    @Value("${AI_RENDER_CONCURRENCY:2}")
+    private int renderConcurrency;
+    @Value("${AI_JOB_MAX_PER_MEMBER:3}")
+    private int maxJobsPerMember;
+    @Value("${AI_JOB_MAX_QUEUED:100}")
+    private int maxQueuedJobs;
+    @Value("${AI_RENDER_MAX_QUEUED:8}")
+    private int maxQueuedRenders;
+    @Value("${AI_JOB_TTL_MINUTES:30}")
+    private long jobTtlMinutes;
+    @Value("${AI_CACHE_RENDERED:true}")
+    private boolean renderCacheEnabled;
+    @Value("${AI_VARIANTS_MAX:4}")
+    private int maxVariants;
+
+    private final Map<String, SoundJob> jobs = new ConcurrentHashMap<>();
+    private final FairQueue queue = new FairQueue();
+    private ExecutorService llmExecutor;
+    private ExecutorService renderExecutor;
+    // 렌더링 작업자와 스트리밍 렌더링이 함께 쓰는 동시 렌더링 허가
+    private Semaphore renderPermits;
+
+    @PostConstruct
+    public void init() {
+        llmExecutor = Executors.newFixedThreadPool(llmConcurrency, namedThreads("ai-llm-"));
+        for (int i = 0; i < llmConcurrency; i++) {
+            llmExecutor.execute(this::composeLoop);
+        }
+        renderPermits = new Semaphore(renderConcurrency, true);
+        // 렌더링 대기열이 가득 차면 넘기는 LLM 작업자를 막아 대기 중인 작업이 LLM 대기열에 머물게 한다
+        renderExecutor = new ThreadPoolExecutor(renderConcurrency, renderConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedRenders), namedThreads("ai-render-"), (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("렌더링 작업자 종료");
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("렌더링 대기 중 인터럽트", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        llmExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * 생성 작업 등록
+     *
+     * @param memberId 요청 회원 ID
+     * @param request  생성 요청
+     * @param variants 생성할 변형 수 (2개 이상이면 결과는 ZIP)
+     * @param fresh    캐시된 AI 응답을 쓰지 않고 새로 작곡할지 여부
+     * @param format   결과 음원 포맷
+     * @return 등록된 작업
+     */
+    public SoundJob submit(int memberId, SoundGenerationRequest request, int variants, boolean fresh,
+                           AudioEncodeService.Format format) {
+        return submit(new SoundJob(memberId, request, variants, fresh, false, format));
+    }
+
+    /**
+     * 스트리밍 생성
+     * 작곡이 끝나면 응답을 시작해 WAV 헤더를 먼저 보내고, 신디사이저가 만드는 PCM을 청크마다 바로 전송한다.
+     * 요청 길이에 맞춘 자르기 / 무음 채우기는 렌더링하면서 처리되므로 WAV는 응답 길이가 처음부터 정해진다.
+     * 압축 포맷은 인코더 출력을 그대로 흘려보낸다 (길이 미정, chunked 전송).
+     * 렌더링 결과는 일반 작업과 같이 음원 캐시에도 기록하며, 렌더링 캐시에 있으면 저장된 파일을 보낸다.
+     *
+     * @param memberId 요청 회원 ID
+     * @param request  생성 요청
+     * @param fresh    캐시된 AI 응답을 쓰지 않고 새로 작곡할지 여부
+     * @param format   결과 음원 포맷
+     * @param headers  요청 헤더 (렌더링 캐시 적중 시 Range 처리)
+     * @return 작곡이 끝나면 완료되는 스트리밍 응답
+     */
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> stream(int memberId, SoundGenerationRequest request, boolean fresh,
+                                                                        AudioEncodeService.Format format, HttpHeaders headers) {
+        SoundJob job = submit(new SoundJob(memberId, request, 1, fresh, true, format));
+        DeferredResult<ResponseEntity<StreamingResponseBody>> response = new DeferredResult<>();
+        job.getComposed().thenApply(composed -> {
+            String resultKey = resultKey(job, composed);
+            Optional<AudioCacheService.CachedAudio> rendered = audioCacheService.peek(resultKey);
+            if (rendered.isPresent()) {
+                queue.done(job);
+                job.complete(resultKey, rendered.get());
+                log.info("AI 생성 작업 완료 (렌더링 캐시 적중): {}", job.getId());
+                return audioStreamService.stream(rendered.get(), headers);
+            }
+            StreamingResponseBody body = out -> renderStream(job, composed, resultKey, out);
+            if (format != AudioEncodeService.Format.WAV) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(format.getContentType()))
+                        .body(body);
+            }
+            long frames = Math.round(request.getDurationSeconds() * MidiRenderService.SAMPLE_RATE);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(WavUtils.CONTENT_TYPE))
+                    .contentLength(WavUtils.HEADER_SIZE + frames * MidiRenderService.FRAME_BYTES)
+                    .body(body);
+        }).whenComplete((entity, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause != null) {
+                if (job.getFinishedAt() == null) {
+                    finish(job, cause instanceof Exception exception ? exception : new IllegalStateException(cause));
+                }
+                response.setErrorResult(cause);
+            } else if (!response.setResult(entity) && job.getFinishedAt() == null) {
+                // 작곡 중 요청이 끝난 경우 (타임아웃, 연결 종료) 렌더링하지 않고 작업 정리
+                finish(job, new IllegalStateException("스트리밍 요청 종료"));
+            }
+        });
+        return response;
+    }
+
+    private SoundJob submit(SoundJob job) {
+        SoundGenerationRequest request = job.getRequest();
+        int memberId = job.getMemberId();
+        int variants = job.getVariants();
+        if (request.getDurationSeconds() <= 0 || request.getDurationSeconds() > MAX_DURATION_SECONDS
+                || request.getTempo() < MIN_TEMPO || request.getTempo() > MAX_TEMPO
+                || variants < 1 || variants > maxVariants) {
+            throw new InvalidFormattedRequest();
+        }
+        if (!queue.offer(job)) {
+            log.warn("AI 생성 대기열 초과: memberId {}", memberId);
+            throw new TooManyRequestsException();
+        }
+        jobs.put(job.getId(), job);
+        log.info("AI 생성 작업 등록: {} (memberId {})", job.getId(), memberId);
+        return job;
+    }
+
+    /**
+     * 본인 작업 조회
+     *
+     * @param memberId 요청 회원 ID
+     * @param jobId    작업 ID
+     * @return 작업
+     */
+    public SoundJob getJob(int memberId, String jobId) {
+        SoundJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException();
+        }
+        if (job.getMemberId() != memberId) {
+            throw new NotPermittedException();
+        }
+        return job;
+    }
+
+    /**
+     * 완료된 작업의 결과 조회
+     *
+     * @param memberId 요청 회원 ID
+     * @param jobId    작업 ID
+     * @return 결과 WAV 캐시 항목
+     */
+    public AudioCacheService.CachedAudio getResult(int memberId, String jobId) {
+        SoundJob job = getJob(memberId, jobId);
+        if (job.getStatus() != SoundJob.Status.DONE) {
+            throw new NotFoundException();
+        }
+        // 용량 제한으로 캐시에서 밀려난 경우 결과 없음
+        return audioCacheService.peek(job.getResultKey()).orElseThrow(NotFoundException::new);
+    }
+
+    /**
+     * 완료 후 보관 시간이 지난 작업 정리
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        Instant expiredBefore = Instant.now().minus(Duration.ofMinutes(jobTtlMinutes));
+        Iterator<SoundJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            SoundJob job = iterator.next();
+            if (job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiredBefore)) {
+                iterator.remove();
+                // 다른 요청과 공유하는 렌더링 캐시는 용량 제한으로만 제거
+                if (job.getResultKey() != null && job.getResultKey().startsWith(RESULT_KEY_PREFIX)) {
+                    audioCacheService.remove(job.getResultKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * LLM 단계 작업자: 공정 대기열에서 꺼내 작곡 후 렌더링 단계로 넘긴다
+     */
+    private void composeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            SoundJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            job.start();
+            if (job.getVariants() > 1) {
+                composeVariant(job, job.claimVariant());
+                continue;
+            }
+            try {
+                ComposedSound composed = soundGeneratorService.compose(job.getRequest(), job.isFresh());
+                if (job.isStreaming()) {
+                    job.compose(composed);
+                    continue;
+                }
+                renderExecutor.execute(() -> render(job, composed));
+            } catch (Exception e) {
+                log.error("AI 작곡 실패: {}, {}", job.getId(), e.getMessage());
+                finish(job, e);
+            }
+        }
+    }
+
+    /**
+     * 변형 하나 작곡 후 렌더링 단계로 넘긴다
+     * 같은 응답이 반복되지 않도록 캐시를 조회하지 않고 새로 생성한다.
+     */
+    private void composeVariant(SoundJob job, int variant) {
+        try {
+            ComposedSound composed = soundGeneratorService.compose(job.getRequest(), true);
+            renderExecutor.execute(() -> renderVariant(job, variant, composed));
+        } catch (Exception e) {
+            log.error("AI 작곡 실패: {} (변형 {}), {}", job.getId(), variant + 1, e.getMessage());
+            collectVariant(job, variant, null);
+        }
+    }
+
+    private void renderVariant(SoundJob job, int variant, ComposedSound composed) {
+        Path output = null;
+        try {
+            output = audioCacheService.createTempFile();
+            renderFile(job, composed, output);
+        } catch (Exception e) {
+            log.error("AI 렌더링 실패: {} (변형 {}), {}", job.getId(), variant + 1, e.getMessage());
+            deleteQuietly(output);
+            output = null;
+        }
+        collectVariant(job, variant, output);
+    }
+
+    /**
+     * 변형 결과 수집
+     * 마지막 변형이 끝나면 성공한 변형을 ZIP으로 묶어 결과로 등록한다 (모두 실패한 경우만 작업 실패).
+     */
+    private void collectVariant(SoundJob job, int variant, Path file) {
+        if (!job.finishVariant(variant, file)) {
+            return;
+        }
+        List<Path> files = job.getVariantFiles();
+        if (files.isEmpty()) {
+            finish(job, new IllegalStateException("모든 변형 생성 실패"));
+            return;
+        }
+        Path zip = null;
+        try {
+            zip = audioCacheService.createTempFile();
+            writeZip(zip, files, job.getFormat());
+            String resultKey = RESULT_KEY_PREFIX + job.getId();
+            AudioCacheService.CachedAudio audio = audioCacheService.put(resultKey, zip, ZIP_CONTENT_TYPE);
+            queue.done(job);
+            job.complete(resultKey, audio);
+            log.info("AI 생성 작업 완료: {} (변형 {}/{})", job.getId(), files.size(), job.getVariants());
+        } catch (Exception e) {
+            log.error("AI 변형 묶기 실패: {}, {}", job.getId(), e.getMessage());
+            deleteQuietly(zip);
+            finish(job, e);
+        } finally {
+            files.forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * 변형 음원을 ZIP으로 묶기 (음원은 압축 효과가 작으므로 STORED 항목으로 저장)
+     */
+    private void writeZip(Path zip, List<Path> files, AudioEncodeService.Format format) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zip)))) {
+            for (int i = 0; i < files.size(); i++) {
+                ZipUtils.putStoredEntry(out, "variant-" + (i + 1) + "." + format.getExtension(), files.get(i), buffer);
+            }
+        }
+    }
+
+    /**
+     * 렌더링 단계: 결과 음원을 캐시 폴더에 바로 기록
+     * 캐시된 AI 응답에서 만든 시퀀스는 같은 길이 / 포맷으로 렌더링한 결과가 있으면 그대로 사용한다.
+     */
+    private void render(SoundJob job, ComposedSound composed) {
+        String resultKey = resultKey(job, composed);
+        Optional<AudioCacheService.CachedAudio> rendered = audioCacheService.peek(resultKey);
+        if (rendered.isPresent()) {
+            queue.done(job);
+            job.complete(resultKey, rendered.get());
+            log.info("AI 생성 작업 완료 (렌더링 캐시 적중): {}", job.getId());
+            return;
+        }
+
+        Path output = null;
+        try {
+            output = audioCacheService.createTempFile();
+            renderFile(job, composed, output);
+            AudioCacheService.CachedAudio audio = audioCacheService.put(resultKey, output, job.getFormat().getContentType());
+            queue.done(job);
+            job.complete(resultKey, audio);
+            log.info("AI 생성 작업 완료: {}", job.getId());
+        } catch (Exception e) {
+            log.error("AI 렌더링 실패: {}, {}", job.getId(), e.getMessage());
+            deleteQuietly(output);
+            finish(job, e);
+        }
+    }
+
+    /**
+     * 스트리밍 렌더링: 응답 스트림과 캐시 파일에 함께 기록
+     * 클라이언트가 연결을 끊어도 결과는 끝까지 만들어 작업 결과로 남긴다.
+     */
+    private void renderStream(SoundJob job, ComposedSound composed, String resultKey, OutputStream client) {
+        Path output = null;
+        try {
+            output = audioCacheService.createTempFile();
+            acquireRenderPermit();
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(output));
+                 OutputStream out = audioEncodeService.open(job.getFormat(), new ClientTeeOutputStream(file, client))) {
+                midiRenderService.renderWav(composed.getTimeline(), job.getRequest().getDurationSeconds(), out);
+            } finally {
+                renderPermits.release();
+            }
+            AudioCacheService.CachedAudio audio = audioCacheService.put(resultKey, output, job.getFormat().getContentType());
+            queue.done(job);
+            job.complete(resultKey, audio);
+            log.info("AI 생성 작업 완료 (스트리밍): {}", job.getId());
+        } catch (Exception e) {
+            log.error("AI 렌더링 실패: {}, {}", job.getId(), e.getMessage());
+            deleteQuietly(output);
+            finish(job, e);
+        }
+    }
+
+    /**
+     * 렌더링 결과를 요청 포맷으로 파일에 기록 (압축 포맷은 ffmpeg 파이프로 인코딩)
+     */
+    private void renderFile(SoundJob job, ComposedSound composed, Path output) throws IOException {
+        acquireRenderPermit();
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(output));
+             OutputStream out = audioEncodeService.open(job.getFormat(), file)) {
+            midiRenderService.renderWav(composed.getTimeline(), job.getRequest().getDurationSeconds(), out);
+        } finally {
+            renderPermits.release();
+        }
+    }
+
+    /**
+     * 렌더링 실행 허가 받기 (빈자리가 날 때까지 대기)
+     */
+    private void acquireRenderPermit() throws InterruptedIOException {
+        try {
+            renderPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("렌더링 대기 중 인터럽트");
+        }
+    }
+
+    /**
+     * 결과 캐시 키
+     * 캐시된 AI 응답에서 만든 시퀀스는 같은 길이 / 포맷의 렌더링 결과를 공유한다.
+     */
+    private String resultKey(SoundJob job, ComposedSound composed) {
+        double durationSeconds = job.getRequest().getDurationSeconds();
+        return renderCacheEnabled && composed.getRenderKey() != null
+                ? RENDER_KEY_PREFIX + composed.getRenderKey() + "/" + Math.round(durationSeconds * MidiRenderService.SAMPLE_RATE)
+                + "." + job.getFormat().getExtension()
+                : RESULT_KEY_PREFIX + job.getId();
+    }
+
+    private void finish(SoundJob job, Exception cause) {
+        queue.done(job);
+        job.fail(cause);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("임시 파일 삭제 실패: {}", path);
+        }
+    }
+
+    private ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 회원별 공정 대기열
+     * 대기 작업이 있는 회원을 순서대로 돌며 한 건씩 꺼낸다 (round-robin).
+     * 변형이 여러 개인 작업은 변형 수만큼 항목을 넣어 여러 LLM 작업자가 나눠 처리한다.
+     * 대기 + 실행 중인 작업 수를 회원별로 세어 등록을 제한한다.
+     */
+    private class FairQueue {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        // 삽입 순서 = 다음에 꺼낼 회원 순서
+        private final LinkedHashMap<Integer, Deque<SoundJob>> waiting = new LinkedHashMap<>();
+        private final Map<Integer, Integer> active = new HashMap<>();
+        private int waitingCount = 0;
+
+        boolean offer(SoundJob job) {
+            lock.lock();
+            try {
+                int memberJobs = active.getOrDefault(job.getMemberId(), 0);
+                if (waitingCount + job.getVariants() > maxQueuedJobs || memberJobs >= maxJobsPerMember) {
+                    return false;
+                }
+                active.put(job.getMemberId(), memberJobs + 1);
+                Deque<SoundJob> memberQueue = waiting.computeIfAbsent(job.getMemberId(), id -> new ArrayDeque<>());
+                for (int i = 0; i < job.getVariants(); i++) {
+                    memberQueue.addLast(job);
+                    notEmpty.signal();
+                }
+                waitingCount += job.getVariants();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        SoundJob take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (waitingCount == 0) {
+                    notEmpty.await();
+                }
+                Iterator<Map.Entry<Integer, Deque<SoundJob>>> iterator = waiting.entrySet().iterator();
+                Map.Entry<Integer, Deque<SoundJob>> next = iterator.next();
+                iterator.remove();
+                SoundJob job = next.getValue().pollFirst();
+                // 남은 작업이 있으면 맨 뒤로 보내 다른 회원에게 차례를 넘긴다
+                if (!next.getValue().isEmpty()) {
+                    waiting.put(next.getKey(), next.getValue());
+                }
+                waitingCount--;
+                return job;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void done(SoundJob job) {
+            lock.lock();
+            try {
+                active.computeIfPresent(job.getMemberId(), (id, count) -> count > 1 ? count - 1 : null);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
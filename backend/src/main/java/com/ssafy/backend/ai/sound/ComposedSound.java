@@ -0,0 +1,20 @@
+package com.ssafy.backend.ai.sound;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <pre>작곡 단계 결과</pre>
+ * 렌더링할 MIDI 이벤트 목록과, 같은 결과를 다시 렌더링하지 않도록 재사용할 렌더링 캐시 키를 가진다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-22
+ */
+@Getter
+@AllArgsConstructor
+public class ComposedSound {
+    private MidiTimeline timeline;
+    // 캐시된 AI 응답에서 만든 경우 렌더링 결과 캐시 키, 아니면 null
+    private String renderKey;
+}
@@ -0,0 +1,149 @@
+package com.ssafy.backend.ai.sound;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.ShortMessage;
+import java.util.Arrays;
+
+/**
+ * <pre>렌더링용 MIDI 이벤트 목록</pre>
+ * 이벤트마다 MidiEvent / ShortMessage를 만들지 않고 틱과 메시지(status, data1, data2)를 기본형 배열에 담는다.
+ * - 템포는 하나로 고정 (생성 음원은 시작 시 한 번만 템포를 지정)
+ * - 데이터 값은 0~127로 보정해 담으므로 모델이 범위를 벗어난 값을 내도 렌더링이 실패하지 않음
+ * - 같은 틱에서는 Note Off를 먼저, 나머지는 추가한 순서대로 정렬
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-24
+ */
+public class MidiTimeline {
+    private static final int DEFAULT_CAPACITY = 256;
+    // 정렬 키: 틱 | 종류(Note Off 우선) | 추가 순서
+    private static final int INDEX_BITS = 21;
+    private static final int MAX_EVENTS = 1 << INDEX_BITS;
+    // 마이크로초 변환 시 넘치지 않는 범위
+    private static final long MAX_TICK = (1L << 32) - 1;
+
+    private final int resolution;
+    private final long microsPerQuarter;
+    private long[] ticks = new long[DEFAULT_CAPACITY];
+    private int[] messages = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+    private boolean sorted = true;
+
+    /**
+     * @param resolution PPQ (4분음표당 틱)
+     * @param tempo      템포 (BPM)
+     */
+    public MidiTimeline(int resolution, int tempo) {
+        this.resolution = resolution;
+        this.microsPerQuarter = 60_000_000L / tempo;
+    }
+
+    /**
+     * 채널 메시지 추가
+     *
+     * @param tick    위치 (틱)
+     * @param command ShortMessage 명령 (NOTE_ON, CONTROL_CHANGE 등)
+     * @param channel 채널 (0-15)
+     * @param data1   첫 번째 데이터
+     * @param data2   두 번째 데이터
+     */
+    public void add(long tick, int command, int channel, int data1, int data2) {
+        if (size == MAX_EVENTS) {
+            throw new IllegalStateException("MIDI 이벤트 수 초과: " + MAX_EVENTS);
+        }
+        if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            messages = Arrays.copyOf(messages, size * 2);
+        }
+        int status = (command & 0xF0) | (channel & 0x0F);
+        ticks[size] = Math.max(0, Math.min(MAX_TICK, tick));
+        messages[size] = status | (clamp(data1) << 8) | (clamp(data2) << 16);
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * 시간순 정렬 (이미 정렬되어 있으면 아무것도 하지 않음)
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long kind = (messages[i] & 0xF0) == ShortMessage.NOTE_OFF ? 0 : 1;
+            keys[i] = (ticks[i] << (INDEX_BITS + 1)) | (kind << INDEX_BITS) | i;
+        }
+        Arrays.sort(keys);
+        long[] sortedTicks = new long[ticks.length];
+        int[] sortedMessages = new int[messages.length];
+        for (int i = 0; i < size; i++) {
+            int index = (int) (keys[i] & (MAX_EVENTS - 1));
+            sortedTicks[i] = ticks[index];
+            sortedMessages[i] = messages[index];
+        }
+        ticks = sortedTicks;
+        messages = sortedMessages;
+        sorted = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getResolution() {
+        return resolution;
+    }
+
+    public long getTick(int index) {
+        return ticks[index];
+    }
+
+    /**
+     * 이벤트 메시지 (status | data1 << 8 | data2 << 16)
+     */
+    public int getPacked(int index) {
+        return messages[index];
+    }
+
+    /**
+     * 이벤트 위치 (마이크로초)
+     */
+    public long getMicros(int index) {
+        return toMicros(ticks[index]);
+    }
+
+    /**
+     * 틱을 마이크로초로 변환
+     */
+    public long toMicros(long tick) {
+        return tick * microsPerQuarter / resolution;
+    }
+
+    /**
+     * 마이크로초를 틱으로 변환
+     */
+    public long toTick(long micros) {
+        return micros * resolution / microsPerQuarter;
+    }
+
+    /**
+     * 신디사이저로 보낼 메시지 (수신 측이 보관하므로 이벤트마다 새로 만든다)
+     */
+    public ShortMessage getMessage(int index) {
+        return toMessage(messages[index]);
+    }
+
+    public static ShortMessage toMessage(int packed) {
+        try {
+            return new ShortMessage(packed & 0xFF, (packed >> 8) & 0xFF, (packed >> 16) & 0xFF);
+        } catch (InvalidMidiDataException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(127, value));
+    }
+}
@@ -0,0 +1,296 @@
+package com.ssafy.backend.ai.sound;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import javax.sound.midi.ShortMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <pre>마디 단위 렌더링 계획</pre>
+ * 타임라인을 마디(4/4) 단위로 나누고, 내용이 같은 마디는 한 번만 렌더링해 PCM을 겹쳐 더하도록 계획한다.
+ * - 마디 = 마디 안에서 시작하는 노트(끝까지) + 그 구간의 컨트롤/프로그램 변경 + 마디 시작 시점의 채널 상태
+ * - 마디를 넘어 이어지는 노트는 시작한 마디에 속하므로 세그먼트 길이가 마디보다 길 수 있다 (뒤 마디와 겹쳐 더함)
+ * - 노트가 없는 마디는 소리가 없으므로 렌더링하지 않는다
+ * 노트 / 컨트롤 / 프로그램 변경 외의 메시지(피치 벤드 등)가 있으면 계획을 세우지 않는다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-25
+ */
+@Getter
+public class RenderPlan {
+    private static final int BEATS_PER_BAR = 4;
+    private static final int MIDI_CHANNELS = 16;
+    private static final int CONTROLLERS = 128;
+
+    // 서로 다른 세그먼트
+    private final List<Segment> segments = new ArrayList<>();
+    // 소리가 있는 마디별 세그먼트 번호와 시작 틱 (시작 틱 순)
+    private int[] placementSegments;
+    private long[] placementTicks;
+    private int bars;
+
+    private RenderPlan() {
+    }
+
+    /**
+     * 렌더링 계획 수립
+     *
+     * @param timeline MIDI 이벤트 목록
+     * @param endTick  렌더링 종료 틱 (이후 이벤트는 제외)
+     * @return 렌더링 계획, 나눌 수 없는 타임라인이면 null
+     */
+    public static RenderPlan of(MidiTimeline timeline, long endTick) {
+        timeline.sort();
+        int size = timeline.size();
+        long barTicks = (long) BEATS_PER_BAR * timeline.getResolution();
+        long[] offTicks = new long[size];
+        for (int i = 0; i < size; i++) {
+            int command = timeline.getPacked(i) & 0xF0;
+            if (command != ShortMessage.NOTE_ON && command != ShortMessage.NOTE_OFF
+                    && command != ShortMessage.CONTROL_CHANGE && command != ShortMessage.PROGRAM_CHANGE) {
+                return null;
+            }
+        }
+        pairNotes(timeline, endTick, offTicks);
+
+        RenderPlan plan = new RenderPlan();
+        plan.bars = (int) ((endTick + barTicks - 1) / barTicks);
+        Map<SegmentKey, Integer> indexes = new HashMap<>();
+        int[] placementSegments = new int[plan.bars];
+        long[] placementTicks = new long[plan.bars];
+        int placements = 0;
+
+        // 마디 시작 시점의 채널 상태 (-1 = 설정 안 됨)
+        int[] programs = new int[MIDI_CHANNELS];
+        int[] controllers = new int[MIDI_CHANNELS * CONTROLLERS];
+        Arrays.fill(programs, -1);
+        Arrays.fill(controllers, -1);
+        int cursor = 0;
+        for (int bar = 0; bar < plan.bars; bar++) {
+            long barStart = bar * barTicks;
+            long barEnd = Math.min(endTick, barStart + barTicks);
+            while (cursor < size && timeline.getTick(cursor) < barStart) {
+                apply(timeline.getPacked(cursor), programs, controllers);
+                cursor++;
+            }
+
+            long segmentEnd = barEnd;
+            boolean sounding = false;
+            for (int i = cursor; i < size && timeline.getTick(i) < barEnd; i++) {
+                if (isNoteOn(timeline.getPacked(i))) {
+                    segmentEnd = Math.max(segmentEnd, offTicks[i]);
+                    sounding = true;
+                }
+            }
+            if (!sounding) {
+                continue;
+            }
+
+            // 마디 안에서 시작한 노트, 그 노트가 끝날 때까지의 컨트롤 / 프로그램 변경
+            long[] events = new long[16];
+            int count = 0;
+            for (int i = cursor; i < size && timeline.getTick(i) < segmentEnd; i++) {
+                int packed = timeline.getPacked(i);
+                long tick = timeline.getTick(i);
+                if (isNoteOn(packed)) {
+                    if (tick >= barEnd) {
+                        continue;
+                    }
+                    events = append(events, count++, tick - barStart, packed);
+                    events = append(events, count++, offTicks[i] - barStart, noteOff(packed));
+                } else if (!isNoteOff(packed)) {
+                    events = append(events, count++, tick - barStart, packed);
+                }
+            }
+            events = Arrays.copyOf(events, count);
+            // 노트의 Note Off를 시작 직후에 넣었으므로 다시 시간순으로 (같은 틱이면 Note Off 먼저)
+            sortEvents(events);
+
+            SegmentKey key = new SegmentKey(state(programs, controllers), events);
+            Integer index = indexes.get(key);
+            if (index == null) {
+                index = plan.segments.size();
+                indexes.put(key, index);
+                plan.segments.add(new Segment(key.state, key.events, segmentEnd - barStart));
+            }
+            placementSegments[placements] = index;
+            placementTicks[placements] = barStart;
+            placements++;
+        }
+        plan.placementSegments = Arrays.copyOf(placementSegments, placements);
+        plan.placementTicks = Arrays.copyOf(placementTicks, placements);
+        return plan;
+    }
+
+    /**
+     * 서로 다른 세그먼트 길이의 합 (틱)
+     */
+    public long uniqueTicks() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.lengthTicks;
+        }
+        return total;
+    }
+
+    public int placements() {
+        return placementSegments.length;
+    }
+
+    /**
+     * Note On마다 짝이 되는 Note Off 틱을 찾는다 (같은 채널 / 음높이에서 먼저 켜진 노트부터)
+     * 짝이 없으면 종료 틱까지 울리는 것으로 본다.
+     */
+    private static void pairNotes(MidiTimeline timeline, long endTick, long[] offTicks) {
+        int size = timeline.size();
+        // 채널 / 음높이별 대기 중인 Note On (연결 리스트)
+        int[] heads = new int[MIDI_CHANNELS * 128];
+        int[] tails = new int[MIDI_CHANNELS * 128];
+        int[] next = new int[size];
+        Arrays.fill(heads, -1);
+        for (int i = 0; i < size; i++) {
+            int packed = timeline.getPacked(i);
+            int key = ((packed & 0x0F) << 7) | ((packed >> 8) & 0x7F);
+            if (isNoteOn(packed)) {
+                offTicks[i] = endTick;
+                next[i] = -1;
+                if (heads[key] < 0) {
+                    heads[key] = i;
+                } else {
+                    next[tails[key]] = i;
+                }
+                tails[key] = i;
+            } else if (isNoteOff(packed) && heads[key] >= 0) {
+                int on = heads[key];
+                offTicks[on] = Math.min(endTick, timeline.getTick(i));
+                heads[key] = next[on];
+            }
+        }
+    }
+
+    private static void apply(int packed, int[] programs, int[] controllers) {
+        int channel = packed & 0x0F;
+        switch (packed & 0xF0) {
+            case ShortMessage.PROGRAM_CHANGE -> programs[channel] = (packed >> 8) & 0x7F;
+            case ShortMessage.CONTROL_CHANGE -> controllers[channel * CONTROLLERS + ((packed >> 8) & 0x7F)] = (packed >> 16) & 0x7F;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 채널 상태를 세그먼트 시작 시 보낼 메시지 목록으로 변환
+     */
+    private static int[] state(int[] programs, int[] controllers) {
+        int[] messages = new int[16];
+        int count = 0;
+        for (int channel = 0; channel < MIDI_CHANNELS; channel++) {
+            if (programs[channel] >= 0) {
+                messages = grow(messages, count);
+                messages[count++] = ShortMessage.PROGRAM_CHANGE | channel | (programs[channel] << 8);
+            }
+            for (int controller = 0; controller < CONTROLLERS; controller++) {
+                int value = controllers[channel * CONTROLLERS + controller];
+                if (value >= 0) {
+                    messages = grow(messages, count);
+                    messages[count++] = ShortMessage.CONTROL_CHANGE | channel | (controller << 8) | (value << 16);
+                }
+            }
+        }
+        return Arrays.copyOf(messages, count);
+    }
+
+    private static int[] grow(int[] array, int count) {
+        return count == array.length ? Arrays.copyOf(array, count * 2) : array;
+    }
+
+    private static long[] append(long[] events, int count, long tick, int packed) {
+        if (count == events.length) {
+            events = Arrays.copyOf(events, count * 2);
+        }
+        events[count] = Segment.event(tick, packed);
+        return events;
+    }
+
+    /**
+     * 틱 순, 같은 틱이면 Note Off 먼저, 나머지는 원래 순서 (삽입 정렬 - 마디 하나의 이벤트는 거의 정렬되어 있음)
+     */
+    private static void sortEvents(long[] events) {
+        for (int i = 1; i < events.length; i++) {
+            long event = events[i];
+            int j = i - 1;
+            while (j >= 0 && compare(events[j], event) > 0) {
+                events[j + 1] = events[j];
+                j--;
+            }
+            events[j + 1] = event;
+        }
+    }
+
+    private static int compare(long a, long b) {
+        int byTick = Long.compare(Segment.tick(a), Segment.tick(b));
+        if (byTick != 0) {
+            return byTick;
+        }
+        return Boolean.compare(!isNoteOff(Segment.message(a)), !isNoteOff(Segment.message(b)));
+    }
+
+    private static boolean isNoteOn(int packed) {
+        return (packed & 0xF0) == ShortMessage.NOTE_ON && ((packed >> 16) & 0x7F) > 0;
+    }
+
+    private static boolean isNoteOff(int packed) {
+        int command = packed & 0xF0;
+        return command == ShortMessage.NOTE_OFF || (command == ShortMessage.NOTE_ON && ((packed >> 16) & 0x7F) == 0);
+    }
+
+    private static int noteOff(int noteOn) {
+        return ShortMessage.NOTE_OFF | (noteOn & 0x0F) | (noteOn & 0xFF00);
+    }
+
+    /**
+     * 한 번 렌더링할 구간
+     * 이벤트는 (세그먼트 시작 기준 틱 << 32 | 메시지)로 담는다.
+     */
+    @Getter
+    public static class Segment {
+        private final int[] state;
+        private final long[] events;
+        private final long lengthTicks;
+
+        Segment(int[] state, long[] events, long lengthTicks) {
+            this.state = state;
+            this.events = events;
+            this.lengthTicks = lengthTicks;
+        }
+
+        static long event(long tick, int packed) {
+            return (tick << 32) | (packed & 0xFFFFFFL);
+        }
+
+        public static long tick(long event) {
+            return event >>> 32;
+        }
+
+        public static int message(long event) {
+            return (int) (event & 0xFFFFFF);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class SegmentKey {
+        private final int[] state;
+        private final long[] events;
+
+        SegmentKey(int[] state, long[] events) {
+            this.state = state;
+            this.events = events;
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.ssafy.backend.ai.sound;
+
+import com.ssafy.backend.ai.sound.dto.AIGeneratedSoundData;
+import com.ssafy.backend.ai.sound.dto.NoteColumns;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <pre>AI 응답 스트리밍 파서</pre>
+ * 모델이 보내는 토큰 조각을 문자 단위로 한 번만 읽어 {@link AIGeneratedSoundData}를 만든다.
+ * - 응답 전체를 문자열로 모으지 않고, 노트는 객체가 닫히는 즉시 트랙에 추가
+ * - 요청 길이(틱) 이후에 시작하는 노트 / 컨트롤 체인지는 만들지 않음
+ * - 섹션 / 믹싱 정보를 먼저 받은 뒤 트랙 목록이 끝나면 필요한 데이터가 모두 모인 것으로 보고 종료
+ *   (프롬프트가 트랙을 마지막에 쓰도록 요청하며, 모델이 순서를 지키지 않으면 루트 객체가 닫힐 때까지 읽음)
+ *   트랙 수와 노트 순서는 정해져 있지 않아 트랙 목록 중간에는 종료하지 않는다.
+ *   요청 길이 밖의 노트도 끝까지 읽으며(만들지만 않음), 일찍 종료해 줄어드는 것은 트랙 목록 뒤의 응답뿐이다.
+ * 모델이 자주 내는 형식 오류는 실패로 처리하지 않고 복구한다.
+ * - 첫 '{' 앞의 설명, 마크다운 코드 블록 표시(```), 주석(//, #, 블록 주석)은 무시
+ * - 쉼표 / 콜론 누락, 후행 쉼표, 따옴표 없는 키, 작은따옴표 문자열, 문자열로 된 숫자 허용
+ * - 짝이 맞지 않는 닫는 괄호는 짝이 맞는 구조까지 자동으로 닫음
+ * - 응답이 중간에 끊기면 열린 구조를 모두 닫고, 필수 값(pitch, startTick, duration)이 모두 있는 노트만 살림
+ * 숫자는 문자열을 만들지 않고 바로 누적하며, 키와 문자열 값은 하나의 버퍼를 재사용한다.
+ * 노트는 객체 없이 트랙의 {@link NoteColumns}에 바로 추가한다.
+ * 요청 하나마다 새로 만들어 한 스레드에서 사용한다.
+ *
+ * @author 박병주
+ * @version 1.3
+ * @since 2025-04-23
+ * @changes 1.0 - 최초 작성 (Jackson 논블로킹 파서 사용)
+ *          1.1 - 형식 오류를 복구하는 자체 파서로 교체, 복구 내역 집계
+ *          1.2 - 노트를 열 단위 저장소에 바로 기록
+ *          1.3 - 섹션 / 믹싱 정보를 받기 전에는 트랙 목록이 끝나도 종료하지 않음
+ */
+public class SoundDataStreamParser {
+    private static final int NOTE_PITCH = 1;
+    private static final int NOTE_START = 1 << 1;
+    private static final int NOTE_DURATION = 1 << 2;
+    private static final int NOTE_REQUIRED = NOTE_PITCH | NOTE_START | NOTE_DURATION;
+    private static final int CONTROL_TYPE = 1;
+    private static final int CONTROL_TICK = 1 << 1;
+    private static final int CONTROL_REQUIRED = CONTROL_TYPE | CONTROL_TICK;
+
+    private enum Context {
+        ROOT(true), TRACKS(false), TRACK(true), NOTES(false), NOTE(true),
+        CONTROL_CHANGES(false), CONTROL_CHANGE(true), SECTIONS(false), SECTION(true), MIXING(true),
+        SKIP_OBJECT(true), SKIP_ARRAY(false);
+
+        private final boolean object;
+
+        Context(boolean object) {
+            this.object = object;
+        }
+    }
+
+    private enum Lexer {
+        DEFAULT, STRING, STRING_ESCAPE, STRING_UNICODE, NUMBER, WORD,
+        SLASH, LINE_COMMENT, BLOCK_COMMENT, BLOCK_COMMENT_STAR, FENCE
+    }
+
+    private enum Scalar {STRING, NUMBER, WORD}
+
+    /**
+     * 인식하는 키 (대소문자 무시)
+     */
+    private enum Field {
+        TITLE("title"), DESCRIPTION("description"), BPM("bpm"), KEY_SIGNATURE("keySignature"),
+        TRACKS("tracks"), SECTIONS("sections"), MIXING_SETTINGS("mixingSettings"),
+        INSTRUMENT("instrument"), MIDI_CHANNEL("midiChannel"), VOLUME("volume"), PAN("pan"),
+        NOTES("notes"), CONTROL_CHANGES("controlChanges"),
+        PITCH("pitch"), VELOCITY("velocity"), START_TICK("startTick"), DURATION("duration"),
+        TYPE("type"), VALUE("value"), TICK("tick"),
+        NAME("name"), END_TICK("endTick"), REPEAT_COUNT("repeatCount"),
+        MASTER_VOLUME("masterVolume"), REVERB("reverb"), DELAY("delay"), CHORUS("chorus");
+
+        private static final Field[] FIELDS = values();
+        private final String json;
+
+        Field(String json) {
+            this.json = json;
+        }
+
+        static Field of(CharSequence text) {
+            for (Field field : FIELDS) {
+                if (field.json.length() == text.length() && matches(field.json, text)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        private static boolean matches(String name, CharSequence text) {
+            for (int i = 0; i < name.length(); i++) {
+                if (Character.toLowerCase(name.charAt(i)) != Character.toLowerCase(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final long totalTicks;
+    private final AIGeneratedSoundData data = new AIGeneratedSoundData();
+
+    // 구조 스택
+    private Context[] stack = new Context[16];
+    private int depth = 0;
+    // 현재 객체에서 값을 기다리는 키 (모르는 키면 field는 null)
+    private boolean hasKey = false;
+    private Field field;
+
+    // 토큰 상태
+    private Lexer lexer = Lexer.DEFAULT;
+    private final StringBuilder text = new StringBuilder();
+    private char quote;
+    private int unicode;
+    private int unicodeDigits;
+    private boolean negative;
+    private long mantissa;
+    private int scale;
+    private boolean fraction;
+    private boolean exponentPart;
+    private boolean exponentNegative;
+    private int exponent;
+    private boolean digits;
+
+    // 만드는 중인 값
+    private AIGeneratedSoundData.Track track;
+    private int notePitch;
+    private int noteVelocity;
+    private long noteStartTick;
+    private long noteDuration;
+    private int noteFields;
+    private AIGeneratedSoundData.ControlChange controlChange;
+    private int controlChangeFields;
+    private AIGeneratedSoundData.Section section;
+    private AIGeneratedSoundData.MixingSettings mixingSettings;
+
+    private boolean started = false;
+    @Getter
+    private boolean done = false;
+    // 응답이 끝까지 오지 않았거나 닫는 괄호가 빠져 자동으로 닫은 경우
+    @Getter
+    private boolean truncated = false;
+    @Getter
+    private long receivedChars = 0;
+    @Getter
+    private int noteCount = 0;
+    // 요청 길이 밖이라 만들지 않은 노트 수
+    @Getter
+    private int skippedCount = 0;
+    // 필수 값이 없어 버린 노트 수
+    @Getter
+    private int droppedCount = 0;
+    // 무시한 잘못된 토큰, 자동으로 닫은 구조 수
+    @Getter
+    private int repairCount = 0;
+
+    /**
+     * @param totalTicks 요청 길이 (틱)
+     */
+    public SoundDataStreamParser(long totalTicks) {
+        this.totalTicks = totalTicks;
+    }
+
+    /**
+     * 모델 응답 조각 입력
+     *
+     * @param chunk 응답 텍스트 조각
+     * @return 렌더링에 필요한 데이터를 모두 받았으면 true (이후 입력은 무시)
+     */
+    public boolean feed(CharSequence chunk) {
+        if (done || chunk == null) {
+            return done;
+        }
+        receivedChars += chunk.length();
+        for (int i = 0; i < chunk.length() && !done; i++) {
+            accept(chunk.charAt(i));
+        }
+        return done;
+    }
+
+    /**
+     * 응답 종료 후 결과 반환
+     * 끝나지 않은 토큰(끊긴 숫자 / 문자열)은 버리고 열린 구조를 모두 닫는다.
+     *
+     * @return 파싱된 AI 응답
+     * @throws IOException 응답에서 트랙 정보를 찾지 못한 경우
+     */
+    public AIGeneratedSoundData finish() throws IOException {
+        if (!done) {
+            if (depth > 0) {
+                truncated = true;
+            }
+            lexer = Lexer.DEFAULT;
+            hasKey = false;
+            while (depth > 0) {
+                close();
+                repairCount++;
+            }
+        }
+        done = true;
+        if (data.getTracks() == null || data.getTracks().isEmpty()) {
+            throw new IOException("AI 응답에 트랙 정보가 없습니다");
+        }
+        return data;
+    }
+
+    /**
+     * 문자 하나 처리
+     */
+    private void accept(char c) {
+        if (!started) {
+            // 첫 '{' 앞의 설명 / 코드 블록 표시는 버린다
+            if (c == '{') {
+                started = true;
+                push(Context.ROOT);
+            }
+            return;
+        }
+        switch (lexer) {
+            case STRING -> {
+                if (c == quote) {
+                    lexer = Lexer.DEFAULT;
+                    scalar(Scalar.STRING);
+                } else if (c == '\\') {
+                    lexer = Lexer.STRING_ESCAPE;
+                } else {
+                    text.append(c);
+                }
+            }
+            case STRING_ESCAPE -> escape(c);
+            case STRING_UNICODE -> {
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    // 잘못된 유니코드 이스케이프는 버리고 문자열을 이어서 읽는다
+                    repairCount++;
+                    lexer = Lexer.STRING;
+                    accept(c);
+                    return;
+                }
+                unicode = (unicode << 4) | digit;
+                if (++unicodeDigits == 4) {
+                    text.append((char) unicode);
+                    lexer = Lexer.STRING;
+                }
+            }
+            case NUMBER -> {
+                if (!number(c)) {
+                    lexer = Lexer.DEFAULT;
+                    endNumber();
+                    token(c);
+                }
+            }
+            case WORD -> {
+                if (Character.isLetterOrDigit(c) || c == '_' || c == '-') {
+                    text.append(c);
+                } else {
+                    lexer = Lexer.DEFAULT;
+                    scalar(Scalar.WORD);
+                    token(c);
+                }
+            }
+            case SLASH -> {
+                if (c == '/') {
+                    lexer = Lexer.LINE_COMMENT;
+                } else if (c == '*') {
+                    lexer = Lexer.BLOCK_COMMENT;
+                } else {
+                    repairCount++;
+                    lexer = Lexer.DEFAULT;
+                    token(c);
+                }
+            }
+            case LINE_COMMENT, FENCE -> {
+                if (c == '\n' || c == '\r') {
+                    lexer = Lexer.DEFAULT;
+                }
+            }
+            case BLOCK_COMMENT -> {
+                if (c == '*') {
+                    lexer = Lexer.BLOCK_COMMENT_STAR;
+                }
+            }
+            case BLOCK_COMMENT_STAR -> {
+                if (c == '/') {
+                    lexer = Lexer.DEFAULT;
+                } else if (c != '*') {
+                    lexer = Lexer.BLOCK_COMMENT;
+                }
+            }
+            default -> token(c);
+        }
+    }
+
+    /**
+     * 토큰 사이의 문자 처리 (쉼표 / 콜론은 구분 없이 공백으로 취급)
+     */
+    private void token(char c) {
+        switch (c) {
+            case '{' -> open(true);
+            case '[' -> open(false);
+            case '}' -> close(true);
+            case ']' -> close(false);
+            case '"', '\'' -> {
+                quote = c;
+                text.setLength(0);
+                lexer = Lexer.STRING;
+            }
+            case '/' -> lexer = Lexer.SLASH;
+            case '#' -> lexer = Lexer.LINE_COMMENT;
+            // 마크다운 코드 블록 표시는 줄 끝까지 무시 (```json 등)
+            case '`' -> lexer = Lexer.FENCE;
+            case ',', ':', ' ', '\t', '\n', '\r' -> {
+            }
+            default -> {
+                if (c == '-' || c == '+' || c == '.' || (c >= '0' && c <= '9')) {
+                    startNumber();
+                    number(c);
+                    lexer = Lexer.NUMBER;
+                } else if (Character.isLetter(c) || c == '_') {
+                    text.setLength(0);
+                    text.append(c);
+                    lexer = Lexer.WORD;
+                } else if (!Character.isWhitespace(c)) {
+                    repairCount++;
+                }
+            }
+        }
+    }
+
+    private void escape(char c) {
+        lexer = Lexer.STRING;
+        switch (c) {
+            case 'n' -> text.append('\n');
+            case 't' -> text.append('\t');
+            case 'r' -> text.append('\r');
+            case 'b' -> text.append('\b');
+            case 'f' -> text.append('\f');
+            case 'u' -> {
+                unicode = 0;
+                unicodeDigits = 0;
+                lexer = Lexer.STRING_UNICODE;
+            }
+            default -> text.append(c);
+        }
+    }
+
+    private void startNumber() {
+        negative = false;
+        mantissa = 0;
+        scale = 0;
+        fraction = false;
+        exponentPart = false;
+        exponentNegative = false;
+        exponent = 0;
+        digits = false;
+    }
+
+    /**
+     * 숫자 문자 누적
+     *
+     * @return 숫자의 일부가 아니면 false
+     */
+    private boolean number(char c) {
+        if (c >= '0' && c <= '9') {
+            int digit = c - '0';
+            if (exponentPart) {
+                exponent = Math.min(exponent * 10 + digit, 400);
+            } else if (mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                mantissa = mantissa * 10 + digit;
+                if (fraction) {
+                    scale--;
+                }
+            } else if (!fraction) {
+                // 범위를 넘는 자리는 지수로 옮긴다
+                scale++;
+            }
+            digits = true;
+            return true;
+        }
+        if ((c == '-' || c == '+') && !digits && !fraction && !exponentPart) {
+            negative = c == '-';
+            return true;
+        }
+        if ((c == '-' || c == '+') && exponentPart && exponent == 0) {
+            exponentNegative = c == '-';
+            return true;
+        }
+        if (c == '.' && !fraction && !exponentPart) {
+            fraction = true;
+            return true;
+        }
+        if ((c == 'e' || c == 'E') && digits && !exponentPart) {
+            exponentPart = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void endNumber() {
+        if (!digits) {
+            repairCount++;
+            return;
+        }
+        scalar(Scalar.NUMBER);
+    }
+
+    /**
+     * 누적한 숫자를 정수로 변환 (소수점 이하는 버림)
+     */
+    private long numberValue() {
+        int power = scale + (exponentNegative ? -exponent : exponent);
+        long value = mantissa;
+        if (power != 0) {
+            value = (long) (mantissa * Math.pow(10, power));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 구조 시작
+     */
+    private void open(boolean object) {
+        Context parent = stack[depth - 1];
+        Field key = hasKey ? field : null;
+        if (parent.object && !hasKey) {
+            // 키 없이 나온 값
+            repairCount++;
+        }
+        hasKey = false;
+        field = null;
+        push(object ? objectContext(parent, key) : arrayContext(parent, key));
+    }
+
+    private Context objectContext(Context parent, Field key) {
+        switch (parent) {
+            case TRACKS -> {
+                track = new AIGeneratedSoundData.Track();
+                track.setNotes(new NoteColumns());
+                track.setControlChanges(new ArrayList<>());
+                data.getTracks().add(track);
+                return Context.TRACK;
+            }
+            case NOTES -> {
+                notePitch = 0;
+                noteVelocity = 0;
+                noteStartTick = 0;
+                noteDuration = 0;
+                noteFields = 0;
+                return Context.NOTE;
+            }
+            case CONTROL_CHANGES -> {
+                controlChange = new AIGeneratedSoundData.ControlChange();
+                controlChangeFields = 0;
+                return Context.CONTROL_CHANGE;
+            }
+            case SECTIONS -> {
+                section = new AIGeneratedSoundData.Section();
+                return Context.SECTION;
+            }
+            case ROOT -> {
+                if (key == Field.MIXING_SETTINGS) {
+                    mixingSettings = new AIGeneratedSoundData.MixingSettings();
+                    data.setMixingSettings(mixingSettings);
+                    return Context.MIXING;
+                }
+                return Context.SKIP_OBJECT;
+            }
+            default -> {
+                return Context.SKIP_OBJECT;
+            }
+        }
+    }
+
+    private Context arrayContext(Context parent, Field key) {
+        if (parent == Context.ROOT && key == Field.TRACKS) {
+            if (data.getTracks() == null) {
+                data.setTracks(new ArrayList<>());
+            }
+            return Context.TRACKS;
+        }
+        if (parent == Context.ROOT && key == Field.SECTIONS) {
+            if (data.getSections() == null) {
+                data.setSections(new ArrayList<>());
+            }
+            return Context.SECTIONS;
+        }
+        if (parent == Context.TRACK && key == Field.NOTES) {
+            return Context.NOTES;
+        }
+        if (parent == Context.TRACK && key == Field.CONTROL_CHANGES) {
+            return Context.CONTROL_CHANGES;
+        }
+        return Context.SKIP_ARRAY;
+    }
+
+    /**
+     * 닫는 괄호 처리
+     * 괄호 종류가 맞지 않으면 짝이 맞는 구조까지 닫고, 짝이 없으면 괄호를 무시한다.
+     */
+    private void close(boolean object) {
+        int match = depth - 1;
+        while (match >= 0 && stack[match].object != object) {
+            match--;
+        }
+        if (match < 0) {
+            repairCount++;
+            return;
+        }
+        while (depth - 1 > match && !done) {
+            close();
+            repairCount++;
+        }
+        if (!done) {
+            close();
+        }
+    }
+
+    /**
+     * 맨 위 구조를 닫고 만든 값을 반영
+     */
+    private void close() {
+        Context context = stack[--depth];
+        hasKey = false;
+        field = null;
+        switch (context) {
+            case ROOT -> done = true;
+            case TRACKS -> done = data.getSections() != null && data.getMixingSettings() != null;
+            case NOTE -> {
+                if ((noteFields & NOTE_REQUIRED) != NOTE_REQUIRED) {
+                    droppedCount++;
+                } else if (noteStartTick >= totalTicks) {
+                    skippedCount++;
+                } else {
+                    track.getNotes().add(notePitch, noteVelocity, noteStartTick, noteDuration);
+                    noteCount++;
+                }
+            }
+            case CONTROL_CHANGE -> {
+                if ((controlChangeFields & CONTROL_REQUIRED) == CONTROL_REQUIRED && controlChange.getTick() < totalTicks) {
+                    track.getControlChanges().add(controlChange);
+                }
+            }
+            case SECTION -> data.getSections().add(section);
+            default -> {
+            }
+        }
+    }
+
+    private void push(Context context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = context;
+    }
+
+    /**
+     * 키 또는 값 처리
+     * 객체 안에서는 키와 값이 번갈아 나오는 것으로 보고, 배열 안의 스칼라 값은 무시한다.
+     */
+    private void scalar(Scalar type) {
+        Context context = stack[depth - 1];
+        if (!context.object) {
+            if (context != Context.SKIP_ARRAY) {
+                repairCount++;
+            }
+            return;
+        }
+        if (!hasKey) {
+            if (type == Scalar.NUMBER) {
+                repairCount++;
+                return;
+            }
+            hasKey = true;
+            field = Field.of(text);
+            return;
+        }
+        Field key = field;
+        hasKey = false;
+        field = null;
+        if (key == null || context == Context.SKIP_OBJECT) {
+            return;
+        }
+        // true / false / null 등은 값으로 쓰지 않는다
+        if (type == Scalar.WORD) {
+            return;
+        }
+        switch (context) {
+            case ROOT -> root(key, type);
+            case TRACK -> track(key, type);
+            case NOTE -> note(key, type);
+            case CONTROL_CHANGE -> controlChange(key, type);
+            case SECTION -> section(key, type);
+            case MIXING -> mixing(key, type);
+            default -> {
+            }
+        }
+    }
+
+    private void root(Field key, Scalar type) {
+        switch (key) {
+            case TITLE -> data.setTitle(stringValue(type));
+            case DESCRIPTION -> data.setDescription(stringValue(type));
+            case KEY_SIGNATURE -> data.setKeySignature(stringValue(type));
+            case BPM -> data.setBpm((int) longValue(type));
+            default -> {
+            }
+        }
+    }
+
+    private void track(Field key, Scalar type) {
+        switch (key) {
+            case INSTRUMENT -> track.setInstrument(stringValue(type));
+            case MIDI_CHANNEL -> track.setMidiChannel((int) longValue(type));
+            case VOLUME -> track.setVolume((int) longValue(type));
+            case PAN -> track.setPan((int) longValue(type));
+            default -> {
+            }
+        }
+    }
+
+    private void note(Field key, Scalar type) {
+        switch (key) {
+            case PITCH -> {
+                notePitch = (int) longValue(type);
+                noteFields |= NOTE_PITCH;
+            }
+            case VELOCITY -> noteVelocity = (int) longValue(type);
+            case START_TICK -> {
+                noteStartTick = longValue(type);
+                noteFields |= NOTE_START;
+            }
+            case DURATION -> {
+                noteDuration = longValue(type);
+                noteFields |= NOTE_DURATION;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void controlChange(Field key, Scalar type) {
+        switch (key) {
+            case TYPE -> {
+                controlChange.setType((int) longValue(type));
+                controlChangeFields |= CONTROL_TYPE;
+            }
+            case VALUE -> controlChange.setValue((int) longValue(type));
+            case TICK -> {
+                controlChange.setTick(longValue(type));
+                controlChangeFields |= CONTROL_TICK;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void section(Field key, Scalar type) {
+        switch (key) {
+            case NAME -> section.setName(stringValue(type));
+            case START_TICK -> section.setStartTick(longValue(type));
+            case END_TICK -> section.setEndTick(longValue(type));
+            case REPEAT_COUNT -> section.setRepeatCount((int) longValue(type));
+            default -> {
+            }
+        }
+    }
+
+    private void mixing(Field key, Scalar type) {
+        switch (key) {
+            case MASTER_VOLUME -> mixingSettings.setMasterVolume((int) longValue(type));
+            case REVERB -> mixingSettings.setReverb((int) longValue(type));
+            case DELAY -> mixingSettings.setDelay((int) longValue(type));
+            case CHORUS -> mixingSettings.setChorus((int) longValue(type));
+            default -> {
+            }
+        }
+    }
+
+    private String stringValue(Scalar type) {
+        return type == Scalar.NUMBER ? String.valueOf(numberValue()) : text.toString();
+    }
+
+    /**
+     * 숫자 값 (문자열로 온 숫자도 변환, 변환할 수 없으면 0)
+     */
+    private long longValue(Scalar type) {
+        if (type == Scalar.NUMBER) {
+            return numberValue();
+        }
+        startNumber();
+        int i = 0;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        while (i < text.length() && number(text.charAt(i))) {
+            i++;
+        }
+        if (!digits) {
+            repairCount++;
+            return 0;
+        }
+        return numberValue();
+    }
+}
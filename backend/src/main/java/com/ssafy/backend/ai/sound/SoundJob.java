@@ -0,0 +1,134 @@
+package com.ssafy.backend.ai.sound;
+
+import com.ssafy.backend.ai.sound.dto.request.SoundGenerationRequest;
+import com.ssafy.backend.audio.service.AudioEncodeService;
+import com.ssafy.backend.common.service.AudioCacheService;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <pre>AI 음원 생성 작업</pre>
+ * 대기열에 들어간 생성 요청의 상태와 결과를 가진다.
+ * 변형(variant)을 여러 개 요청하면 변형마다 따로 작곡 / 렌더링한 뒤 하나의 결과로 묶는다.
+ * 스트리밍 작업은 작곡 결과만 넘기고, 렌더링은 응답 스트림에 바로 기록하면서 진행한다.
+ * 결과 음원은 요청한 포맷(WAV, Opus, MP3, FLAC)으로 인코딩한다.
+ *
+ * @author 박병주
+ * @version 1.4
+ * @since 2025-04-21
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 다중 변형 생성 추가
+ *          1.2 - 스트리밍 작업 추가
+ *          1.3 - 결과 포맷 선택
+ *          1.4 - 새로 작곡(fresh) 요청 추가
+ */
+@Getter
+public class SoundJob {
+    private final String id = UUID.randomUUID().toString();
+    private final int memberId;
+    private final SoundGenerationRequest request;
+    private final Instant createdAt = Instant.now();
+    private final CompletableFuture<AudioCacheService.CachedAudio> result = new CompletableFuture<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    // 결과 WAV 캐시 키
+    private volatile String resultKey;
+    // 생성할 변형 수
+    private final int variants;
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger nextVariant = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger remainingVariants;
+    // 변형별 렌더링 결과 (실패한 변형은 null)
+    private final AtomicReferenceArray<Path> variantFiles;
+    // 캐시된 AI 응답을 쓰지 않고 새로 작곡하는 작업
+    private final boolean fresh;
+    // 렌더링을 응답 스트림에서 진행하는 작업
+    private final boolean streaming;
+    // 결과 음원 포맷
+    private final AudioEncodeService.Format format;
+    // 스트리밍 작업의 작곡 결과
+    private final CompletableFuture<ComposedSound> composed = new CompletableFuture<>();
+
+    public SoundJob(int memberId, SoundGenerationRequest request, int variants, boolean fresh, boolean streaming,
+                    AudioEncodeService.Format format) {
+        this.memberId = memberId;
+        this.request = request;
+        this.variants = variants;
+        this.fresh = fresh;
+        this.streaming = streaming;
+        this.format = format;
+        this.remainingVariants = new AtomicInteger(variants);
+        this.variantFiles = new AtomicReferenceArray<>(variants);
+    }
+
+    /**
+     * 다음에 작곡할 변형 번호
+     */
+    public int claimVariant() {
+        return nextVariant.getAndIncrement();
+    }
+
+    /**
+     * 변형 하나 완료 처리
+     *
+     * @param variant 변형 번호
+     * @param file    렌더링 결과 파일, 실패했으면 null
+     * @return 모든 변형이 끝났으면 true
+     */
+    public boolean finishVariant(int variant, Path file) {
+        variantFiles.set(variant, file);
+        return remainingVariants.decrementAndGet() == 0;
+    }
+
+    /**
+     * 성공한 변형의 렌더링 결과 (변형 번호 순)
+     */
+    public List<Path> getVariantFiles() {
+        List<Path> files = new ArrayList<>(variants);
+        for (int i = 0; i < variants; i++) {
+            if (variantFiles.get(i) != null) {
+                files.add(variantFiles.get(i));
+            }
+        }
+        return files;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    /**
+     * 스트리밍 작업의 작곡 완료 (렌더링은 응답 스트림에서 진행)
+     */
+    public void compose(ComposedSound sound) {
+        composed.complete(sound);
+    }
+
+    public void complete(String resultKey, AudioCacheService.CachedAudio audio) {
+        this.resultKey = resultKey;
+        status = Status.DONE;
+        finishedAt = Instant.now();
+        result.complete(audio);
+    }
+
+    public void fail(Throwable cause) {
+        status = Status.FAILED;
+        finishedAt = Instant.now();
+        composed.completeExceptionally(cause);
+        result.completeExceptionally(cause);
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+}
@@ -33,20 +33,10 @@ public class AIGeneratedSoundData {
         private int midiChannel;
         private int volume; // 0-127
         private int pan; // -64~63(좌우)
-        private List<Note> notes;
+        private NoteColumns notes; // 노트 목록 (열 단위 저장)
         private List<ControlChange> controlChanges;
     }
 
-    @Data
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class Note {
-        private int pitch; // MIDI 노트 번호(0-127)
-        private int velocity; // 노트 강도(0-127)
-        private long startTick; // 시작 위치(틱)
-        private long duration; // 지속 시간(틱)
-    }
-
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
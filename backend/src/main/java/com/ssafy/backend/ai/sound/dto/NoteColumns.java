@@ -0,0 +1,163 @@
+package com.ssafy.backend.ai.sound.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <pre>트랙 노트 목록 (열 단위 저장)</pre>
+ * 노트마다 객체를 만들지 않고 값별로 기본형 배열에 나눠 담는다.
+ * JSON 형식은 기존과 같은 노트 객체 배열({"pitch", "velocity", "startTick", "duration"})이며,
+ * Jackson이 중간 객체 없이 배열로 바로 읽고 쓴다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-24
+ */
+@JsonSerialize(using = NoteColumns.Serializer.class)
+@JsonDeserialize(using = NoteColumns.Deserializer.class)
+public class NoteColumns {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] pitch; // MIDI 노트 번호(0-127)
+    private int[] velocity; // 노트 강도(0-127)
+    private long[] startTick; // 시작 위치(틱)
+    private long[] duration; // 지속 시간(틱)
+    private int size = 0;
+
+    public NoteColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NoteColumns(int capacity) {
+        pitch = new int[capacity];
+        velocity = new int[capacity];
+        startTick = new long[capacity];
+        duration = new long[capacity];
+    }
+
+    public void add(int pitch, int velocity, long startTick, long duration) {
+        if (size == this.pitch.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+            this.pitch = Arrays.copyOf(this.pitch, capacity);
+            this.velocity = Arrays.copyOf(this.velocity, capacity);
+            this.startTick = Arrays.copyOf(this.startTick, capacity);
+            this.duration = Arrays.copyOf(this.duration, capacity);
+        }
+        this.pitch[size] = pitch;
+        this.velocity[size] = velocity;
+        this.startTick[size] = startTick;
+        this.duration[size] = duration;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPitch(int index) {
+        return pitch[index];
+    }
+
+    public int getVelocity(int index) {
+        return velocity[index];
+    }
+
+    public long getStartTick(int index) {
+        return startTick[index];
+    }
+
+    public long getDuration(int index) {
+        return duration[index];
+    }
+
+    /**
+     * 마지막 노트의 종료 틱
+     */
+    public long endTick() {
+        long end = 0;
+        for (int i = 0; i < size; i++) {
+            end = Math.max(end, startTick[i] + duration[i]);
+        }
+        return end;
+    }
+
+    /**
+     * 모든 노트의 시작 위치와 길이를 같은 비율로 조정
+     */
+    public void scale(double factor) {
+        for (int i = 0; i < size; i++) {
+            startTick[i] = (long) (startTick[i] * factor);
+        }
+        for (int i = 0; i < size; i++) {
+            duration[i] = (long) (duration[i] * factor);
+        }
+    }
+
+    public static class Serializer extends StdSerializer<NoteColumns> {
+        public Serializer() {
+            super(NoteColumns.class);
+        }
+
+        @Override
+        public void serialize(NoteColumns notes, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(notes, notes.size);
+            for (int i = 0; i < notes.size; i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("pitch", notes.pitch[i]);
+                generator.writeNumberField("velocity", notes.velocity[i]);
+                generator.writeNumberField("startTick", notes.startTick[i]);
+                generator.writeNumberField("duration", notes.duration[i]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<NoteColumns> {
+        public Deserializer() {
+            super(NoteColumns.class);
+        }
+
+        @Override
+        public NoteColumns deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            NoteColumns notes = new NoteColumns();
+            if (!parser.isExpectedStartArrayToken()) {
+                return (NoteColumns) context.handleUnexpectedToken(NoteColumns.class, parser);
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int pitch = 0;
+                int velocity = 0;
+                long startTick = 0;
+                long duration = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "pitch" -> pitch = parser.getValueAsInt();
+                        case "velocity" -> velocity = parser.getValueAsInt();
+                        case "startTick" -> startTick = parser.getValueAsLong();
+                        case "duration" -> duration = parser.getValueAsLong();
+                        default -> parser.skipChildren();
+                    }
+                }
+                notes.add(pitch, velocity, startTick, duration);
+            }
+            return notes;
+        }
+    }
+}
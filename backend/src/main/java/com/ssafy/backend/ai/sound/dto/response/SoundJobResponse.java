@@ -0,0 +1,19 @@
+package com.ssafy.backend.ai.sound.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SoundJobResponse {
+    private String jobId; // 작업 ID
+    private String status; // QUEUED, RUNNING, DONE, FAILED
+    private int variants; // 변형 수 (2개 이상이면 결과는 ZIP)
+    private String format; // 결과 포맷 (wav, ogg, mp3, flac)
+    private String createdAt; // 요청 시간
+    private String finishedAt; // 완료 시간
+}
@@ -0,0 +1,23 @@
+package com.ssafy.backend.audio.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * <pre>음원 업로드 완료 이벤트</pre>
+ * 트랙 업로드 트랜잭션이 커밋된 뒤 음원 후처리 파이프라인을 시작한다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-16
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AudioUploadedEvent {
+    private int trackId;
+    private List<Integer> layerFileIds;
+}
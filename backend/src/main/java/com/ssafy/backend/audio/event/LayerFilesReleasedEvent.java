@@ -0,0 +1,23 @@
+package com.ssafy.backend.audio.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * <pre>레이어 파일 참조 해제 이벤트</pre>
+ * 트랙 삭제 트랜잭션이 커밋된 뒤 참조가 모두 사라진 레이어 음원을 S3에서 지운다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-29
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LayerFilesReleasedEvent {
+    private int trackId;
+    private List<Integer> layerFileIds;
+}
@@ -0,0 +1,240 @@
+package com.ssafy.backend.audio.service;
+
+import com.ssafy.backend.common.error.exception.InvalidFormattedRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.bramp.ffmpeg.FFmpeg;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <pre>음원 인코딩 서비스</pre>
+ * WAV를 ffmpeg 표준 입력으로 흘려 넣고, 표준 출력으로 나오는 압축 음원을 바로 대상 스트림에 기록한다 (임시 파일 없음).
+ * - 대상 포맷: Opus(OGG), MP3, FLAC (WAV는 그대로 통과)
+ * - 동시에 실행하는 ffmpeg 프로세스 수를 제한하고, 빈자리가 없으면 일정 시간 기다린다
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-26
+ */
+@Service
+@RequiredArgsConstructor
+public class AudioEncodeService {
+    private final FFmpeg ffmpeg;
+
+    @Value("${AUDIO_ENCODE_CONCURRENCY:2}")
+    private int concurrency;
+    @Value("${AUDIO_ENCODE_WAIT_SECONDS:30}")
+    private long waitSeconds;
+
+    private Semaphore permits;
+    // ffmpeg 표준 출력을 대상 스트림으로 옮기는 스레드
+    private ExecutorService pumps;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(concurrency);
+        AtomicInteger count = new AtomicInteger();
+        pumps = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "audio-encode-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pumps.shutdownNow();
+    }
+
+    /**
+     * 인코딩 스트림 열기
+     * 반환된 스트림에 WAV를 쓰고 닫으면 인코딩이 끝날 때까지 기다린다. 대상 스트림은 닫지 않는다.
+     *
+     * @param format 출력 포맷
+     * @param sink   인코딩 결과를 받을 스트림
+     * @return WAV를 받을 스트림
+     */
+    public OutputStream open(Format format, OutputStream sink) throws IOException {
+        if (format == Format.WAV) {
+            return new FilterOutputStream(sink) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        acquire();
+        Process process;
+        try {
+            process = new ProcessBuilder(command(format))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        Future<?> pump = pumps.submit(() -> {
+            try (InputStream in = process.getInputStream()) {
+                in.transferTo(sink);
+                sink.flush();
+            } catch (IOException e) {
+                // 출력을 못 받으면 ffmpeg가 멈추므로 종료시켜 입력 쪽도 실패하게 한다
+                process.destroyForcibly();
+                throw e;
+            }
+            return null;
+        });
+        return new EncoderOutputStream(process, pump, format);
+    }
+
+    /**
+     * ffmpeg 명령 (WAV 입력 → 표준 출력)
+     */
+    private List<String> command(Format format) {
+        List<String> command = new ArrayList<>(List.of(ffmpeg.getPath(),
+                "-hide_banner", "-loglevel", "error",
+                "-f", "wav", "-i", "pipe:0",
+                "-vn", "-c:a", format.getCodec()));
+        if (format.getBitRate() > 0) {
+            command.addAll(List.of("-b:a", String.valueOf(format.getBitRate())));
+        }
+        if (format.getSampleRate() > 0) {
+            command.addAll(List.of("-ar", String.valueOf(format.getSampleRate())));
+        }
+        command.addAll(List.of("-f", format.getMuxer(), "pipe:1"));
+        return command;
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(waitSeconds, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("음원 인코딩 대기 시간 초과");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("음원 인코딩 대기 중 인터럽트", e);
+        }
+    }
+
+    /**
+     * ffmpeg 표준 입력 스트림
+     * 닫을 때 입력을 마치고 프로세스 종료와 출력 전달이 끝날 때까지 기다린 뒤 실행 자리를 반납한다.
+     */
+    private class EncoderOutputStream extends FilterOutputStream {
+        private final Process process;
+        private final Future<?> pump;
+        private final Format format;
+        private boolean closed = false;
+
+        EncoderOutputStream(Process process, Future<?> pump, Format format) {
+            super(process.getOutputStream());
+            this.process = process;
+            this.pump = pump;
+            this.format = format;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                out.close();
+                pump.get();
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    throw new IOException("ffmpeg 인코딩 실패 (" + format + "): 종료 코드 " + exitCode);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("음원 인코딩 중 인터럽트", e);
+            } catch (ExecutionException e) {
+                throw new IOException("인코딩 결과 전달 실패 (" + format + ")", e.getCause());
+            } finally {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 출력 포맷 (확장자, Content-Type, ffmpeg 코덱 / 컨테이너, 비트레이트, 샘플레이트)
+     * Opus는 48kHz만 지원하므로 리샘플링한다.
+     */
+    @Getter
+    @AllArgsConstructor
+    public enum Format {
+        WAV("wav", "audio/wav", null, null, 0, 0),
+        OPUS("ogg", "audio/ogg", "libopus", "ogg", 96_000, 48_000),
+        MP3("mp3", "audio/mpeg", "libmp3lame", "mp3", 128_000, 0),
+        FLAC("flac", "audio/flac", "flac", "flac", 0, 0);
+
+        private final String extension;
+        private final String contentType;
+        private final String codec;
+        private final String muxer;
+        private final int bitRate;
+        private final int sampleRate;
+
+        /**
+         * 요청 값으로 포맷 찾기 (이름 또는 확장자, 대소문자 무시, 없으면 WAV)
+         */
+        public static Format from(String value) {
+            if (!StringUtils.hasText(value)) {
+                return WAV;
+            }
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (format.name().toLowerCase(Locale.ROOT).equals(normalized) || format.extension.equals(normalized)) {
+                    return format;
+                }
+            }
+            throw new InvalidFormattedRequest();
+        }
+
+        /**
+         * Content-Type으로 포맷 찾기
+         */
+        public static Format fromContentType(String contentType) {
+            for (Format format : values()) {
+                if (format.contentType.equals(contentType)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+}
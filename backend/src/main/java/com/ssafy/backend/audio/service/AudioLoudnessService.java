@@ -0,0 +1,287 @@
+package com.ssafy.backend.audio.service;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>라우드니스 분석 서비스</pre>
+ * 디코딩된 PCM을 한 번 순회해 ITU-R BS.1770-4 / EBU R128 기준 값을 계산한다.
+ * - 통합 라우드니스 (LUFS): K-weighting 필터, 400ms 블록(75% 겹침), 절대(-70 LUFS) / 상대(-10 LU) 게이트
+ * - 트루 피크 (dBTP): 4배 오버샘플링(윈도우 sinc 보간) 후 최대 절대값
+ * - 권장 게인 (dB): 목표 라우드니스에 맞추되 트루 피크가 상한을 넘지 않도록 제한
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-19
+ */
+@Slf4j
+@Service
+public class AudioLoudnessService {
+    private static final int CHANNELS = AudioTranscodeService.PCM_CHANNELS;
+    private static final int SAMPLE_RATE = AudioTranscodeService.PCM_SAMPLE_RATE;
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    // 100ms 단위로 제곱합을 모아 400ms 블록을 75%씩 겹쳐 만든다
+    private static final int STEP_FRAMES = SAMPLE_RATE / 10;
+    private static final int STEPS_PER_BLOCK = 4;
+    private static final double ABSOLUTE_GATE_LUFS = -70.0;
+    private static final double RELATIVE_GATE_LU = -10.0;
+    // 트루 피크 보간 (4배 오버샘플링, 위상당 12탭)
+    private static final int OVERSAMPLE = 4;
+    private static final int TAPS = 12;
+    private static final double[][] INTERPOLATION = interpolationFilter();
+    // 과도한 증폭 방지
+    private static final double MAX_GAIN_DB = 12.0;
+
+    @Value("${AUDIO_LOUDNESS_TARGET_LUFS:-14}")
+    private double targetLufs;
+    @Value("${AUDIO_TRUE_PEAK_CEILING_DBTP:-1}")
+    private double truePeakCeilingDbtp;
+
+    /**
+     * PCM 파일 라우드니스 분석
+     *
+     * @param pcm {@link AudioTranscodeService#decodePcm}로 만든 raw PCM 파일
+     * @return 통합 라우드니스, 트루 피크, 권장 게인
+     */
+    public Loudness analyze(Path pcm) throws IOException {
+        KWeighting[] filters = new KWeighting[CHANNELS];
+        TruePeak[] peaks = new TruePeak[CHANNELS];
+        for (int ch = 0; ch < CHANNELS; ch++) {
+            filters[ch] = new KWeighting(SAMPLE_RATE);
+            peaks[ch] = new TruePeak();
+        }
+
+        // 100ms 구간별 K-weighted 제곱합 (채널 가중치는 좌우 모두 1.0)
+        List<Double> steps = new ArrayList<>();
+        double stepSum = 0;
+        int stepFrames = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(pcm, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.remaining() >= AudioTranscodeService.PCM_FRAME_BYTES) {
+                    for (int ch = 0; ch < CHANNELS; ch++) {
+                        double sample = buffer.getShort() / 32768.0;
+                        double weighted = filters[ch].process(sample);
+                        stepSum += weighted * weighted;
+                        peaks[ch].process(sample);
+                    }
+                    if (++stepFrames == STEP_FRAMES) {
+                        steps.add(stepSum);
+                        stepSum = 0;
+                        stepFrames = 0;
+                    }
+                }
+                buffer.compact();
+            }
+        }
+
+        double truePeak = 0;
+        for (TruePeak peak : peaks) {
+            truePeak = Math.max(truePeak, peak.flush());
+        }
+        double integrated = integrate(steps);
+        double truePeakDbtp = truePeak > 0 ? 20 * Math.log10(truePeak) : ABSOLUTE_GATE_LUFS;
+        return new Loudness(round(integrated), round(truePeakDbtp), round(recommendGain(integrated, truePeakDbtp)));
+    }
+
+    /**
+     * 게이트를 적용한 통합 라우드니스
+     * 게이트를 통과한 블록이 없으면(무음 등) 절대 게이트 값을 반환한다.
+     */
+    private double integrate(List<Double> steps) {
+        int blockCount = steps.size() - STEPS_PER_BLOCK + 1;
+        if (blockCount <= 0) {
+            return ABSOLUTE_GATE_LUFS;
+        }
+        double[] blocks = new double[blockCount];
+        double window = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            window += steps.get(i);
+            if (i >= STEPS_PER_BLOCK) {
+                window -= steps.get(i - STEPS_PER_BLOCK);
+            }
+            if (i >= STEPS_PER_BLOCK - 1) {
+                blocks[i - STEPS_PER_BLOCK + 1] = Math.max(window, 0) / ((double) STEP_FRAMES * STEPS_PER_BLOCK);
+            }
+        }
+
+        double absoluteGated = gatedMean(blocks, energy(ABSOLUTE_GATE_LUFS));
+        if (Double.isNaN(absoluteGated)) {
+            return ABSOLUTE_GATE_LUFS;
+        }
+        double relativeGate = energy(loudness(absoluteGated) + RELATIVE_GATE_LU);
+        double gated = gatedMean(blocks, Math.max(relativeGate, energy(ABSOLUTE_GATE_LUFS)));
+        return Double.isNaN(gated) ? ABSOLUTE_GATE_LUFS : loudness(gated);
+    }
+
+    /**
+     * 기준 에너지를 넘는 블록의 평균 에너지, 없으면 NaN
+     */
+    private double gatedMean(double[] blocks, double threshold) {
+        double sum = 0;
+        int count = 0;
+        for (double block : blocks) {
+            if (block > threshold) {
+                sum += block;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * 목표 라우드니스까지의 게인, 트루 피크 상한과 최대 증폭량으로 제한
+     */
+    private double recommendGain(double integrated, double truePeakDbtp) {
+        if (integrated <= ABSOLUTE_GATE_LUFS) {
+            return 0;
+        }
+        double gain = targetLufs - integrated;
+        gain = Math.min(gain, truePeakCeilingDbtp - truePeakDbtp);
+        return Math.min(gain, MAX_GAIN_DB);
+    }
+
+    private static double loudness(double energy) {
+        return -0.691 + 10 * Math.log10(energy);
+    }
+
+    private static double energy(double loudness) {
+        return Math.pow(10, (loudness + 0.691) / 10);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 위상별 보간 계수 (Hann 윈도우 sinc)
+     * 위상 p는 history[TAPS / 2 - 1] 샘플에서 p / OVERSAMPLE 만큼 떨어진 지점의 값을 만든다.
+     */
+    private static double[][] interpolationFilter() {
+        double[][] coefficients = new double[OVERSAMPLE][TAPS];
+        for (int phase = 1; phase < OVERSAMPLE; phase++) {
+            double fraction = (double) phase / OVERSAMPLE;
+            for (int tap = 0; tap < TAPS; tap++) {
+                double t = fraction - (tap - (TAPS / 2 - 1));
+                double sinc = Math.sin(Math.PI * t) / (Math.PI * t);
+                double window = 0.5 * (1 + Math.cos(Math.PI * t / (TAPS / 2.0)));
+                coefficients[phase][tap] = sinc * window;
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * K-weighting 필터 (고역 쉘빙 + 고역 통과 biquad 2단)
+     * 48kHz 기준 계수를 다른 샘플레이트에 맞게 다시 계산한다.
+     */
+    private static class KWeighting {
+        private final double[] shelfB = new double[3];
+        private final double[] shelfA = new double[3];
+        private final double[] passB = {1.0, -2.0, 1.0};
+        private final double[] passA = new double[3];
+        private double s1, s2, p1, p2;
+
+        KWeighting(int sampleRate) {
+            double f0 = 1681.974450955533;
+            double gain = 3.999843853973347;
+            double q = 0.7071752369554196;
+            double k = Math.tan(Math.PI * f0 / sampleRate);
+            double vh = Math.pow(10, gain / 20);
+            double vb = Math.pow(vh, 0.4996667741545416);
+            double a0 = 1 + k / q + k * k;
+            shelfB[0] = (vh + vb * k / q + k * k) / a0;
+            shelfB[1] = 2 * (k * k - vh) / a0;
+            shelfB[2] = (vh - vb * k / q + k * k) / a0;
+            shelfA[1] = 2 * (k * k - 1) / a0;
+            shelfA[2] = (1 - k / q + k * k) / a0;
+
+            f0 = 38.13547087602444;
+            q = 0.5003270373238773;
+            k = Math.tan(Math.PI * f0 / sampleRate);
+            a0 = 1 + k / q + k * k;
+            passA[1] = 2 * (k * k - 1) / a0;
+            passA[2] = (1 - k / q + k * k) / a0;
+        }
+
+        /**
+         * transposed direct form II
+         */
+        double process(double x) {
+            double y = shelfB[0] * x + s1;
+            s1 = shelfB[1] * x - shelfA[1] * y + s2;
+            s2 = shelfB[2] * x - shelfA[2] * y;
+
+            double z = passB[0] * y + p1;
+            p1 = passB[1] * y - passA[1] * z + p2;
+            p2 = passB[2] * y - passA[2] * z;
+            return z;
+        }
+    }
+
+    /**
+     * 채널별 트루 피크 (최근 TAPS개 샘플로 샘플 사이 값을 보간)
+     */
+    private static class TruePeak {
+        private final double[] history = new double[TAPS];
+        private int position = 0;
+        private double peak = 0;
+
+        void process(double sample) {
+            history[position] = sample;
+            position = (position + 1) % TAPS;
+            peak = Math.max(peak, Math.abs(sample));
+            for (int phase = 1; phase < OVERSAMPLE; phase++) {
+                double[] coefficients = INTERPOLATION[phase];
+                double value = 0;
+                // position이 가장 오래된 샘플을 가리킨다
+                for (int tap = 0; tap < TAPS; tap++) {
+                    value += history[(position + tap) % TAPS] * coefficients[tap];
+                }
+                peak = Math.max(peak, Math.abs(value));
+            }
+        }
+
+        /**
+         * 마지막 샘플들 뒤쪽 구간까지 보간되도록 0을 채워 넣고 결과 반환
+         */
+        double flush() {
+            for (int i = 0; i < TAPS / 2; i++) {
+                process(0);
+            }
+            return peak;
+        }
+    }
+
+    /**
+     * 라우드니스 분석 결과
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Loudness {
+        // 통합 라우드니스 (LUFS)
+        private double integratedLufs;
+        // 트루 피크 (dBTP)
+        private double truePeakDbtp;
+        // 재생 시 적용할 권장 게인 (dB)
+        private double gainDb;
+    }
+}
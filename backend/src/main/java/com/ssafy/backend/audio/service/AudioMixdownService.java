@@ -0,0 +1,454 @@
+package com.ssafy.backend.audio.service;
+
+import com.ssafy.backend.audio.util.ClientTeeOutputStream;
+import com.ssafy.backend.audio.util.WavUtils;
+import com.ssafy.backend.common.error.exception.InvalidFormattedRequest;
+import com.ssafy.backend.common.error.exception.TooManyRequestsException;
+import com.ssafy.backend.common.service.AudioCacheService;
+import com.ssafy.backend.common.service.S3Service;
+import com.ssafy.backend.common.util.S3FileKeyExtractor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <pre>레이어 믹스다운 서비스</pre>
+ * 여러 레이어를 게인/오프셋을 적용해 하나의 WAV로 합친다.
+ * - 레이어별 디코딩 결과(PCM)와 믹스 결과를 로컬 캐시에 보관
+ * - 고정 크기 버퍼를 재사용하며 청크 단위로 합산 (청크마다 새 배열을 만들지 않음)
+ * - ffmpeg 디코딩은 요청 스레드와 분리된 전용 스레드에서 실행 (동시 실행 수, 대기열 크기 제한)
+ * - 합산 결과는 캐시 파일에 기록하면서 응답으로 바로 흘려보냄
+ * - 같은 조합의 동시 요청은 하나의 디코딩 / 렌더링 결과를 공유
+ *
+ * @author 박병주
+ * @version 1.1
+ * @since 2025-04-18
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 믹스 길이 제한, 디코딩 전용 스레드, 렌더링 중 스트리밍, 동일 조합 요청 병합
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioMixdownService {
+    // 믹스 결과 최대 길이 (초)
+    public static final double MAX_MIX_SECONDS = 600;
+    private static final long MAX_MIX_FRAMES = (long) (MAX_MIX_SECONDS * AudioTranscodeService.PCM_SAMPLE_RATE);
+    private static final int CHUNK_FRAMES = 8192;
+    private static final int FRAME_BYTES = AudioTranscodeService.PCM_FRAME_BYTES;
+    private static final int CHANNELS = AudioTranscodeService.PCM_CHANNELS;
+    private static final String MIX_KEY_PREFIX = "mix/";
+    private static final String PCM_KEY_PREFIX = "pcm/";
+    private static final String PCM_CONTENT_TYPE = "audio/L16";
+
+    private final S3Service s3Service;
+    private final AudioCacheService audioCacheService;
+    private final AudioTranscodeService audioTranscodeService;
+
+    @Value("${AUDIO_MIXDOWN_DECODE_THREADS:2}")
+    private int decodeThreads;
+    @Value("${AUDIO_MIXDOWN_MAX_QUEUED:32}")
+    private int maxQueuedDecodes;
+
+    private ExecutorService decodeExecutor;
+    // 렌더링 중인 믹스 (캐시에 등록되면 완료)
+    private final ConcurrentHashMap<String, CompletableFuture<AudioCacheService.CachedAudio>> rendering = new ConcurrentHashMap<>();
+    // 디코딩 중인 레이어 PCM
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> decoding = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        decodeExecutor = new ThreadPoolExecutor(decodeThreads, decodeThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxQueuedDecodes), runnable -> {
+            Thread thread = new Thread(runnable, "audio-mixdown-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decodeExecutor.shutdownNow();
+    }
+
+    /**
+     * 믹스다운 준비
+     * 캐시에 있으면 캐시 항목을, 없으면 레이어 디코딩이 끝난 뒤 렌더링할 수 있는 믹스를 반환한다.
+     * 같은 조합을 렌더링 중이면 렌더링이 끝나 캐시에 등록될 때까지 기다린다.
+     *
+     * @param inputs 합칠 음원 목록 (음소거된 레이어는 제외하고 전달)
+     * @return 디코딩이 끝나면 완료되는 믹스 (길이 제한 초과 시 {@link InvalidFormattedRequest},
+     * 디코딩 대기열 초과 시 {@link TooManyRequestsException}로 실패)
+     */
+    public CompletableFuture<Mixdown> mixdown(List<MixdownInput> inputs) {
+        String key = MIX_KEY_PREFIX + hash(inputs);
+        Optional<AudioCacheService.CachedAudio> cached = audioCacheService.peek(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(new Mixdown(cached.get()));
+        }
+        CompletableFuture<AudioCacheService.CachedAudio> created = new CompletableFuture<>();
+        CompletableFuture<AudioCacheService.CachedAudio> existing = rendering.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.thenApply(Mixdown::new);
+        }
+
+        CompletableFuture<Mixdown> prepared;
+        try {
+            CompletableFuture<?>[] decodes = inputs.stream()
+                    .map(input -> decode(input.getSoundUrl()))
+                    .toArray(CompletableFuture[]::new);
+            prepared = CompletableFuture.allOf(decodes).thenApply(ignored -> prepare(key, inputs, created));
+        } catch (RuntimeException e) {
+            prepared = CompletableFuture.failedFuture(e);
+        }
+        return prepared.whenComplete((mixdown, e) -> {
+            if (e != null) {
+                rendering.remove(key, created);
+                created.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * 디코딩이 끝난 레이어를 열고 믹스 길이 확인
+     */
+    private Mixdown prepare(String key, List<MixdownInput> inputs, CompletableFuture<AudioCacheService.CachedAudio> done) {
+        List<MixSource> sources = new ArrayList<>();
+        try {
+            long totalFrames = 0;
+            for (MixdownInput input : inputs) {
+                MixSource source = open(input);
+                sources.add(source);
+                totalFrames = Math.max(totalFrames, source.offsetFrames + source.frames);
+            }
+            if (totalFrames > MAX_MIX_FRAMES) {
+                throw new InvalidFormattedRequest();
+            }
+            return new Mixdown(key, sources, totalFrames, done);
+        } catch (IOException e) {
+            close(sources);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            close(sources);
+            throw e;
+        }
+    }
+
+    /**
+     * 레이어 디코딩 요청 (같은 음원의 동시 요청은 하나의 디코딩을 공유)
+     */
+    private CompletableFuture<Path> decode(String soundUrl) {
+        String key = PCM_KEY_PREFIX + S3FileKeyExtractor.extractS3FileKey(soundUrl);
+        Optional<AudioCacheService.CachedAudio> cached = audioCacheService.peek(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get().getPath());
+        }
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = decoding.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            decodeExecutor.execute(() -> {
+                try {
+                    created.complete(decodedPcm(soundUrl));
+                } catch (Exception e) {
+                    log.warn("레이어 디코딩 실패: {}, {}", key, e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    decoding.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("레이어 디코딩 대기열 초과: {}", key);
+            decoding.remove(key, created);
+            created.completeExceptionally(new TooManyRequestsException());
+            throw new TooManyRequestsException();
+        }
+        return created;
+    }
+
+    /**
+     * 렌더링: 캐시 파일에 기록하면서 클라이언트에도 전송
+     * 클라이언트가 연결을 끊어도 끝까지 만들어 캐시에 등록하고, 같은 조합을 기다리는 요청에 넘긴다.
+     */
+    private void render(Mixdown mixdown, OutputStream client) throws IOException {
+        Path output = null;
+        try {
+            output = audioCacheService.createTempFile();
+            try (OutputStream out = new ClientTeeOutputStream(new BufferedOutputStream(Files.newOutputStream(output)), client)) {
+                render(mixdown.sources, mixdown.totalFrames, out);
+            }
+            AudioCacheService.CachedAudio cached = audioCacheService.put(mixdown.key, output, WavUtils.CONTENT_TYPE);
+            log.info("믹스다운 완료: {} 레이어, {} frames", mixdown.sources.size(), mixdown.totalFrames);
+            mixdown.done.complete(cached);
+        } catch (IOException | RuntimeException e) {
+            log.error("믹스다운 실패: {}, {}", mixdown.key, e.getMessage());
+            if (output != null) {
+                Files.deleteIfExists(output);
+            }
+            mixdown.done.completeExceptionally(e);
+            throw e;
+        } finally {
+            close(mixdown.sources);
+            rendering.remove(mixdown.key, mixdown.done);
+        }
+    }
+
+    private void close(List<MixSource> sources) {
+        for (MixSource source : sources) {
+            try {
+                source.channel.close();
+            } catch (IOException e) {
+                log.warn("레이어 PCM 닫기 실패: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 레이어 PCM을 열어둔다 (캐시에서 제거되어도 열린 채널로 끝까지 읽을 수 있음)
+     */
+    private MixSource open(MixdownInput input) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(decodedPcm(input.getSoundUrl()), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // 조회와 열기 사이에 캐시에서 제거된 경우 다시 디코딩
+            audioCacheService.remove(PCM_KEY_PREFIX + S3FileKeyExtractor.extractS3FileKey(input.getSoundUrl()));
+            channel = FileChannel.open(decodedPcm(input.getSoundUrl()), StandardOpenOption.READ);
+        }
+        long offsetFrames = Math.round(input.getOffsetSeconds() * AudioTranscodeService.PCM_SAMPLE_RATE);
+        return new MixSource(channel, channel.size() / FRAME_BYTES, offsetFrames, input.getGain());
+    }
+
+    /**
+     * 원본을 믹스용 PCM(s16le, 스테레오, 44.1kHz)으로 디코딩, 캐시에 있으면 재사용
+     */
+    private Path decodedPcm(String soundUrl) throws IOException {
+        String s3Key = S3FileKeyExtractor.extractS3FileKey(soundUrl);
+        String key = PCM_KEY_PREFIX + s3Key;
+        Optional<AudioCacheService.CachedAudio> cached = audioCacheService.peek(key);
+        if (cached.isPresent()) {
+            return cached.get().getPath();
+        }
+
+        Path workDir = Files.createTempDirectory("whistlehub-mix-");
+        try {
+            String extension = StringUtils.getFilenameExtension(s3Key);
+            Path source = s3Service.downloadToFile(s3Key, workDir.resolve("source" + (extension != null ? "." + extension : "")));
+            Path pcm = audioCacheService.createTempFile();
+            try {
+                audioTranscodeService.decodePcm(source, pcm);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(pcm);
+                throw e;
+            }
+            return audioCacheService.put(key, pcm, PCM_CONTENT_TYPE).getPath();
+        } finally {
+            FileSystemUtils.deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 청크 단위 합산
+     * 청크마다 겹치는 레이어 구간만 읽어 float 버퍼에 더한 뒤 16bit로 변환해 기록한다.
+     */
+    private void render(List<MixSource> sources, long totalFrames, OutputStream output) throws IOException {
+        float[] mix = new float[CHUNK_FRAMES * CHANNELS];
+        ByteBuffer in = ByteBuffer.allocateDirect(CHUNK_FRAMES * FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] bytes = new byte[CHUNK_FRAMES * FRAME_BYTES];
+        ByteBuffer out = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        output.write(WavUtils.header(AudioTranscodeService.PCM_SAMPLE_RATE, CHANNELS, 16, totalFrames * FRAME_BYTES));
+
+        for (long chunkStart = 0; chunkStart < totalFrames; chunkStart += CHUNK_FRAMES) {
+            int frames = (int) Math.min(CHUNK_FRAMES, totalFrames - chunkStart);
+            Arrays.fill(mix, 0, frames * CHANNELS, 0f);
+
+            for (MixSource source : sources) {
+                long from = Math.max(chunkStart, source.offsetFrames);
+                long to = Math.min(chunkStart + frames, source.offsetFrames + source.frames);
+                if (from >= to) {
+                    continue;
+                }
+                in.clear().limit((int) (to - from) * FRAME_BYTES);
+                readFully(source.channel, in, (from - source.offsetFrames) * FRAME_BYTES);
+                in.flip();
+
+                float scale = source.gain / 32768f;
+                int index = (int) (from - chunkStart) * CHANNELS;
+                while (in.remaining() >= 2) {
+                    mix[index++] += in.getShort() * scale;
+                }
+            }
+
+            out.clear();
+            for (int i = 0; i < frames * CHANNELS; i++) {
+                // 합산 결과가 범위를 넘으면 클리핑
+                float sample = Math.max(-1f, Math.min(1f, mix[i]));
+                out.putShort((short) (sample * 32767f));
+            }
+            output.write(bytes, 0, out.position());
+        }
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * 믹스 조합 해시 (같은 음원, 게인, 오프셋이면 같은 결과)
+     */
+    private String hash(List<MixdownInput> inputs) {
+        StringBuilder canonical = new StringBuilder();
+        for (MixdownInput input : inputs) {
+            canonical.append(input.getSoundUrl()).append('|')
+                    .append(Float.floatToIntBits(input.getGain())).append('|')
+                    .append(Math.round(input.getOffsetSeconds() * AudioTranscodeService.PCM_SAMPLE_RATE)).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 믹스다운 입력 (음원 URL, 선형 게인, 시작 위치)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MixdownInput {
+        private String soundUrl;
+        private float gain;
+        private double offsetSeconds;
+    }
+
+    /**
+     * 믹스다운 결과
+     * 캐시 항목이거나, 디코딩이 끝나 렌더링을 기다리는 믹스 (WAV 길이는 렌더링 전에 확정)
+     */
+    public class Mixdown {
+        private final AudioCacheService.CachedAudio cached;
+        private final String key;
+        private final List<MixSource> sources;
+        private final long totalFrames;
+        private final CompletableFuture<AudioCacheService.CachedAudio> done;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Mixdown(AudioCacheService.CachedAudio cached) {
+            this(cached, null, List.of(), 0, null);
+        }
+
+        private Mixdown(String key, List<MixSource> sources, long totalFrames,
+                        CompletableFuture<AudioCacheService.CachedAudio> done) {
+            this(null, key, sources, totalFrames, done);
+        }
+
+        private Mixdown(AudioCacheService.CachedAudio cached, String key, List<MixSource> sources, long totalFrames,
+                        CompletableFuture<AudioCacheService.CachedAudio> done) {
+            this.cached = cached;
+            this.key = key;
+            this.sources = sources;
+            this.totalFrames = totalFrames;
+            this.done = done;
+        }
+
+        public boolean isCached() {
+            return cached != null;
+        }
+
+        public AudioCacheService.CachedAudio getCached() {
+            return cached;
+        }
+
+        public long getContentLength() {
+            return WavUtils.HEADER_SIZE + totalFrames * FRAME_BYTES;
+        }
+
+        /**
+         * 렌더링하면서 응답 스트림에 기록 (한 번만 가능)
+         *
+         * @param client 응답 스트림
+         */
+        public void writeTo(OutputStream client) throws IOException {
+            if (!started.compareAndSet(false, true)) {
+                throw new IllegalStateException("이미 렌더링한 믹스");
+            }
+            render(this, client);
+        }
+
+        /**
+         * 응답 없이 캐시에만 렌더링 (요청이 먼저 끝나도 같은 조합을 기다리는 요청이 결과를 받도록)
+         */
+        public void writeToCache() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                decodeExecutor.execute(() -> {
+                    try {
+                        render(this, OutputStream.nullOutputStream());
+                    } catch (IOException | RuntimeException ignored) {
+                        // render에서 기록하고 기다리는 요청에 실패를 전달함
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                close(sources);
+                rendering.remove(key, done);
+                done.completeExceptionally(new TooManyRequestsException());
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class MixSource {
+        private FileChannel channel;
+        private long frames;
+        private long offsetFrames;
+        private float gain;
+    }
+}
@@ -0,0 +1,352 @@
+package com.ssafy.backend.audio.service;
+
+import com.ssafy.backend.audio.event.AudioUploadedEvent;
+import com.ssafy.backend.common.service.S3Service;
+import com.ssafy.backend.common.util.S3FileKeyExtractor;
+import com.ssafy.backend.mysql.entity.LayerFile;
+import com.ssafy.backend.mysql.entity.Track;
+import com.ssafy.backend.mysql.repository.LayerFileRepository;
+import com.ssafy.backend.mysql.repository.TrackRepository;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * <pre>음원 후처리 파이프라인</pre>
+ * 트랙 업로드가 커밋된 뒤 원본 음원을 한 번 내려받아 아래 단계를 수행하고 결과를 S3에 저장한다.
+ * - HLS 세그먼트 변환
+ * - 파형(peak) 데이터 생성
+ * - 라우드니스(LUFS) / 트루 피크 분석, 권장 게인 계산
+ * 각 단계는 독립적으로 실패할 수 있으며, 결과가 없으면 원본 음원(soundUrl)으로 재생된다.
+ * 같은 음원 파일을 쓰는 다른 트랙 / 레이어 파일에 결과가 있으면 다시 만들지 않는다.
+ *
+ * @author 박병주
+ * @version 1.3
+ * @since 2025-04-16
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioPipelineService {
+    private final TrackRepository trackRepository;
+    private final LayerFileRepository layerFileRepository;
+    private final S3Service s3Service;
+    private final AudioTranscodeService audioTranscodeService;
+    private final AudioWaveformService audioWaveformService;
+    private final AudioLoudnessService audioLoudnessService;
+
+    /**
+     * 업로드 완료 이벤트 처리
+     * 업로드 요청 스레드와 분리된 audioTaskExecutor에서 실행된다.
+     *
+     * @param event 업로드된 트랙 / 레이어 파일 정보
+     */
+    @Async("audioTaskExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAudioUploaded(AudioUploadedEvent event) {
+        log.info("음원 후처리 시작: {}", event);
+        processTrack(event.getTrackId());
+        event.getLayerFileIds().forEach(this::processLayerFile);
+    }
+
+    /**
+     * 트랙 음원 후처리 (이미 완료된 단계는 건너뜀)
+     *
+     * @param trackId 트랙 ID
+     */
+    public void processTrack(int trackId) {
+        Track track = trackRepository.findById(trackId).orElse(null);
+        if (track == null) {
+            return;
+        }
+        AudioArtifacts current = AudioArtifacts.of(track);
+        AudioArtifacts artifacts = process(track.getSoundUrl(), current);
+        if (artifacts.equals(current)) {
+            return;
+        }
+        // 변환 중 다른 요청이 바꾼 값(조회수 등)을 덮어쓰지 않도록 다시 조회해서 반영
+        trackRepository.findById(trackId).ifPresent(t -> {
+            artifacts.applyTo(t);
+            trackRepository.save(t);
+        });
+    }
+
+    /**
+     * 레이어 음원 후처리 (이미 완료된 단계는 건너뜀)
+     *
+     * @param layerFileId 레이어 파일 ID
+     */
+    public void processLayerFile(int layerFileId) {
+        LayerFile layerFile = layerFileRepository.findById(layerFileId).orElse(null);
+        if (layerFile == null) {
+            return;
+        }
+        AudioArtifacts current = AudioArtifacts.of(layerFile);
+        AudioArtifacts artifacts = process(layerFile.getSoundUrl(), current);
+        if (artifacts.equals(current)) {
+            return;
+        }
+        // 변환 중 다른 업로드가 바꾼 참조 수 / 음원 URL을 덮어쓰지 않도록 결과 컬럼만 갱신
+        AudioLoudnessService.Loudness loudness = artifacts.getLoudness();
+        layerFileRepository.updateArtifacts(layerFileId, artifacts.getHlsUrl(), artifacts.getWaveformUrl(),
+                loudness != null ? loudness.getIntegratedLufs() : null,
+                loudness != null ? loudness.getTruePeakDbtp() : null,
+                loudness != null ? loudness.getGainDb() : null);
+    }
+
+    /**
+     * 원본을 임시 폴더에 한 번 받아 비어 있는 단계를 모두 수행
+     * 파형 생성과 라우드니스 분석은 같은 PCM 디코딩 결과를 사용한다.
+     *
+     * @param soundUrl 원본 음원 URL
+     * @param current  현재 저장된 결과
+     * @return 단계별 결과 (실패한 단계는 null)
+     */
+    private AudioArtifacts process(String soundUrl, AudioArtifacts current) {
+        AudioArtifacts artifacts = current.copy();
+        reuse(soundUrl, artifacts);
+        boolean runHls = artifacts.getHlsUrl() == null;
+        boolean runWaveform = artifacts.getWaveformUrl() == null;
+        boolean runLoudness = artifacts.getLoudness() == null;
+        if (!runHls && !runWaveform && !runLoudness) {
+            return artifacts;
+        }
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("whistlehub-audio-");
+            Path source = download(soundUrl, workDir);
+            if (runHls) {
+                artifacts.setHlsUrl(createHls(source, workDir));
+            }
+            if (runWaveform || runLoudness) {
+                Path pcm = decodePcm(source, workDir);
+                if (pcm != null && runWaveform) {
+                    artifacts.setWaveformUrl(createWaveform(pcm, workDir));
+                }
+                if (pcm != null && runLoudness) {
+                    artifacts.setLoudness(analyzeLoudness(pcm));
+                }
+            }
+        } catch (IOException e) {
+            log.error("음원 후처리 준비 실패: {}, {}", soundUrl, e.getMessage());
+        } finally {
+            deleteWorkDir(workDir);
+        }
+        return artifacts;
+    }
+
+    /**
+     * 같은 음원 파일(내용 기반 키)을 쓰는 트랙 / 레이어 파일에서 이미 만든 결과 재사용
+     *
+     * @param artifacts 비어 있는 항목만 채운다
+     */
+    private void reuse(String soundUrl, AudioArtifacts artifacts) {
+        AudioArtifacts before = artifacts.copy();
+        for (LayerFile layerFile : layerFileRepository.findAllBySoundUrl(soundUrl)) {
+            artifacts.fill(AudioArtifacts.of(layerFile));
+        }
+        for (Track track : trackRepository.findAllBySoundUrl(soundUrl)) {
+            artifacts.fill(AudioArtifacts.of(track));
+        }
+        if (!artifacts.equals(before)) {
+            log.info("동일 음원의 후처리 결과 재사용: {}", soundUrl);
+        }
+    }
+
+    /**
+     * HLS 변환 후 S3 업로드
+     *
+     * @return master 플레이리스트 URL, 실패 시 null
+     */
+    private String createHls(Path source, Path workDir) {
+        try {
+            Path outputDir = Files.createDirectories(workDir.resolve("hls"));
+            audioTranscodeService.transcodeHls(source, outputDir);
+            return uploadHls(outputDir);
+        } catch (Exception e) {
+            log.error("HLS 변환 실패: {}, {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 분석용 PCM 디코딩
+     *
+     * @return raw PCM 파일, 실패 시 null
+     */
+    private Path decodePcm(Path source, Path workDir) {
+        try {
+            return audioTranscodeService.decodePcm(source, workDir.resolve("decoded.pcm"));
+        } catch (Exception e) {
+            log.error("PCM 디코딩 실패: {}, {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 파형 데이터 생성, S3 업로드
+     *
+     * @return 파형 파일 URL, 실패 시 null
+     */
+    private String createWaveform(Path pcm, Path workDir) {
+        try {
+            Path waveform = audioWaveformService.createWaveform(pcm, workDir.resolve("waveform." + AudioWaveformService.EXTENSION));
+            String key = S3Service.WAVEFORM + "/" + UUID.randomUUID() + System.currentTimeMillis() + "." + AudioWaveformService.EXTENSION;
+            return s3Service.uploadLocalFile(waveform, key, AudioWaveformService.CONTENT_TYPE);
+        } catch (Exception e) {
+            log.error("파형 생성 실패: {}, {}", pcm, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 라우드니스 분석
+     *
+     * @return 분석 결과, 실패 시 null
+     */
+    private AudioLoudnessService.Loudness analyzeLoudness(Path pcm) {
+        try {
+            AudioLoudnessService.Loudness loudness = audioLoudnessService.analyze(pcm);
+            log.info("라우드니스 분석 완료: {}", loudness);
+            return loudness;
+        } catch (Exception e) {
+            log.error("라우드니스 분석 실패: {}, {}", pcm, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * S3 원본을 메모리에 올리지 않고 임시 파일로 저장
+     */
+    private Path download(String soundUrl, Path workDir) throws IOException {
+        String key = S3FileKeyExtractor.extractS3FileKey(soundUrl);
+        String extension = StringUtils.getFilenameExtension(key);
+        Path source = workDir.resolve("source" + (extension != null ? "." + extension : ""));
+        return s3Service.downloadToFile(key, source);
+    }
+
+    /**
+     * 변환 결과 폴더 구조를 그대로 S3에 업로드 (플레이리스트는 상대 경로로 세그먼트를 참조)
+     *
+     * @return master 플레이리스트 URL
+     */
+    private String uploadHls(Path outputDir) throws IOException {
+        String prefix = S3Service.HLS + "/" + UUID.randomUUID() + System.currentTimeMillis() + "/";
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(outputDir)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        String masterUrl = null;
+        for (Path file : files) {
+            String relative = outputDir.relativize(file).toString().replace('\\', '/');
+            String url = s3Service.uploadLocalFile(file, prefix + relative, contentType(relative));
+            if (relative.equals(AudioTranscodeService.MASTER_PLAYLIST)) {
+                masterUrl = url;
+            }
+        }
+        return masterUrl;
+    }
+
+    private String contentType(String fileName) {
+        if (fileName.endsWith(".m3u8")) {
+            return "application/vnd.apple.mpegurl";
+        }
+        if (fileName.endsWith(".ts")) {
+            return "video/mp2t";
+        }
+        return "application/octet-stream";
+    }
+
+    private void deleteWorkDir(Path workDir) {
+        if (workDir == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(workDir);
+        } catch (IOException e) {
+            log.warn("임시 폴더 삭제 실패: {}", workDir);
+        }
+    }
+
+    /**
+     * 후처리 단계별 결과
+     */
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    private static class AudioArtifacts {
+        private String hlsUrl;
+        private String waveformUrl;
+        private AudioLoudnessService.Loudness loudness;
+
+        static AudioArtifacts of(Track track) {
+            return of(track.getHlsUrl(), track.getWaveformUrl(),
+                    track.getLoudnessLufs(), track.getTruePeakDbtp(), track.getGainDb());
+        }
+
+        static AudioArtifacts of(LayerFile layerFile) {
+            return of(layerFile.getHlsUrl(), layerFile.getWaveformUrl(),
+                    layerFile.getLoudnessLufs(), layerFile.getTruePeakDbtp(), layerFile.getGainDb());
+        }
+
+        private static AudioArtifacts of(String hlsUrl, String waveformUrl, Double lufs, Double truePeak, Double gain) {
+            AudioArtifacts artifacts = new AudioArtifacts();
+            artifacts.hlsUrl = hlsUrl;
+            artifacts.waveformUrl = waveformUrl;
+            if (lufs != null && truePeak != null && gain != null) {
+                artifacts.loudness = new AudioLoudnessService.Loudness(lufs, truePeak, gain);
+            }
+            return artifacts;
+        }
+
+        AudioArtifacts copy() {
+            AudioArtifacts copy = new AudioArtifacts();
+            copy.fill(this);
+            return copy;
+        }
+
+        /**
+         * 비어 있는 항목만 채운다
+         */
+        void fill(AudioArtifacts other) {
+            if (hlsUrl == null) {
+                hlsUrl = other.hlsUrl;
+            }
+            if (waveformUrl == null) {
+                waveformUrl = other.waveformUrl;
+            }
+            if (loudness == null) {
+                loudness = other.loudness;
+            }
+        }
+
+        void applyTo(Track track) {
+            if (hlsUrl != null) {
+                track.setHlsUrl(hlsUrl);
+            }
+            if (waveformUrl != null) {
+                track.setWaveformUrl(waveformUrl);
+            }
+            if (loudness != null) {
+                track.setLoudnessLufs(loudness.getIntegratedLufs());
+                track.setTruePeakDbtp(loudness.getTruePeakDbtp());
+                track.setGainDb(loudness.getGainDb());
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ssafy.backend.audio.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bramp.ffmpeg.FFmpeg;
+import net.bramp.ffmpeg.FFmpegExecutor;
+import net.bramp.ffmpeg.FFprobe;
+import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * <pre>음원 트랜스코딩 서비스</pre>
+ * 업로드된 원본 음원을 HLS(AAC, 다중 비트레이트) 세그먼트로 변환한다.
+ * 분석(파형 등)에 쓰는 PCM 디코딩도 담당한다.
+ *
+ * @author 박병주
+ * @version 1.1
+ * @since 2025-04-16
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioTranscodeService {
+    public static final String MASTER_PLAYLIST = "master.m3u8";
+    public static final int PCM_SAMPLE_RATE = FFmpeg.AUDIO_SAMPLE_44100;
+    public static final int PCM_CHANNELS = 2;
+    // 16bit * 2채널
+    public static final int PCM_FRAME_BYTES = 2 * PCM_CHANNELS;
+    public static final String VARIANT_PLAYLIST = "index.m3u8";
+    private static final String SEGMENT_PATTERN = "seg_%03d.ts";
+    private static final int SEGMENT_SECONDS = 6;
+    // AAC-LC
+    private static final String AAC_CODECS = "mp4a.40.2";
+
+    /**
+     * HLS 변환 품질 (폴더명, 오디오 비트레이트)
+     */
+    private static final List<HlsVariant> VARIANTS = List.of(
+            new HlsVariant("64k", 64_000),
+            new HlsVariant("128k", 128_000)
+    );
+
+    private final FFmpeg ffmpeg;
+    private final FFprobe ffprobe;
+
+    /**
+     * HLS 변환
+     * ffmpeg 한 번 실행으로 원본을 한 번만 디코딩해 모든 비트레이트를 만든다.
+     *
+     * @param source    원본 음원 파일
+     * @param outputDir 결과 저장 폴더 (비트레이트별 하위 폴더 + master.m3u8)
+     * @return master 플레이리스트 경로
+     */
+    public Path transcodeHls(Path source, Path outputDir) throws IOException {
+        FFmpegBuilder builder = new FFmpegBuilder()
+                .setInput(source.toString())
+                .overrideOutputFiles(true);
+
+        for (HlsVariant variant : VARIANTS) {
+            Path variantDir = Files.createDirectories(outputDir.resolve(variant.getName()));
+            builder.addOutput(variantDir.resolve(VARIANT_PLAYLIST).toString())
+                    .disableVideo() // 앨범 아트 등 이미지 스트림 제외
+                    .setAudioCodec("aac")
+                    .setAudioBitRate(variant.getBitRate())
+                    .setAudioSampleRate(FFmpeg.AUDIO_SAMPLE_44100)
+                    .setFormat("hls")
+                    .addExtraArgs("-hls_time", String.valueOf(SEGMENT_SECONDS),
+                            "-hls_playlist_type", "vod",
+                            "-hls_segment_filename", variantDir.resolve(SEGMENT_PATTERN).toString())
+                    .done();
+        }
+
+        new FFmpegExecutor(ffmpeg, ffprobe).createJob(builder).run();
+        return writeMasterPlaylist(outputDir);
+    }
+
+    /**
+     * PCM 디코딩 (signed 16bit little-endian, 스테레오, 44.1kHz, 헤더 없음)
+     * 원본 포맷과 관계없이 같은 형식으로 맞춰 분석 단계에서 바로 읽을 수 있게 한다.
+     *
+     * @param source 원본 음원 파일
+     * @param output 저장할 raw PCM 파일
+     * @return raw PCM 파일 경로
+     */
+    public Path decodePcm(Path source, Path output) {
+        FFmpegBuilder builder = new FFmpegBuilder()
+                .setInput(source.toString())
+                .overrideOutputFiles(true)
+                .addOutput(output.toString())
+                .disableVideo()
+                .setFormat("s16le")
+                .setAudioCodec("pcm_s16le")
+                .setAudioChannels(PCM_CHANNELS)
+                .setAudioSampleRate(PCM_SAMPLE_RATE)
+                .done();
+
+        new FFmpegExecutor(ffmpeg, ffprobe).createJob(builder).run();
+        return output;
+    }
+
+    /**
+     * 비트레이트별 플레이리스트를 묶는 master 플레이리스트 작성
+     * 플레이어가 네트워크 상태에 맞춰 품질을 선택한다.
+     */
+    private Path writeMasterPlaylist(Path outputDir) throws IOException {
+        StringBuilder master = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+        for (HlsVariant variant : VARIANTS) {
+            master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(variant.getBitRate())
+                    .append(",CODECS=\"").append(AAC_CODECS).append("\"\n")
+                    .append(variant.getName()).append('/').append(VARIANT_PLAYLIST).append('\n');
+        }
+        Path masterPath = outputDir.resolve(MASTER_PLAYLIST);
+        Files.writeString(masterPath, master.toString(), StandardCharsets.UTF_8);
+        return masterPath;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class HlsVariant {
+        private String name;
+        private long bitRate;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ssafy.backend.audio.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <pre>파형(peak) 데이터 생성 서비스</pre>
+ * 디코딩된 PCM을 한 번만 읽어 여러 해상도의 min/max peak 배열을 만든다.
+ *
+ * 파일 형식 (big-endian)
+ * - magic "WHPK" (4byte), version (1byte), sampleRate (int), totalFrames (long), levelCount (1byte)
+ * - 해상도마다 bucketCount (int) + bucketCount * [min (int8), max (int8)]
+ * peak 값은 16bit 샘플의 상위 8bit이며, 좌우 채널 중 큰 값을 사용한다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-17
+ */
+@Slf4j
+@Service
+public class AudioWaveformService {
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    public static final String EXTENSION = "whpk";
+    private static final byte[] MAGIC = "WHPK".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    // 해상도별 버킷 수 (곡 길이와 관계없이 고정)
+    private static final int[] LEVELS = {256, 1024, 4096};
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * PCM 파일로 파형 데이터 파일 생성
+     *
+     * @param pcm    {@link AudioTranscodeService#decodePcm}로 만든 raw PCM 파일
+     * @param output 저장할 파형 파일
+     * @return 파형 파일 경로
+     */
+    public Path createWaveform(Path pcm, Path output) throws IOException {
+        long totalFrames = Files.size(pcm) / AudioTranscodeService.PCM_FRAME_BYTES;
+
+        short[][] mins = new short[LEVELS.length][];
+        short[][] maxs = new short[LEVELS.length][];
+        for (int level = 0; level < LEVELS.length; level++) {
+            mins[level] = new short[LEVELS[level]];
+            maxs[level] = new short[LEVELS[level]];
+        }
+
+        if (totalFrames > 0) {
+            scan(pcm, totalFrames, mins, maxs);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(AudioTranscodeService.PCM_SAMPLE_RATE);
+            out.writeLong(totalFrames);
+            out.writeByte(LEVELS.length);
+            for (int level = 0; level < LEVELS.length; level++) {
+                writeLevel(out, mins[level], maxs[level]);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * PCM을 한 번 순회하면서 모든 해상도의 버킷을 동시에 채운다
+     */
+    private void scan(Path pcm, long totalFrames, short[][] mins, short[][] maxs) throws IOException {
+        // 버킷 경계 계산용 (frame * buckets / totalFrames)
+        long[] nextBoundary = new long[LEVELS.length];
+        int[] bucket = new int[LEVELS.length];
+        for (int level = 0; level < LEVELS.length; level++) {
+            nextBoundary[level] = boundary(1, LEVELS[level], totalFrames);
+            mins[level][0] = Short.MAX_VALUE;
+            maxs[level][0] = Short.MIN_VALUE;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long frame = 0;
+        try (FileChannel channel = FileChannel.open(pcm, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.remaining() >= AudioTranscodeService.PCM_FRAME_BYTES && frame < totalFrames) {
+                    short left = buffer.getShort();
+                    short right = buffer.getShort();
+                    short low = (short) Math.min(left, right);
+                    short high = (short) Math.max(left, right);
+
+                    for (int level = 0; level < LEVELS.length; level++) {
+                        while (frame >= nextBoundary[level]) {
+                            bucket[level]++;
+                            nextBoundary[level] = boundary(bucket[level] + 1, LEVELS[level], totalFrames);
+                            mins[level][bucket[level]] = Short.MAX_VALUE;
+                            maxs[level][bucket[level]] = Short.MIN_VALUE;
+                        }
+                        int b = bucket[level];
+                        if (low < mins[level][b]) {
+                            mins[level][b] = low;
+                        }
+                        if (high > maxs[level][b]) {
+                            maxs[level][b] = high;
+                        }
+                    }
+                    frame++;
+                }
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * n번째 버킷이 시작되는 프레임 (곡이 버킷 수보다 짧으면 빈 버킷이 생긴다)
+     */
+    private long boundary(int n, int buckets, long totalFrames) {
+        return (long) Math.ceil((double) n * totalFrames / buckets);
+    }
+
+    private void writeLevel(DataOutputStream out, short[] mins, short[] maxs) throws IOException {
+        out.writeInt(mins.length);
+        byte[] packed = new byte[mins.length * 2];
+        for (int i = 0; i < mins.length; i++) {
+            // 채워지지 않은 버킷은 무음(0)으로 기록
+            boolean empty = mins[i] > maxs[i];
+            packed[i * 2] = empty ? 0 : (byte) (mins[i] >> 8);
+            packed[i * 2 + 1] = empty ? 0 : (byte) (maxs[i] >> 8);
+        }
+        out.write(packed);
+    }
+}
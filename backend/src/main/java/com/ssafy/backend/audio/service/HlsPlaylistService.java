@@ -0,0 +1,90 @@
+package com.ssafy.backend.audio.service;
+
+import com.ssafy.backend.common.error.exception.InvalidFormattedRequest;
+import com.ssafy.backend.common.error.exception.NotFoundException;
+import com.ssafy.backend.common.error.exception.S3FileException;
+import com.ssafy.backend.common.service.S3Service;
+import com.ssafy.backend.common.util.S3FileKeyExtractor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>HLS 플레이리스트 서비스</pre>
+ * S3의 HLS 변환 결과는 비공개이므로 플레이리스트를 서버에서 내려주며 참조 경로를 바꾼다.
+ * - master: 비트레이트별 플레이리스트 경로를 같은 API의 variant 요청으로 변경
+ * - variant: 세그먼트 경로를 Presigned URL로 변경 (재생 중 만료되지 않도록 음원 URL보다 길게 발급)
+ * 재생 권한 확인은 호출하는 쪽에서 먼저 수행한다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-29
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HlsPlaylistService {
+    public static final String CONTENT_TYPE = "application/vnd.apple.mpegurl";
+    private static final Pattern VARIANT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final S3Service s3Service;
+
+    @Value("${S3_HLS_PRESIGN_EXPIRE_SECONDS:3600}")
+    private long segmentExpireSeconds;
+
+    /**
+     * 플레이리스트 조회
+     *
+     * @param masterUrl  master 플레이리스트 URL (후처리 결과 hlsUrl)
+     * @param variant    비트레이트 폴더명, null이면 master
+     * @param variantUri 비트레이트 폴더명으로 master에 넣을 variant 요청 URI를 만드는 함수
+     * @return 경로를 바꾼 플레이리스트
+     */
+    public String playlist(String masterUrl, String variant, Function<String, String> variantUri) {
+        if (masterUrl == null) {
+            throw new NotFoundException();
+        }
+        String masterKey = S3FileKeyExtractor.extractS3FileKey(masterUrl);
+        String prefix = masterKey.substring(0, masterKey.lastIndexOf('/') + 1);
+        if (variant == null) {
+            return rewrite(read(masterKey), uri -> variantUri.apply(uri.substring(0, Math.max(uri.indexOf('/'), 0))));
+        }
+        if (!VARIANT_NAME.matcher(variant).matches()) {
+            throw new InvalidFormattedRequest();
+        }
+        String variantPrefix = prefix + variant + "/";
+        Duration expiration = Duration.ofSeconds(segmentExpireSeconds);
+        return rewrite(read(variantPrefix + AudioTranscodeService.VARIANT_PLAYLIST),
+                uri -> s3Service.presignGetUrl(variantPrefix + uri, expiration));
+    }
+
+    /**
+     * 태그(#)와 빈 줄은 그대로 두고 URI 줄만 변경
+     */
+    private String rewrite(String playlist, Function<String, String> mapper) {
+        StringBuilder rewritten = new StringBuilder(playlist.length() * 2);
+        for (String line : playlist.split("\r?\n")) {
+            String trimmed = line.trim();
+            rewritten.append(trimmed.isEmpty() || trimmed.startsWith("#") ? line : mapper.apply(trimmed)).append('\n');
+        }
+        return rewritten.toString();
+    }
+
+    private String read(String key) {
+        try (ResponseInputStream<GetObjectResponse> in = s3Service.getFileStream(key, null)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("HLS 플레이리스트 조회 실패: {}, {}", key, e.getMessage());
+            throw new S3FileException();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ssafy.backend.audio.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <pre>파일 + 클라이언트 동시 기록 스트림</pre>
+ * 파일에 기록하면서 클라이언트에도 청크마다 바로 전송한다.
+ * 클라이언트 쓰기가 실패하면 이후로는 파일에만 기록해 결과를 끝까지 만든다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-29
+ */
+@Slf4j
+public class ClientTeeOutputStream extends FilterOutputStream {
+    private final OutputStream client;
+    private boolean clientClosed = false;
+
+    /**
+     * @param file   결과를 보관할 파일 스트림 (닫을 때 함께 닫힘)
+     * @param client 응답 스트림 (닫지 않음)
+     */
+    public ClientTeeOutputStream(OutputStream file, OutputStream client) {
+        super(file);
+        this.client = client;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        if (clientClosed) {
+            return;
+        }
+        try {
+            client.write(b, off, len);
+            client.flush();
+        } catch (IOException e) {
+            clientClosed = true;
+            log.debug("음원 스트리밍 중단: {}", e.getMessage());
+        }
+    }
+}
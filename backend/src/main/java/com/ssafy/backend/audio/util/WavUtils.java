@@ -0,0 +1,51 @@
+package com.ssafy.backend.audio.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <pre>WAV 헤더 유틸</pre>
+ * PCM 데이터 앞에 붙는 44byte RIFF/WAVE 헤더를 만든다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class WavUtils {
+    public static final int HEADER_SIZE = 44;
+    public static final String CONTENT_TYPE = "audio/wav";
+
+    private WavUtils() {
+    }
+
+    /**
+     * PCM WAV 헤더 생성
+     *
+     * @param sampleRate    샘플레이트
+     * @param channels      채널 수
+     * @param bitsPerSample 샘플당 비트 수
+     * @param dataBytes     헤더를 제외한 PCM 데이터 크기
+     * @return 44byte 헤더
+     */
+    public static byte[] header(int sampleRate, int channels, int bitsPerSample, long dataBytes) {
+        if (dataBytes > 0xFFFFFFFFL - (HEADER_SIZE - 8)) {
+            throw new IllegalArgumentException("WAV 파일 최대 크기 초과: " + dataBytes);
+        }
+        int blockAlign = channels * bitsPerSample / 8;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[]{'R', 'I', 'F', 'F'});
+        header.putInt((int) (dataBytes + HEADER_SIZE - 8));
+        header.put(new byte[]{'W', 'A', 'V', 'E'});
+        header.put(new byte[]{'f', 'm', 't', ' '});
+        header.putInt(16);                      // fmt chunk 크기
+        header.putShort((short) 1);             // PCM
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign); // byte rate
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+        header.put(new byte[]{'d', 'a', 't', 'a'});
+        header.putInt((int) dataBytes);
+        return header.array();
+    }
+}
@@ -181,8 +181,12 @@ public class AuthController {
 
     private final DataReconstructor dataReconstructor;
     @GetMapping("/reconstruct")
-    public ApiResponse<?> getReconstruct() {
-        dataReconstructor.reconstruct();
+    public ApiResponse<?> getReconstruct(@RequestParam(value = "incremental", defaultValue = "false") boolean incremental) {
+        if (incremental) {
+            dataReconstructor.reconstructIncremental();
+        } else {
+            dataReconstructor.reconstruct();
+        }
         return new ApiResponse.builder<>()
                 .build();
     }
@@ -0,0 +1,52 @@
+package com.ssafy.backend.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * <pre>비동기 작업 실행기 설정</pre>
+ * 음원 후처리(트랜스코딩 등)는 요청 스레드와 분리된 고정 크기 풀에서 실행한다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-16
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    @Value("${AUDIO_PIPELINE_THREADS:2}")
+    private int audioPipelineThreads;
+
+    /**
+     * 기본 실행기 (MVC 비동기 응답, 스트리밍 등)
+     * 별도 Executor 빈을 등록하면 자동 설정이 빠지므로 직접 등록한다.
+     */
+    @Primary
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * 음원 후처리 실행기
+     * ffmpeg 프로세스가 CPU를 많이 쓰므로 스레드 수를 제한한다.
+     * 대기열이 차면 작업을 거절하고, 해당 음원은 원본으로 재생된다.
+     */
+    @Bean(name = "audioTaskExecutor")
+    public ThreadPoolTaskExecutor audioTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(audioPipelineThreads);
+        executor.setMaxPoolSize(audioPipelineThreads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("audio-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
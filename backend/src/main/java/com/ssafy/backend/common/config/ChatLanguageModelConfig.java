@@ -1,6 +1,7 @@
 package com.ssafy.backend.common.config;
 
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import static dev.langchain4j.model.chat.Capability.RESPONSE_FORMAT_JSON_SCHEMA;
 import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.chat.request.ResponseFormatType;
@@ -9,6 +10,7 @@ import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
 import dev.langchain4j.model.chat.request.json.JsonSchema;
 import dev.langchain4j.model.chat.request.json.JsonStringSchema;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.googleai.GoogleAiGeminiStreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -38,6 +40,16 @@ public class ChatLanguageModelConfig {
                 .temperature(1.0)
                 .build();
     }
+
+    // 응답을 토큰 단위로 받아 바로 파싱할 때 사용 (AI 음원 생성)
+    @Bean
+    public StreamingChatLanguageModel streamingChatLanguageModel() {
+        return GoogleAiGeminiStreamingChatModel.builder()
+                .apiKey(aiKey)
+                .modelName(modelName)
+                .temperature(1.0)
+                .build();
+    }
     // chat gpt
 //    @Bean
 //    public ChatLanguageModel chatLanguageModel() {
@@ -6,18 +6,26 @@ import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 /**
  * <pre>AWS S3 연동</pre>
  *
  * @author 박병주
- * @version 1.0
+ * @version 1.2
  * @since 2025-03-13
+ * @changes 1.0 - 최초 작성
+ *          1.1 - Presigned URL 발급용 S3Presigner 추가
+ *          1.2 - 멀티파트 비동기 업로드용 S3AsyncClient 추가
  */
 
 @Configuration
 public class S3Config {
+    private static final long MULTIPART_THRESHOLD = 8L * 1024 * 1024;
+
     @Value("${AWS_S3_ACCESS}")
     private String accessKey;
     @Value("${AWS_S3_SECRET}")
@@ -31,5 +39,26 @@ public class S3Config {
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
                 .build();
     }
-}
 
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder().region(Region.AP_NORTHEAST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .build();
+    }
+
+    /**
+     * 비동기 클라이언트 (8MB 이상은 멀티파트로 나눠 병렬 업로드)
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.builder().region(Region.AP_NORTHEAST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(MULTIPART_THRESHOLD)
+                        .minimumPartSizeInBytes(MULTIPART_THRESHOLD)
+                        .build())
+                .build();
+    }
+}
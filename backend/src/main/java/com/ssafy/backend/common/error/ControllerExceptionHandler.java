@@ -213,6 +213,13 @@ public class ControllerExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ApiResponse<?> tooManyRequestsHandler(TooManyRequestsException e) {
+        return new ApiResponse.builder<Object>()
+                .errorStatus(ResponseType.TOO_MANY_REQUESTS)
+                .build();
+    }
+
     @ExceptionHandler(InvalidFormattedRequest.class)
     public ApiResponse<?> invalidFormattedRequestHandler(InvalidFormattedRequest e) {
         return new ApiResponse.builder<Object>()
@@ -50,6 +50,9 @@ public enum ResponseType {
     DUPLICATE_EMAIL("DEM", HttpStatus.CONFLICT, "이미 사용 중인 이메일입니다."),
     DUPLICATE_TRACK("DT", HttpStatus.CONFLICT, "이미 존재하는 트랙입니다."),
 
+    // HTTP Status 429
+    TOO_MANY_REQUESTS("TMR", HttpStatus.TOO_MANY_REQUESTS, "요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요."),
+
     // HTTP Status 500
     DATABASE_ERROR("DBE", HttpStatus.INTERNAL_SERVER_ERROR, "데이터베이스 오류입니다."),
     SERVER_ERROR("SER", HttpStatus.INTERNAL_SERVER_ERROR, "서버 내부 오류입니다."),
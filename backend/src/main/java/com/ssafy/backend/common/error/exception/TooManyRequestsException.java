@@ -0,0 +1,15 @@
+package com.ssafy.backend.common.error.exception;
+
+/**
+ * <pre>TooManyRequestsException</pre>
+ * 처리 대기열 초과 에러
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-21
+ */
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException() {
+        super();
+    }
+}
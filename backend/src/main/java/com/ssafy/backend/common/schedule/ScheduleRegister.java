@@ -13,10 +13,10 @@ public class ScheduleRegister {
     private final DataReconstructor dataReconstructor;
     private final RankingService rankingService;
 
-//    @Scheduled(cron = "0 0 0 * * *")
-//    @Scheduled(cron = "0 0 12 * * *")
+    // 변경된 트랙의 유사도 관계만 다시 계산 (전체 재구성은 /reconstruct 요청으로)
+    @Scheduled(cron = "${GRAPH_SIMILARITY_CRON:0 0 4 * * *}")
     public void relationshipReconstruction() {
-        dataReconstructor.reconstruct();
+        dataReconstructor.reconstructIncremental();
     }
 
     @Scheduled(cron = "0 0 0 * * *")
@@ -0,0 +1,337 @@
+package com.ssafy.backend.common.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>S3 음원 로컬 디스크 캐시</pre>
+ * 자주 재생되는 음원을 노드 로컬 디스크에 보관해 S3 재요청을 줄인다.
+ * - 전체 용량 제한 LRU, 두 번째 요청부터 캐시에 적재 (1회성 요청은 적재하지 않음)
+ * - 임시 파일에 받은 뒤 rename으로 원자적으로 적재
+ * - 같은 키의 동시 미스는 하나의 S3 다운로드로 합친다
+ * 서버에서 만든 파일(믹스다운 결과, 디코딩된 PCM 등)도 같은 용량 제한 안에서 보관한다.
+ * 적재할 때마다 새 파일명을 써서, 제거된 항목의 파일을 지울 때 같은 키로 새로 적재된 파일을 건드리지 않는다.
+ *
+ * @author 박병주
+ * @version 1.2
+ * @since 2025-04-15
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 서버에서 만든 파일 등록 (peek, put) 추가
+ *          1.2 - 적재마다 고유 파일명 사용 (제거와 재적재 경합 수정)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioCacheService {
+    private static final String TEMP_SUFFIX = ".part";
+    private static final int DOORKEEPER_LIMIT = 10_000;
+
+    private final S3Service s3Service;
+
+    @Value("${AUDIO_CACHE_DIR:${java.io.tmpdir}/whistlehub-audio-cache}")
+    private String cacheDirPath;
+    @Value("${AUDIO_CACHE_MAX_BYTES:2147483648}")
+    private long maxBytes;
+    @Value("${AUDIO_CACHE_FILL_THREADS:4}")
+    private int fillThreads;
+
+    private Path cacheDir;
+    private long maxEntryBytes;
+    private long currentBytes = 0;
+    private ExecutorService fillExecutor;
+
+    // accessOrder = true -> 가장 오래 사용되지 않은 항목이 맨 앞
+    private final LinkedHashMap<String, CachedAudio> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<CachedAudio>> inflight = new ConcurrentHashMap<>();
+    // 한 번 요청된 키 (두 번째 미스부터 캐시에 적재)
+    private final Set<String> doorkeeper = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    // 적재 순번 (같은 키라도 적재마다 다른 파일명)
+    private final AtomicLong fillSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(cacheDirPath);
+        // 재시작 시 메타데이터(ETag 등)가 없으므로 기존 캐시는 비운다
+        FileSystemUtils.deleteRecursively(cacheDir);
+        Files.createDirectories(cacheDir);
+        maxEntryBytes = maxBytes / 4;
+        fillExecutor = new ThreadPoolExecutor(fillThreads, fillThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(256), new ThreadPoolExecutor.AbortPolicy());
+        log.info("음원 캐시 경로: {}, 최대 용량: {} bytes", cacheDir, maxBytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fillExecutor.shutdownNow();
+    }
+
+    /**
+     * 캐시 조회
+     * 미스가 반복되는 키는 백그라운드에서 캐시에 적재한다.
+     *
+     * @param key S3 파일 키
+     * @return 캐시된 음원, 없으면 empty
+     */
+    public Optional<CachedAudio> get(String key) {
+        CachedAudio cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null && Files.exists(cached.getPath())) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        if (!doorkeeper.add(key)) {
+            load(key);
+        } else if (doorkeeper.size() > DOORKEEPER_LIMIT) {
+            doorkeeper.clear();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 서버에서 만든 항목 조회 (S3 적재를 시도하지 않음)
+     *
+     * @param key 캐시 키
+     * @return 캐시된 파일, 없으면 empty
+     */
+    public Optional<CachedAudio> peek(String key) {
+        CachedAudio cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null && Files.exists(cached.getPath())) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * 캐시 폴더 안에 임시 파일 생성
+     * {@link #put}에서 rename으로 옮길 수 있도록 같은 파일 시스템에 만든다.
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(cacheDir, "local-", TEMP_SUFFIX);
+    }
+
+    /**
+     * 서버에서 만든 파일을 캐시에 등록
+     *
+     * @param key         캐시 키
+     * @param file        {@link #createTempFile}로 만든 파일 (캐시 폴더로 이동됨)
+     * @param contentType 응답 Content-Type
+     * @return 등록된 항목 (ETag는 캐시 키의 해시)
+     */
+    public CachedAudio put(String key, Path file, String contentType) throws IOException {
+        Path target = entryPath(key);
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        CachedAudio cached = new CachedAudio(target, Files.size(target), "\"" + fileName(key) + "\"", contentType, Instant.now());
+        admit(key, cached);
+        return cached;
+    }
+
+    /**
+     * 캐시 적재 (없으면 S3에서 받아옴)
+     * 같은 키에 대한 동시 요청은 하나의 다운로드를 공유한다.
+     *
+     * @param key S3 파일 키
+     * @return 적재된 음원, 크기 제한을 넘으면 null로 완료
+     */
+    public CompletableFuture<CachedAudio> load(String key) {
+        synchronized (this) {
+            CachedAudio cached = entries.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<CachedAudio> created = new CompletableFuture<>();
+        CompletableFuture<CachedAudio> existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    created.complete(fill(key));
+                } catch (Exception e) {
+                    log.warn("음원 캐시 적재 실패: {}, {}", key, e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    inflight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("캐시 적재 대기열 초과: {}", key);
+            inflight.remove(key, created);
+            created.complete(null);
+        }
+        return created;
+    }
+
+    /**
+     * 캐시에서 제거
+     *
+     * @param key S3 파일 키
+     */
+    public void remove(String key) {
+        CachedAudio removed;
+        synchronized (this) {
+            removed = entries.remove(key);
+            if (removed != null) {
+                currentBytes -= removed.getSize();
+            }
+        }
+        if (removed != null) {
+            deleteQuietly(removed.getPath());
+        }
+    }
+
+    /**
+     * 캐시 통계
+     */
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), currentBytes, maxBytes);
+        }
+    }
+
+    /**
+     * S3에서 임시 파일로 받은 뒤 rename으로 캐시에 적재
+     */
+    private CachedAudio fill(String key) {
+        Path target = entryPath(key);
+        Path temp = cacheDir.resolve(target.getFileName() + TEMP_SUFFIX);
+        try (ResponseInputStream<GetObjectResponse> in = s3Service.getFileStream(key, null)) {
+            GetObjectResponse object = in.response();
+            if (object.contentLength() > maxEntryBytes) {
+                in.abort();
+                log.debug("캐시 최대 항목 크기 초과로 적재하지 않음: {} ({} bytes)", key, object.contentLength());
+                return null;
+            }
+            Files.copy(in, temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+            CachedAudio cached = new CachedAudio(target, object.contentLength(), object.eTag(),
+                    object.contentType(), object.lastModified());
+            admit(key, cached);
+            return cached;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 캐시 등록 후 용량을 넘으면 가장 오래 사용되지 않은 항목부터 제거
+     * 제거된 항목의 파일은 그 적재에서만 쓰는 경로이므로 잠금 밖에서 지워도 새 적재와 겹치지 않는다.
+     */
+    private void admit(String key, CachedAudio cached) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            CachedAudio previous = entries.put(key, cached);
+            if (previous != null) {
+                currentBytes -= previous.getSize();
+                evicted.add(previous.getPath());
+            }
+            currentBytes += cached.getSize();
+
+            Iterator<Map.Entry<String, CachedAudio>> iterator = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, CachedAudio> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                currentBytes -= eldest.getValue().getSize();
+                evicted.add(eldest.getValue().getPath());
+                evictions.incrementAndGet();
+            }
+        }
+        // 재생 중인 파일은 이미 열린 채널로 끝까지 읽을 수 있다
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * 이번 적재에서만 쓰는 캐시 파일 경로 (키 해시 + 적재 순번)
+     */
+    private Path entryPath(String key) {
+        return cacheDir.resolve(fileName(key) + "-" + fillSequence.incrementAndGet());
+    }
+
+    /**
+     * S3 키를 파일명으로 변환 (폴더 구분자 등 특수 문자 회피)
+     */
+    private String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("캐시 파일 삭제 실패: {}", path);
+        }
+    }
+
+    /**
+     * 캐시된 음원 파일과 S3 메타데이터
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedAudio {
+        private Path path;
+        private long size;
+        private String eTag;
+        private String contentType;
+        private Instant lastModified;
+    }
+
+    /**
+     * 캐시 적중/미스/제거 카운터
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CacheStats {
+        private long hits;
+        private long misses;
+        private long evictions;
+        private int entryCount;
+        private long usedBytes;
+        private long maxBytes;
+    }
+}
@@ -0,0 +1,317 @@
+package com.ssafy.backend.common.service;
+
+import com.ssafy.backend.audio.service.AudioEncodeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>음원 스트리밍 서비스</pre>
+ * S3 객체를 메모리에 적재하지 않고 응답 스트림으로 바로 전달한다.
+ * Range / If-Range 헤더를 해석해 206 Partial Content 응답을 만든다.
+ * 로컬 캐시에 있는 음원은 S3를 거치지 않고 파일 채널에서 바로 전송한다.
+ * 파형 등 음원에서 파생된 작은 데이터는 장기 캐시 헤더와 함께 전달한다.
+ *
+ * @author 박병주
+ * @version 1.2
+ * @since 2025-04-14
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioStreamService {
+    private static final String DEFAULT_CONTENT_TYPE = "audio/wav";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 파생 데이터는 업로드마다 새 키로 저장되므로 내용이 바뀌지 않는다
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+    private final S3Service s3Service;
+    private final AudioCacheService audioCacheService;
+
+    /**
+     * S3 음원 스트리밍 응답 생성
+     *
+     * @param key            S3 파일 키 (폴더/파일명)
+     * @param requestHeaders 요청 헤더 (Range, If-Range)
+     * @return 200 전체 응답 또는 206 부분 응답
+     */
+    public ResponseEntity<StreamingResponseBody> stream(String key, HttpHeaders requestHeaders) {
+        Optional<AudioCacheService.CachedAudio> cached = audioCacheService.get(key);
+        if (cached.isPresent()) {
+            try {
+                return streamCached(cached.get(), requestHeaders);
+            } catch (IOException e) {
+                // 캐시 파일이 제거된 경우 S3에서 다시 받는다
+                log.debug("캐시 파일 열기 실패, S3로 대체: {}", e.getMessage());
+                audioCacheService.remove(key);
+            }
+        }
+
+        HttpRange range = resolveRange(requestHeaders);
+        if (range == null) {
+            return full(key);
+        }
+
+        ResponseInputStream<GetObjectResponse> s3Stream;
+        try {
+            s3Stream = s3Service.getFileStream(key, "bytes=" + range);
+        } catch (AwsServiceException e) {
+            if (e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                return notSatisfiable(key);
+            }
+            throw e;
+        }
+
+        GetObjectResponse object = s3Stream.response();
+        // If-Range 검증값이 현재 객체와 다르면 Range를 무시하고 전체 파일을 보낸다
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !matchesValidator(ifRange, object.eTag(), object.lastModified())) {
+            s3Stream.abort();
+            return full(key);
+        }
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(commonHeaders(object.contentType(), object.eTag(), object.lastModified()))
+                .header(HttpHeaders.CONTENT_RANGE, object.contentRange())
+                .contentLength(object.contentLength())
+                .body(body(s3Stream));
+    }
+
+    /**
+     * 변경되지 않는 파생 데이터(파형 등) 응답
+     * S3 키가 곧 버전이므로 키로 ETag를 만들고, 일치하면 S3 조회 없이 304로 응답한다.
+     *
+     * @param key            S3 파일 키
+     * @param contentType    응답 Content-Type
+     * @param requestHeaders 요청 헤더 (If-None-Match)
+     * @return 200 또는 304 응답
+     */
+    public ResponseEntity<byte[]> immutable(String key, String contentType, HttpHeaders requestHeaders) {
+        String eTag = "\"" + StringUtils.stripFilenameExtension(StringUtils.getFilename(key)) + "\"";
+        if (requestHeaders.getIfNoneMatch().contains(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(IMMUTABLE)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .eTag(eTag)
+                .cacheControl(IMMUTABLE)
+                .body(s3Service.downloadFile(key));
+    }
+
+    /**
+     * 서버에서 만든 로컬 파일(믹스다운 결과 등) 스트리밍 응답
+     *
+     * @param cached         캐시 항목
+     * @param requestHeaders 요청 헤더 (Range, If-Range)
+     * @return 200 전체 응답 또는 206 부분 응답
+     */
+    public ResponseEntity<StreamingResponseBody> stream(AudioCacheService.CachedAudio cached, HttpHeaders requestHeaders) {
+        try {
+            return streamCached(cached, requestHeaders);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 캐시된 로컬 파일 응답
+     * 파일 채널을 먼저 열어두므로 응답 중 캐시에서 제거되어도 끝까지 전송된다.
+     */
+    private ResponseEntity<StreamingResponseBody> streamCached(AudioCacheService.CachedAudio cached,
+                                                               HttpHeaders requestHeaders) throws IOException {
+        long length = cached.getSize();
+        HttpHeaders headers = commonHeaders(cached.getContentType(), cached.getETag(), cached.getLastModified());
+
+        HttpRange range = resolveRange(requestHeaders);
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (range != null && ifRange != null && !matchesValidator(ifRange, cached.getETag(), cached.getLastModified())) {
+            range = null;
+        }
+        if (range == null) {
+            FileChannel channel = FileChannel.open(cached.getPath(), StandardOpenOption.READ);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentLength(length)
+                    .body(body(channel, 0, length));
+        }
+
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .build();
+        }
+        FileChannel channel = FileChannel.open(cached.getPath(), StandardOpenOption.READ);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length)
+                .contentLength(end - start + 1)
+                .body(body(channel, start, end - start + 1));
+    }
+
+    /**
+     * 전체 파일 응답
+     */
+    private ResponseEntity<StreamingResponseBody> full(String key) {
+        ResponseInputStream<GetObjectResponse> s3Stream = s3Service.getFileStream(key, null);
+        GetObjectResponse object = s3Stream.response();
+        return ResponseEntity.ok()
+                .headers(commonHeaders(object.contentType(), object.eTag(), object.lastModified()))
+                .contentLength(object.contentLength())
+                .body(body(s3Stream));
+    }
+
+    /**
+     * 파일 크기를 벗어난 Range 요청 응답 (416)
+     */
+    private ResponseEntity<StreamingResponseBody> notSatisfiable(String key) {
+        HeadObjectResponse head = s3Service.headFile(key);
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + head.contentLength())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .build();
+    }
+
+    /**
+     * Range 헤더 해석
+     * 다중 Range는 지원하지 않으므로 무시하고 전체 파일을 보낸다 (RFC 9110 허용)
+     *
+     * @return 단일 Range, 없거나 해석할 수 없으면 null
+     */
+    private HttpRange resolveRange(HttpHeaders requestHeaders) {
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            log.debug("잘못된 Range 헤더 무시: {}", requestHeaders.getFirst(HttpHeaders.RANGE));
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        return ranges.get(0);
+    }
+
+    /**
+     * If-Range 검증 (ETag 강한 비교 또는 Last-Modified 일치)
+     */
+    private boolean matchesValidator(String ifRange, String eTag, Instant lastModified) {
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        if (lastModified == null) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return since.getEpochSecond() == lastModified.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private HttpHeaders commonHeaders(String contentType, String eTag, Instant lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType != null ? contentType : DEFAULT_CONTENT_TYPE));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName(contentType) + "\"");
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        return headers;
+    }
+
+    /**
+     * 다운로드 파일 이름 (Content-Type에 맞춰 확장자를 정한다)
+     */
+    private String fileName(String contentType) {
+        if ("application/zip".equals(contentType)) {
+            return "audio.zip";
+        }
+        AudioEncodeService.Format format = AudioEncodeService.Format.fromContentType(contentType);
+        return "audio." + (format != null ? format.getExtension() : AudioEncodeService.Format.WAV.getExtension());
+    }
+
+    /**
+     * 로컬 파일 구간을 응답 스트림으로 전송 (transferTo로 사용자 영역 복사 최소화)
+     */
+    private StreamingResponseBody body(FileChannel channel, long position, long count) {
+        return outputStream -> {
+            try (FileChannel in = channel) {
+                WritableByteChannel out = Channels.newChannel(outputStream);
+                long sent = 0;
+                while (sent < count) {
+                    long transferred = in.transferTo(position + sent, count - sent, out);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    sent += transferred;
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                log.debug("캐시 음원 스트리밍 중단: {}", e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * S3 스트림을 응답 스트림으로 바로 복사
+     */
+    private StreamingResponseBody body(ResponseInputStream<GetObjectResponse> s3Stream) {
+        return outputStream -> {
+            try (InputStream in = s3Stream) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                // 탐색(seek) 등으로 클라이언트가 연결을 끊은 경우
+                s3Stream.abort();
+                log.debug("음원 스트리밍 중단: {}", e.getMessage());
+            }
+        };
+    }
+}
@@ -12,8 +12,10 @@ import java.util.Set;
  * 추후, List, Set, Hash, ZSet 등의 다양한 데이터 타입을 저장할 수 있도록 확장 가능.
  *
  * @author 허현준
- * @version 1.0
+ * @version 1.1
  * @since 2025-03-26
+ * @changes 1.0 - 최초 작성
+ *          1.1 - List 연산, 카운터, Sorted Set 삭제 / 크기 조회 추가
  */
 
 @Service
@@ -138,4 +140,81 @@ public class RedisService {
     public Set<Object> getRangeSortedSet(String key, long start, long end) {
         return redisTemplate.opsForZSet().range(key, start, end);
     }
+
+    /**
+     * Sorted Set에서 데이터 삭제
+     *
+     * @param key    키
+     * @param values 삭제할 값 목록
+     */
+    public void removeSortedSet(String key, Object... values) {
+        redisTemplate.opsForZSet().remove(key, values);
+    }
+
+    /**
+     * Sorted Set 크기 조회
+     *
+     * @param key 키
+     * @return 저장된 값 개수
+     */
+    public long getSortedSetSize(String key) {
+        Long size = redisTemplate.opsForZSet().zCard(key);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * List 끝에 데이터 추가
+     *
+     * @param key   키
+     * @param value 값
+     * @return 추가 후 List 크기
+     */
+    public long rightPush(String key, Object value) {
+        Long size = redisTemplate.opsForList().rightPush(key, value);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * List에서 인덱스로 데이터 조회
+     *
+     * @param key   키
+     * @param index 인덱스
+     * @return 조회된 값, 없으면 null
+     */
+    public Object getListIndex(String key, long index) {
+        return redisTemplate.opsForList().index(key, index);
+    }
+
+    /**
+     * List 크기 조회
+     *
+     * @param key 키
+     * @return List 크기
+     */
+    public long getListSize(String key) {
+        Long size = redisTemplate.opsForList().size(key);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * List를 지정한 범위만 남기고 삭제
+     *
+     * @param key   키
+     * @param start 시작 인덱스
+     * @param end   종료 인덱스
+     */
+    public void trimList(String key, long start, long end) {
+        redisTemplate.opsForList().trim(key, start, end);
+    }
+
+    /**
+     * 카운터 1 증가
+     *
+     * @param key 키
+     * @return 증가된 값
+     */
+    public long increment(String key) {
+        Long value = redisTemplate.opsForValue().increment(key);
+        return value != null ? value : 0;
+    }
 }
@@ -1,8 +1,14 @@
 package com.ssafy.backend.common.service;
 
 import com.ssafy.backend.common.error.exception.FileUploadFailedException;
+import com.ssafy.backend.common.error.exception.NotFoundException;
+import com.ssafy.backend.common.error.exception.S3FileException;
 import com.ssafy.backend.common.error.exception.UnreadableFileException;
+import com.ssafy.backend.common.util.S3FileKeyExtractor;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,12 +18,30 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
 
 
 /**
@@ -25,11 +49,19 @@ import java.util.UUID;
  *
  * @author 박병주
  * @author 허현준
- * @version 1.2
+ * @version 1.10
  * @since 2025-03-13
  * @changes 1.0 - 최초 작성
  *          1.1 - 파일 업로드 예외 처리 추가
  *          1.2 - 파일 크기 제한, 확장자 제한 추가
+ *          1.3 - 범위 지정 스트림 조회, 메타데이터 조회 추가
+ *          1.4 - Presigned GET URL 발급 추가
+ *          1.5 - 로컬 파일 업로드 추가 (음원 후처리 결과물)
+ *          1.6 - 로컬 파일로 다운로드 추가
+ *          1.7 - 비동기(멀티파트) 업로드 추가, 파일 삭제 키 추출 수정
+ *          1.8 - 내용 기반(SHA-256) 키 업로드 추가
+ *          1.9 - 이미지 외 업로드는 비공개로 변경
+ *          1.10 - 내용 기반 업로드에 CRC32 메타데이터 기록, CRC32 조회 추가
  */
 
 @Service
@@ -37,16 +69,33 @@ import java.util.UUID;
 @Slf4j
 public class S3Service {
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final S3AsyncClient s3AsyncClient;
+    // 비동기 업로드 시 MultipartFile 스트림을 읽는 스레드 (동시 업로드 수 제한)
+    private ExecutorService uploadExecutor;
+    @Value("${S3_UPLOAD_THREADS:8}")
+    private int uploadThreads;
     @Value("${AWS_S3_BUCKET}")
     private String bucketName;
     private String filePrefix;
 
     public static String IMAGE = "image";
     public static String MUSIC = "music";
+    public static String HLS = "hls";
+    public static String WAVEFORM = "waveform";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    // 업로드할 때 계산한 CRC32 (ZIP STORED 항목을 내려받지 않고 바로 쓰기 위함)
+    private static final String CRC32_METADATA = "crc32";
 
     @PostConstruct
     public void init() {
         filePrefix = "https://" + bucketName + ".s3.ap-northeast-2.amazonaws.com/";
+        uploadExecutor = Executors.newFixedThreadPool(uploadThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
     }
 
 
@@ -58,9 +107,184 @@ public class S3Service {
      * @return 업로드 경로 문자열
      */
     public String uploadFile(MultipartFile file, String folder) {
-        String filenameExtension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+        String fileName = createFileKey(file, folder);
+        PutObjectRequest putObjectRequest = putRequest(fileName, file.getContentType(), folder, null);
+
+        try (InputStream inputStream = file.getInputStream()) {
+            PutObjectResponse response = s3Client.putObject(putObjectRequest,
+                    software.amazon.awssdk.core.sync.RequestBody.fromInputStream(inputStream, file.getSize()));
+
+            if (response.sdkHttpResponse().isSuccessful()) {
+                return filePrefix + fileName;
+            } else {
+                throw new FileUploadFailedException();
+            }
+        } catch (IOException e) {
+            throw new UnreadableFileException();
+        }
+    }
+
+    /**
+     * S3 파일 비동기 업로드
+     * 큰 파일은 멀티파트로 나눠 병렬 전송한다. 확장자 검사는 호출 즉시 수행한다.
+     *
+     * @param file   업로드 할 파일
+     * @param folder 업로드할 폴더
+     * @return 업로드 경로 문자열 (실패 시 FileUploadFailedException / UnreadableFileException으로 완료)
+     */
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder) {
+        return putAsync(file, createFileKey(file, folder), folder, null);
+    }
+
+    /**
+     * 내용 기반(SHA-256) 키로 S3 비동기 업로드
+     * 같은 내용의 파일은 같은 키(폴더/해시.확장자)를 가지므로, 이미 있으면 업로드를 생략한다.
+     * 해시를 구하는 김에 CRC32도 계산해 객체 메타데이터로 기록한다.
+     *
+     * @param file   업로드 할 파일
+     * @param folder 업로드할 폴더
+     * @return 업로드 경로, 내용 해시, 새로 업로드했는지 여부
+     */
+    public CompletableFuture<StoredFile> uploadContentAddressedAsync(MultipartFile file, String folder) {
+        String filenameExtension = validateExtension(file, folder);
+        return CompletableFuture.supplyAsync(() -> digest(file), uploadExecutor)
+                .thenCompose(digest -> {
+                    String hash = digest.getSha256();
+                    String key = folder + "/" + hash + "." + filenameExtension;
+                    if (exists(key)) {
+                        log.info("동일한 파일이 이미 있어 업로드 생략: {}", key);
+                        return CompletableFuture.completedFuture(new StoredFile(filePrefix + key, hash, false));
+                    }
+                    return putAsync(file, key, folder, digest.getCrc32()).thenApply(url -> new StoredFile(url, hash, true));
+                });
+    }
+
+    /**
+     * 파일 내용 SHA-256
+     *
+     * @param file 업로드 파일
+     * @return 16진수 해시 문자열
+     */
+    public String sha256(MultipartFile file) {
+        return digest(file).getSha256();
+    }
+
+    /**
+     * 파일 내용 SHA-256, CRC32 (파일 스트림을 한 번 읽으며 함께 계산)
+     */
+    private ContentDigest digest(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                crc.update(buffer, 0, read);
+            }
+            return new ContentDigest(HexFormat.of().formatHex(digest.digest()), crc.getValue());
+        } catch (IOException e) {
+            throw new UnreadableFileException();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * S3 파일 존재 여부
+     *
+     * @param key 파일 키 폴더/파일명
+     */
+    public boolean exists(String key) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (AwsServiceException e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            log.error("S3 파일 존재 여부 확인 실패: {}, {}", key, e.getMessage());
+            throw new S3FileException();
+        }
+    }
+
+    private CompletableFuture<String> putAsync(MultipartFile file, String fileName, String folder, Long crc32) {
+        PutObjectRequest putObjectRequest = putRequest(fileName, file.getContentType(), folder, crc32);
+
+        InputStream inputStream;
+        try {
+            inputStream = file.getInputStream();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UnreadableFileException());
+        }
+        return s3AsyncClient.putObject(putObjectRequest,
+                        AsyncRequestBody.fromInputStream(inputStream, file.getSize(), uploadExecutor))
+                .handle((response, throwable) -> {
+                    try {
+                        inputStream.close();
+                    } catch (IOException e) {
+                        log.debug("업로드 스트림 닫기 실패: {}", e.getMessage());
+                    }
+                    if (throwable != null || !response.sdkHttpResponse().isSuccessful()) {
+                        log.error("S3 비동기 업로드 실패: {}, {}", fileName, throwable != null ? throwable.getMessage() : response.sdkHttpResponse().statusCode());
+                        throw new FileUploadFailedException();
+                    }
+                    return filePrefix + fileName;
+                });
+    }
+
+    /**
+     * 업로드 요청 생성
+     * 이미지는 클라이언트가 URL로 바로 불러오므로 공개로 올린다.
+     * 음원은 비공개로 올리고 재생 권한을 확인한 뒤 스트리밍 / Presigned URL로만 내려준다.
+     *
+     * @param key         S3 파일 키 폴더/파일명
+     * @param contentType 파일 Content-Type
+     * @param folder      업로드할 폴더
+     * @param crc32       파일 내용 CRC32, null이면 기록하지 않음
+     */
+    private PutObjectRequest putRequest(String key, String contentType, String folder, Long crc32) {
+        PutObjectRequest.Builder builder = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType);
+        if (folder.equals(IMAGE)) {
+            builder.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+        if (crc32 != null) {
+            builder.metadata(Map.of(CRC32_METADATA, Long.toHexString(crc32)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 업로드 파일 검사 후 S3 키 생성
+     *
+     * @param file   업로드 할 파일
+     * @param folder 업로드할 폴더
+     * @return 폴더/UUID+시간값.확장자
+     */
+    private String createFileKey(MultipartFile file, String folder) {
+        String filenameExtension = validateExtension(file, folder);
         String uuid = UUID.randomUUID().toString();
 
+        // UUID + 시간값 + .확장자
+        return folder + "/" + uuid + System.currentTimeMillis() + "." + filenameExtension;
+    }
+
+    /**
+     * 업로드 파일 확장자 검사
+     *
+     * @return 파일 확장자
+     */
+    private String validateExtension(MultipartFile file, String folder) {
+        String filenameExtension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+
         // 파일 입력을 보고 잘못됨 -> BADREQUEST
 
         // 파일 확장자 제한
@@ -72,31 +296,38 @@ public class S3Service {
             log.warn("잘못된 이미지 확장자: {}", filenameExtension);
             throw new UnreadableFileException();
         }
-        if(folder.equals(MUSIC) && !filenameExtension.matches("mp3|wav|ogg")) { // 음악 확장자
+        if(folder.equals(MUSIC) && !filenameExtension.matches("mp3|wav|ogg|opus|flac")) { // 음악 확장자
             log.warn("잘못된 음악 확장자: {}", filenameExtension);
             throw new UnreadableFileException();
         }
+        return filenameExtension;
+    }
 
-        // UUID + 시간값 + .확장자
-        String fileName = folder + "/" + uuid + System.currentTimeMillis() + "." + filenameExtension;
+    /**
+     * 로컬 파일을 지정한 키로 S3에 업로드
+     * 서버에서 생성한 파일(트랜스코딩 결과 등)을 올릴 때 사용한다. (비공개, 음원 파생 파일)
+     *
+     * @param file        업로드할 로컬 파일
+     * @param key         S3 파일 키 폴더/파일명
+     * @param contentType 파일 Content-Type
+     * @return 업로드 경로 문자열
+     */
+    public String uploadLocalFile(Path file, String key, String contentType) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
-                .key(fileName)
-                .contentType(file.getContentType())
-                .acl(ObjectCannedACL.PUBLIC_READ)
+                .key(key)
+                .contentType(contentType)
                 .build();
-
-        try (InputStream inputStream = file.getInputStream()) {
+        try {
             PutObjectResponse response = s3Client.putObject(putObjectRequest,
-                    software.amazon.awssdk.core.sync.RequestBody.fromInputStream(inputStream, file.getSize()));
-
+                    software.amazon.awssdk.core.sync.RequestBody.fromFile(file));
             if (response.sdkHttpResponse().isSuccessful()) {
-                return filePrefix + fileName;
-            } else {
-                throw new FileUploadFailedException();
+                return filePrefix + key;
             }
-        } catch (IOException e) {
-            throw new UnreadableFileException();
+            throw new FileUploadFailedException();
+        } catch (AwsServiceException e) {
+            log.error("S3 파일 업로드 실패: {}, {}", key, e.getMessage());
+            throw new FileUploadFailedException();
         }
     }
 
@@ -106,8 +337,8 @@ public class S3Service {
      * @param fileUrl 삭제할 파일 Url
      */
     public void deleteFile(String fileUrl) {
-        // S3에서의 파일 경로 추출 (filePrefix 이후의 경로만 사용)
-        String fileKey = fileUrl.split("/")[3];
+        // S3에서의 파일 경로 추출 (filePrefix 이후의 폴더/파일명)
+        String fileKey = fileUrl.startsWith(filePrefix) ? fileUrl.substring(filePrefix.length()) : S3FileKeyExtractor.extractS3FileKey(fileUrl);
 
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(bucketName)
@@ -164,6 +395,145 @@ public class S3Service {
 //        ByteArrayResource resource = new ByteArrayResource(file);
     }
 
+    /**
+     * <pre>S3 파일 스트림 조회</pre>
+     * 파일을 메모리에 올리지 않고 S3 응답 스트림을 그대로 반환한다.
+     * 호출한 쪽에서 반드시 스트림을 닫아야 한다.
+     *
+     * @param key   파일 다운로드 키 폴더/파일명
+     * @param range HTTP Range 값 (예: bytes=0-1023), null이면 전체 파일
+     * @return S3 응답 스트림 (메타데이터 포함)
+     */
+    public ResponseInputStream<GetObjectResponse> getFileStream(String key, String range) {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range(range)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            log.warn("S3 파일 없음: {}", key);
+            throw new NotFoundException();
+        } catch (AwsServiceException e) {
+            if (e.statusCode() == 416) {
+                // 파일 크기를 벗어난 Range 요청은 호출한 쪽에서 416으로 응답한다
+                throw e;
+            }
+            log.error("S3 파일 스트림 조회 실패: {}, {}", key, e.getMessage());
+            throw new S3FileException();
+        }
+    }
 
-}
+    /**
+     * <pre>S3 파일을 로컬 파일로 다운로드</pre>
+     * 메모리에 올리지 않고 스트림을 그대로 파일에 기록한다.
+     *
+     * @param key    파일 키 폴더/파일명
+     * @param target 저장할 파일 (없어야 함)
+     * @return 저장된 파일 경로
+     */
+    public Path downloadToFile(String key, Path target) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> in = getFileStream(key, null)) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    /**
+     * <pre>S3 파일 메타데이터 조회</pre>
+     *
+     * @param key 파일 키 폴더/파일명
+     * @return 파일 크기, ETag 등 메타데이터
+     */
+    public HeadObjectResponse headFile(String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            log.warn("S3 파일 없음: {}", key);
+            throw new NotFoundException();
+        } catch (AwsServiceException e) {
+            if (e.statusCode() == 404) {
+                log.warn("S3 파일 없음: {}", key);
+                throw new NotFoundException();
+            }
+            log.error("S3 파일 메타데이터 조회 실패: {}, {}", key, e.getMessage());
+            throw new S3FileException();
+        }
+    }
+
+    /**
+     * <pre>S3 파일 내용 CRC32 조회</pre>
+     * 업로드할 때 기록한 메타데이터를 먼저 보고, 없으면 S3 전체 객체 체크섬을 사용한다.
+     * 멀티파트 업로드의 파트 단위 체크섬(값-파트 수)은 파일 전체 CRC가 아니므로 쓰지 않는다.
+     *
+     * @param head {@link #headFile} 결과
+     * @return CRC32, 알 수 없으면 null
+     */
+    public Long crc32(HeadObjectResponse head) {
+        String recorded = head.metadata().get(CRC32_METADATA);
+        if (recorded != null) {
+            try {
+                return Long.parseLong(recorded, 16);
+            } catch (NumberFormatException e) {
+                log.warn("잘못된 CRC32 메타데이터: {}", recorded);
+            }
+        }
+        String checksum = head.checksumCRC32();
+        if (checksum == null || checksum.contains("-")) {
+            return null;
+        }
+        byte[] bytes = Base64.getDecoder().decode(checksum);
+        return bytes.length == 4 ? Integer.toUnsignedLong(ByteBuffer.wrap(bytes).getInt()) : null;
+    }
 
+    /**
+     * <pre>S3 Presigned GET URL 발급</pre>
+     * 서명만 로컬에서 계산하므로 S3 요청이 발생하지 않는다.
+     * 권한 검사는 호출하는 쪽에서 먼저 수행해야 한다.
+     *
+     * @param key        파일 키 폴더/파일명
+     * @param expiration URL 유효 시간
+     * @return 만료 시간이 포함된 서명 URL
+     */
+    public String presignGetUrl(String key, Duration expiration) {
+        try {
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                    .signatureDuration(expiration)
+                    .getObjectRequest(GetObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .build())
+                    .build();
+            return s3Presigner.presignGetObject(presignRequest).url().toString();
+        } catch (SdkException e) {
+            log.error("Presigned URL 발급 실패: {}, {}", key, e.getMessage());
+            throw new S3FileException();
+        }
+    }
+
+    /**
+     * 내용 기반 업로드 결과
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StoredFile {
+        private String url;
+        private String contentHash;
+        // false면 기존 객체를 재사용 (업로드 취소 시 삭제하면 안 됨)
+        private boolean created;
+    }
+
+    /**
+     * 업로드 파일 내용 해시 / CRC32
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class ContentDigest {
+        private String sha256;
+        private long crc32;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ssafy.backend.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <pre>ZIP 유틸</pre>
+ * 음원은 이미 압축된 경우가 많아 재압축하지 않고 STORED 항목으로 기록한다.
+ * STORED 항목은 로컬 헤더에 크기와 CRC가 먼저 있어야 하므로 데이터를 기록하기 전에 구한다.
+ * 크기와 CRC를 미리 알고 있으면 스트림을 그대로 기록한다.
+ *
+ * @author 박병주
+ * @version 1.1
+ * @since 2025-04-28
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 크기, CRC를 아는 스트림을 STORED 항목으로 추가
+ */
+public class ZipUtils {
+    private ZipUtils() {
+    }
+
+    /**
+     * 메모리의 데이터를 STORED 항목으로 추가
+     *
+     * @param zip  대상 ZIP 스트림
+     * @param name 항목 이름
+     * @param data 내용
+     */
+    public static void putStoredEntry(ZipOutputStream zip, String name, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        zip.putNextEntry(storedEntry(name, data.length, crc.getValue()));
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * 크기와 CRC를 아는 스트림을 STORED 항목으로 추가
+     * 기록한 내용이 크기, CRC와 다르면 항목을 닫을 때 ZipException이 발생한다.
+     *
+     * @param zip    대상 ZIP 스트림
+     * @param name   항목 이름
+     * @param in     기록할 내용 (닫지 않음)
+     * @param size   내용 크기
+     * @param crc    내용 CRC32
+     * @param buffer 복사 버퍼
+     */
+    public static void putStoredEntry(ZipOutputStream zip, String name, InputStream in, long size, long crc,
+                                      byte[] buffer) throws IOException {
+        zip.putNextEntry(storedEntry(name, size, crc));
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+        }
+        zip.closeEntry();
+    }
+
+    /**
+     * 파일을 STORED 항목으로 추가
+     * 한 번 읽어 CRC를 구하고 처음부터 다시 읽어 기록한다.
+     *
+     * @param zip    대상 ZIP 스트림
+     * @param name   항목 이름
+     * @param file   기록할 파일
+     * @param buffer 복사 버퍼
+     */
+    public static void putStoredEntry(ZipOutputStream zip, String name, Path file, byte[] buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer bytes = ByteBuffer.wrap(buffer);
+            long size = 0;
+            int read;
+            while ((read = channel.read(bytes.clear())) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+            zip.putNextEntry(storedEntry(name, size, crc.getValue()));
+            channel.position(0);
+            InputStream in = Channels.newInputStream(channel);
+            while ((read = in.read(buffer)) != -1) {
+                zip.write(buffer, 0, read);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private static ZipEntry storedEntry(String name, long size, long crc) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+        return entry;
+    }
+}
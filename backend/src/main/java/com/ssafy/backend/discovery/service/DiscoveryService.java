@@ -257,6 +257,9 @@ public class DiscoveryService {
                     .duration(track.getDuration())
                     .key(track.getKey())
                     .bpm(track.getBpm())
+                    .loudnessLufs(track.getLoudnessLufs())
+                    .truePeakDbtp(track.getTruePeakDbtp())
+                    .gainDb(track.getGainDb())
                     .build();
 
             resultList.add(trackInfo);
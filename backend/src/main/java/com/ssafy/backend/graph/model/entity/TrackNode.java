@@ -10,8 +10,10 @@ import java.util.Set;
  * <pre>Track 노드</pre>
  *
  * @author 박병주
- * @version 1.0
+ * @version 1.1
  * @since 2025-03-12
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 유사도 재계산 대상 표시(similarityDirty) 추가
  */
 
 import org.springframework.data.neo4j.core.schema.Id;
@@ -31,5 +33,8 @@ public class TrackNode {
     private Integer id;
 
     private Boolean enabled;
+
+    // 유사도(SIMILAR) 관계를 다시 계산해야 하는 트랙 (업로드 / 삭제 / 임베딩 갱신)
+    private Boolean similarityDirty;
 }
 
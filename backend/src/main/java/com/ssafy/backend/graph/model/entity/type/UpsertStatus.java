@@ -0,0 +1,17 @@
+package com.ssafy.backend.graph.model.entity.type;
+
+/**
+ * <pre>그래프 쓰기 결과</pre>
+ * 존재 확인과 관계 생성을 한 쿼리로 수행하는 저장소 메서드의 결과.
+ * OK가 아니면 아무것도 쓰지 않은 것이다.
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-27
+ */
+public enum UpsertStatus {
+    OK,
+    MEMBER_NOT_FOUND,
+    TRACK_NOT_FOUND,
+    TAG_NOT_FOUND
+}
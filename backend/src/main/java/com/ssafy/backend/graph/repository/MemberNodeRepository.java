@@ -8,6 +8,8 @@ import org.springframework.data.neo4j.repository.query.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Repository
@@ -43,6 +45,84 @@ public interface MemberNodeRepository extends Neo4jRepository<MemberNode, Intege
     boolean existsPreferRelationship(@Param("memberId") Integer memberId,
                                      @Param("tagId") Integer tagId);
 
+    /**
+     * 트랙 조회 가중치 반영 (존재 확인 + LIKE + 트랙 태그 PREFER를 한 쿼리로)
+     *
+     * @return UpsertStatus 이름 (회원 / 트랙이 없으면 아무것도 쓰지 않음)
+     */
+    @Query("OPTIONAL MATCH (m:Member {id: $memberId}) " +
+            "OPTIONAL MATCH (t:Track {id: $trackId}) " +
+            "WITH m, t, CASE WHEN m IS NULL THEN 'MEMBER_NOT_FOUND' WHEN t IS NULL THEN 'TRACK_NOT_FOUND' ELSE 'OK' END AS status " +
+            "FOREACH (_ IN CASE WHEN status = 'OK' THEN [1] ELSE [] END | " +
+            "  MERGE (m)-[r:LIKE]->(t) " +
+            "  ON CREATE SET r.weight = $weight " +
+            "  ON MATCH SET r.weight = r.weight + $weight) " +
+            "WITH m, t, status " +
+            "OPTIONAL MATCH (t)-[:HAVE]->(tag:Tag) " +
+            "WITH m, status, collect(tag) AS tags " +
+            "FOREACH (tag IN CASE WHEN status = 'OK' THEN tags ELSE [] END | " +
+            "  MERGE (m)-[p:PREFER]->(tag) " +
+            "  ON CREATE SET p.weight = $weight " +
+            "  ON MATCH SET p.weight = p.weight + $weight) " +
+            "RETURN status")
+    String upsertTrackView(@Param("memberId") Integer memberId,
+                           @Param("trackId") Integer trackId,
+                           @Param("weight") Double weight);
+
+    /**
+     * 태그 선호 가중치 반영 (존재 확인 + 태그별 PREFER를 한 쿼리로)
+     * 태그가 하나라도 없으면 아무것도 쓰지 않는다.
+     *
+     * @return UpsertStatus 이름
+     */
+    @Query("OPTIONAL MATCH (m:Member {id: $memberId}) " +
+            "UNWIND CASE WHEN size($tagIds) = 0 THEN [null] ELSE $tagIds END AS tagId " +
+            "OPTIONAL MATCH (tag:Tag {id: tagId}) " +
+            "WITH m, collect(tag) AS tags, count(tagId) AS requested " +
+            "WITH m, tags, CASE WHEN m IS NULL THEN 'MEMBER_NOT_FOUND' WHEN size(tags) < requested THEN 'TAG_NOT_FOUND' ELSE 'OK' END AS status " +
+            "FOREACH (tag IN CASE WHEN status = 'OK' THEN tags ELSE [] END | " +
+            "  MERGE (m)-[p:PREFER]->(tag) " +
+            "  ON CREATE SET p.weight = $weight " +
+            "  ON MATCH SET p.weight = p.weight + $weight) " +
+            "RETURN status")
+    String upsertTagPreferences(@Param("memberId") Integer memberId,
+                                @Param("tagIds") List<Integer> tagIds,
+                                @Param("weight") Double weight);
+
+    /**
+     * 트랙 작성 관계 생성 (존재 확인 + WRITE를 한 쿼리로)
+     *
+     * @return UpsertStatus 이름
+     */
+    @Query("OPTIONAL MATCH (m:Member {id: $memberId}) " +
+            "OPTIONAL MATCH (t:Track {id: $trackId}) " +
+            "WITH m, t, CASE WHEN m IS NULL THEN 'MEMBER_NOT_FOUND' WHEN t IS NULL THEN 'TRACK_NOT_FOUND' ELSE 'OK' END AS status " +
+            "FOREACH (_ IN CASE WHEN status = 'OK' THEN [1] ELSE [] END | " +
+            "  MERGE (m)-[:WRITE]->(t)) " +
+            "RETURN status")
+    String upsertWrite(@Param("memberId") Integer memberId,
+                       @Param("trackId") Integer trackId);
+
+    /**
+     * (회원, 트랙) 가중치 증가분을 한 번에 반영
+     * LIKE 가중치를 올리고, 각 트랙의 태그로 PREFER 가중치도 (회원, 태그)별로 합쳐 올린다.
+     * 없는 회원 / 트랙은 건너뛴다.
+     *
+     * @param events {memberId, trackId, weight} 목록 ((회원, 트랙)은 중복 없음)
+     */
+    @Query("UNWIND $events AS e " +
+            "MATCH (m:Member {id: e.memberId}), (t:Track {id: e.trackId}) " +
+            "MERGE (m)-[r:LIKE]->(t) " +
+            "ON CREATE SET r.weight = e.weight " +
+            "ON MATCH SET r.weight = r.weight + e.weight " +
+            "WITH m, t, e " +
+            "MATCH (t)-[:HAVE]->(tag:Tag) " +
+            "WITH m, tag, sum(e.weight) AS weight " +
+            "MERGE (m)-[p:PREFER]->(tag) " +
+            "ON CREATE SET p.weight = weight " +
+            "ON MATCH SET p.weight = p.weight + weight")
+    void increaseLikeAndPreferWeights(@Param("events") List<Map<String, Object>> events);
+
     @Query("MATCH (m:Member), (t:Track) " +
             "WHERE m.id = $memberId AND t.id = $trackId " +
             "MERGE (m)-[r:LIKE]->(t) " +
@@ -33,4 +33,14 @@ public interface RelationshipRepository extends Neo4jRepository<TrackNode, Integ
 
     @Query("MATCH ()-[r:SIMILAR]->() DELETE r RETURN count(r)")
     int deleteAllSimilarRelationships();
+
+    @Query("""
+            MATCH (t:Track) WHERE t.id IN $trackIds
+            OPTIONAL MATCH (t)-[r:SIMILAR]-()
+            DELETE r
+            WITH DISTINCT t
+            SET t.similarityDirty = false
+            RETURN count(t)
+            """)
+    int detachSimilarRelationships(@Param("trackIds") List<Integer> trackIds);
 }
@@ -88,5 +88,13 @@ public interface TrackNodeRepository extends Neo4jRepository<TrackNode, Integer>
             RETURN t.id AS trackId
             """)
     List<Integer> getMemberFanMix(@Param("memberId") Integer memberId, @Param("limit") Integer limit);
-}
 
+    @Query("MATCH (t:Track) WHERE t.similarityDirty = true AND coalesce(t.enabled, false) = $enabled RETURN t.id")
+    List<Integer> findSimilarityDirtyTrackIds(@Param("enabled") Boolean enabled);
+
+    @Query("MATCH (t:Track) WHERE t.enabled = $enabled RETURN t.id")
+    List<Integer> findTrackIdsByEnabled(@Param("enabled") Boolean enabled);
+
+    @Query("MATCH (t:Track) WHERE t.id IN $trackIds SET t.similarityDirty = true")
+    void markSimilarityDirty(@Param("trackIds") List<Integer> trackIds);
+}
@@ -1,12 +1,13 @@
 package com.ssafy.backend.graph.service;
 
+import com.ssafy.backend.graph.model.entity.type.UpsertStatus;
 import com.ssafy.backend.graph.model.entity.type.WeightType;
 import com.ssafy.backend.graph.repository.MemberNodeRepository;
-import com.ssafy.backend.graph.repository.TagNodeRepository;
 import com.ssafy.backend.graph.repository.TrackNodeRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,8 +18,10 @@ import java.util.List;
  * neo4j 데이터를 수집
  *
  * @author 박병주, 허현준
- * @version 2.1
+ * @version 2.3
  * @changes 2.1 태그 관계 생성 메서드 분리
+ *          2.2 트랙 조회 / 좋아요 가중치는 쓰기 지연 버퍼로 모아 반영
+ *          2.3 존재 확인과 관계 생성을 한 쿼리로 처리
  * @since 2025-03-27
  */
 @Slf4j
@@ -29,7 +32,10 @@ public class DataCollectingService {
     private final RelationshipService relationshipService;
     private final TrackNodeRepository trackNodeRepository;
     private final MemberNodeRepository memberNodeRepository;
-    private final TagNodeRepository tagNodeRepository;
+    private final InteractionBufferService interactionBufferService;
+
+    @Value("${GRAPH_EVENT_BUFFER_ENABLED:true}")
+    private boolean bufferEnabled;
 
     /**
      * 회원가입 시 작성, 멤버 노드 생성
@@ -72,49 +78,35 @@ public class DataCollectingService {
 
     /**
      * 회원이 트랙을 조회하면 조회수 가중치 증가
+     * 요청 중에는 버퍼에만 등록하고, LIKE / 태그 PREFER 가중치는 버퍼가 주기적으로 한 번에 반영한다.
+     * 없는 회원 / 트랙의 증가분은 반영 시 건너뛴다.
+     * 버퍼를 끄면 존재 확인, LIKE, 태그 PREFER를 한 쿼리로 바로 반영한다.
      *
      * @param memberId   조회하는 회원 id
      * @param trackId    조회되는 트랙 id
      * @param weightType 가중치 타입 EX) WeightType.VIEW
      */
-    @Transactional
     public void viewTrack(Integer memberId, Integer trackId, WeightType weightType) {
-        // 회원과 트랙 존재 확인
-        validateMemberAndTrack(memberId, trackId);
-
-        // 가중치 타입에 따라 처리
+        if (bufferEnabled) {
+            interactionBufferService.add(memberId, trackId, weightType.getValue());
+            return;
+        }
         double weight = weightType.getValue();
-
-        // LIKE 관계 생성 또는 가중치 증가
-        relationshipService.createOrIncreaseLikeRelationship(memberId, trackId, weight);
-
-        // 트랙에 연결된 모든 태그 노드에 대해 PREFER 관계 생성 또는 가중치 증가
-        List<Integer> tagIds = trackNodeRepository.findTagIdsByTrackId(trackId);
-        viewTags(memberId, tagIds, weightType);
+        check(memberNodeRepository.upsertTrackView(memberId, trackId, weight), memberId, trackId, null);
     }
 
+    /**
+     * 회원의 태그 선호 가중치 증가
+     * 회원과 태그가 모두 있을 때만 PREFER 관계를 생성하거나 가중치를 올린다 (한 쿼리).
+     *
+     * @param memberId   회원 id
+     * @param tagIds     태그 id 목록
+     * @param weightType 가중치 타입
+     */
     @Transactional
     public void viewTags(Integer memberId, List<Integer> tagIds, WeightType weightType) {
-        // 회원과 태그 존재 확인
-        if (!memberNodeRepository.existsById(memberId)) {
-            log.warn("Member with id {} not found", memberId);
-            throw new EntityNotFoundException("Member not found");
-        }
-
-        for (Integer tagId : tagIds) {
-            if (!tagNodeRepository.existsById(tagId)) {
-                log.warn("Tag with id {} not found", tagId);
-                throw new EntityNotFoundException("Tag not found");
-            }
-        }
-
-        // 가중치 타입에 따라 처리
         double weight = weightType.getValue();
-
-        // PREFER 관계 생성 또는 가중치 증가
-        for (Integer tagId : tagIds) {
-            relationshipService.createOrIncreasePreferRelationship(memberId, tagId, weight);
-        }
+        check(memberNodeRepository.upsertTagPreferences(memberId, tagIds, weight), memberId, null, tagIds);
     }
 
     /**
@@ -164,23 +156,30 @@ public class DataCollectingService {
      */
     @Transactional
     public void writeTrack(Integer memberId, Integer trackId) {
-        // 회원과 트랙 존재 확인
-        validateMemberAndTrack(memberId, trackId);
-
-        // WRITE 관계 생성
-        relationshipService.createWriteRelationship(memberId, trackId);
+        // 존재 확인 + WRITE 관계 생성
+        check(memberNodeRepository.upsertWrite(memberId, trackId), memberId, trackId, null);
     }
 
     /**
-     * 회원과 트랙의 존재 여부를 검증하는 헬퍼 메서드
+     * 한 쿼리 쓰기 결과 검증 (없는 노드가 있었으면 예외)
      */
-    private void validateMemberAndTrack(Integer memberId, Integer trackId) {
-        if (!memberNodeRepository.existsById(memberId)) {
-            log.warn("Member with id {} not found", memberId);
-            throw new EntityNotFoundException("Member not found");
+    private void check(String status, Integer memberId, Integer trackId, List<Integer> tagIds) {
+        switch (UpsertStatus.valueOf(status)) {
+            case MEMBER_NOT_FOUND -> {
+                log.warn("Member with id {} not found", memberId);
+                throw new EntityNotFoundException("Member not found");
+            }
+            case TRACK_NOT_FOUND -> {
+                log.warn("Track with id {} not found", trackId);
+                throw new EntityNotFoundException("Track not found");
+            }
+            case TAG_NOT_FOUND -> {
+                log.warn("Tag not found in {}", tagIds);
+                throw new EntityNotFoundException("Tag not found");
+            }
+            case OK -> {
+            }
         }
-
-        validateTrack(trackId, "Track");
     }
 
     /**
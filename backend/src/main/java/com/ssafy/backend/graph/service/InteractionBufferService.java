@@ -0,0 +1,131 @@
+package com.ssafy.backend.graph.service;
+
+import com.ssafy.backend.graph.repository.MemberNodeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <pre>그래프 상호작용 쓰기 지연 버퍼</pre>
+ * 재생 / 좋아요 / 좋아요 취소로 생기는 LIKE, PREFER 가중치 증가를 요청 중에 바로 쓰지 않고 메모리에 모은다.
+ * - 같은 (회원, 트랙) 증가분은 하나로 합침
+ * - 주기적으로 UNWIND 쿼리 한 번에 LIKE를 반영하고, 트랙의 태그별 PREFER 증가분도 (회원, 태그)로 합쳐 반영
+ * - 모인 (회원, 트랙) 수가 상한에 닿으면 새 (회원, 트랙) 증가분은 버리고 건수만 세어 다음 주기에 남긴다
+ *   (요청 스레드에서는 반영하지 않으므로 Neo4j 장애 중에도 요청 지연이 늘지 않고 메모리도 상한을 넘지 않음)
+ * 반영에 실패한 증가분은 버퍼에 되돌려 다음 주기에 다시 시도한다.
+ * 종료 시 남은 증가분을 반영하며, 비정상 종료 시에는 마지막 주기 이후의 증가분이 유실될 수 있다.
+ *
+ * @author 박병주
+ * @version 1.1
+ * @since 2025-04-27
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 상한 도달 시 요청 스레드에서 반영하지 않고 버린 건수를 기록
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InteractionBufferService {
+    private final MemberNodeRepository memberNodeRepository;
+
+    @Value("${GRAPH_EVENT_BUFFER_MAX:10000}")
+    private int maxPending;
+    @Value("${GRAPH_EVENT_BATCH_SIZE:1000}")
+    private int batchSize;
+
+    // (회원 id << 32 | 트랙 id) → 가중치 증가분
+    private final ConcurrentHashMap<Long, Double> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // 상한 도달로 버린 증가분 수 (다음 주기에 기록 후 초기화)
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 회원 - 트랙 가중치 증가 등록
+     *
+     * @param memberId 회원 id
+     * @param trackId  트랙 id
+     * @param weight   증가분
+     */
+    public void add(Integer memberId, Integer trackId, double weight) {
+        long key = key(memberId, trackId);
+        // 이미 있는 (회원, 트랙)에 더하는 것은 크기가 늘지 않으므로 허용
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.merge(key, weight, Double::sum);
+    }
+
+    /**
+     * 모인 증가분 반영
+     * 꺼낸 뒤에 들어온 증가분은 다음 주기에 반영된다.
+     */
+    @Scheduled(fixedDelayString = "${GRAPH_EVENT_FLUSH_MILLIS:1000}")
+    public void flush() {
+        long drops = dropped.getAndSet(0);
+        if (drops > 0) {
+            log.warn("그래프 이벤트 버퍼 상한({}) 도달로 증가분 {}건을 버림", maxPending, drops);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Map<String, Object>> events = new ArrayList<>(Math.min(pending.size(), batchSize));
+            Iterator<Long> iterator = pending.keySet().iterator();
+            while (iterator.hasNext()) {
+                Long key = iterator.next();
+                Double weight = pending.remove(key);
+                if (weight == null || weight == 0) {
+                    continue;
+                }
+                events.add(Map.of("memberId", (int) (key >> 32), "trackId", (int) (long) key, "weight", weight));
+                if (events.size() == batchSize) {
+                    // 실패하면 되돌린 증가분을 다시 꺼내지 않도록 이번 주기를 멈춘다
+                    if (!write(events)) {
+                        return;
+                    }
+                    events = new ArrayList<>(batchSize);
+                }
+            }
+            if (!events.isEmpty()) {
+                write(events);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean write(List<Map<String, Object>> events) {
+        try {
+            memberNodeRepository.increaseLikeAndPreferWeights(events);
+            log.debug("그래프 이벤트 {}건 반영", events.size());
+            return true;
+        } catch (Exception e) {
+            log.error("그래프 이벤트 {}건 반영 실패, 다음 주기에 재시도: {}", events.size(), e.getMessage());
+            for (Map<String, Object> event : events) {
+                pending.merge(key((Integer) event.get("memberId"), (Integer) event.get("trackId")), (Double) event.get("weight"), Double::sum);
+            }
+            return false;
+        }
+    }
+
+    private static long key(int memberId, int trackId) {
+        return ((long) memberId << 32) | (trackId & 0xFFFFFFFFL);
+    }
+}
@@ -10,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -25,6 +26,7 @@ public class NodeService {
         TrackNode trackNode = new TrackNode();
         trackNode.setId(id);
         trackNode.setEnabled(true);
+        trackNode.setSimilarityDirty(true);
         trackNodeRepository.save(trackNode);
     }
 
@@ -47,10 +49,16 @@ public class NodeService {
     public void deleteTrackNode(Integer id) {
         trackNodeRepository.findById(id).ifPresent(trackNode -> {
             trackNode.setEnabled(false);
+            trackNode.setSimilarityDirty(true);
             trackNodeRepository.save(trackNode);
         });
     }
 
+    @Transactional
+    public void markTrackSimilarityDirty(Integer id) {
+        trackNodeRepository.markSimilarityDirty(List.of(id));
+    }
+
     @Transactional
     public void deleteTagNode(Integer id) {
         tagNodeRepository.deleteById(id);
@@ -1,7 +1,8 @@
 package com.ssafy.backend.graph.util;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ssafy.backend.graph.model.entity.TrackNode;
 import com.ssafy.backend.graph.repository.RelationshipRepository;
 import com.ssafy.backend.graph.repository.TrackNodeRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,22 +10,39 @@ import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
-import org.neo4j.driver.TransactionWork;
+import org.neo4j.driver.Values;
 import org.neo4j.driver.summary.ResultSummary;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StopWatch;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>트랙 유사도(SIMILAR) 관계 재구성</pre>
+ * FastAPI에서 트랙별 유사 트랙 목록을 받아 SIMILAR 관계를 다시 만든다.
+ * - 증분: 업로드 / 삭제 / 임베딩 갱신으로 표시된(similarityDirty) 트랙만 다시 계산
+ * - 전체: 모든 트랙을 다시 계산 (요청 시)
+ * 트랙 묶음마다 한 트랜잭션에서 기존 관계를 지우고 새 관계를 만들어, 실행 중에도 SIMILAR 관계가 비지 않는다.
+ * 실패한 묶음은 표시가 남아 다음 실행 때 다시 계산한다.
+ *
+ * @author 박병주
+ * @version 1.2
+ * @since 2025-03-12
+ * @changes 1.0 - 최초 작성
+ *          1.1 - 변경된 트랙만 다시 계산하는 증분 재구성, 묶음 단위 관계 교체
+ *          1.2 - FastAPI NDJSON 스트림을 도착하는 대로 묶음 단위로 반영
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Component
@@ -33,157 +51,257 @@ public class DataReconstructor {
     private final Driver driver;
     private final TrackNodeRepository trackNodeRepository;
     private final RelationshipRepository relationshipRepository;
+    private final ObjectMapper objectMapper;
 
     @Value("${FASTAPI_HOST}")
     private String FASTAPI_HOST;
+    // 관계 교체 트랜잭션 하나에 담을 트랙 수
+    @Value("${GRAPH_SIMILARITY_CHUNK_SIZE:200}")
+    private int chunkSize;
 
-    private final int BATCH_SIZE = 1000;
     private final int TIMEOUT_MINUTES = 30;
 
+    // 전체 / 증분 재구성이 동시에 돌지 않도록
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
     /**
+     * 전체 재구성
      * 1. GET TRACK NODE LIST
-     * 2. FAST API REQUEST
-     * 3. DELETE ALL SIMILAR RELATIONSHIP
-     * 4. REUNION RELATIONSHIP
+     * 2. 삭제된 트랙의 관계 제거
+     * 3. 묶음마다 FAST API REQUEST → 기존 관계 교체
      */
     public void reconstruct() {
+        run("전체", () -> rebuild(trackNodeRepository.findTrackIdsByEnabled(true),
+                trackNodeRepository.findTrackIdsByEnabled(false)));
+    }
+
+    /**
+     * 증분 재구성 (표시된 트랙만)
+     */
+    public void reconstructIncremental() {
+        run("증분", () -> rebuild(trackNodeRepository.findSimilarityDirtyTrackIds(true),
+                trackNodeRepository.findSimilarityDirtyTrackIds(false)));
+    }
+
+    private void run(String mode, Runnable task) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("데이터 재구성이 이미 실행 중이므로 {} 재구성을 건너뜁니다.", mode);
+            return;
+        }
         try {
             StopWatch stopWatch = new StopWatch();
             stopWatch.start("reconstruct");
-            log.info("데이터 재구성 시작");
-
-            // 1. GET TRACK NODE LIST
-            List<TrackNode> nodes = trackNodeRepository.findAll();
-            List<Integer> nodeIds = nodes.stream().map(TrackNode::getId).toList();
-            log.info("처리할 트랙 노드 수: {}", nodeIds.size());
-
-            Map<String, List<Integer>> request = new HashMap<>();
-            request.put("trackIds", nodeIds);
-
-            // 2. FAST API REQUEST
-            Map<String, List<Map<String, Object>>> similarities = requestSimilarityData(request);
-            if (similarities == null || similarities.isEmpty()) {
-                log.warn("유사성 데이터를 받아오지 못했습니다.");
-                return;
-            }
-
-            log.info("유사성 데이터 수신 완료: {} 트랙에 대한 데이터", similarities.size());
-
-            // 3. DELETE ALL SIMILAR RELATIONSHIP
-            int deletedCount = relationshipRepository.deleteAllSimilarRelationships();
-            log.info("기존 유사성 관계 삭제 완료: {} 관계 삭제됨", deletedCount);
-
-            // 4. REUNION RELATIONSHIP - 배치 처리 방식
-            int createdCount = createSimilarRelationships(similarities);
-            log.info("새로운 유사성 관계 생성 완료: {} 관계 생성됨", createdCount);
-
+            log.info("데이터 {} 재구성 시작", mode);
+            task.run();
             stopWatch.stop();
-            log.info("데이터 재구성 완료 - 소요시간 : {}", stopWatch.prettyPrint());
+            log.info("데이터 {} 재구성 완료 - 소요시간 : {}", mode, stopWatch.prettyPrint());
         } catch (Exception e) {
             log.error("데이터 재구성 중 오류 발생", e);
             throw new RuntimeException("데이터 재구성 실패", e);
+        } finally {
+            running.set(false);
         }
     }
 
-    private Map<String, List<Map<String, Object>>> requestSimilarityData(Map<String, List<Integer>> nodeIds) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, List<Integer>>> requestEntity = new HttpEntity<>(nodeIds, headers);
-            RestTemplate restTemplate = new RestTemplate();
+    /**
+     * @param trackIds   유사 트랙 목록을 다시 계산할 트랙 id
+     * @param removedIds 삭제되어 관계를 모두 지울 트랙 id
+     */
+    private void rebuild(List<Integer> trackIds, List<Integer> removedIds) {
+        log.info("처리할 트랙 노드 수: {}, 삭제된 트랙 노드 수: {}", trackIds.size(), removedIds.size());
 
-            ResponseEntity<Map<String, List<Map<String, Object>>>> response = restTemplate.exchange(
-                    FASTAPI_HOST + "/api/FastAPI/track/similarity",
-                    HttpMethod.POST,
-                    requestEntity,
-                    new ParameterizedTypeReference<Map<String, List<Map<String, Object>>>>() {}
-            );
+        int detachedCount = 0;
+        for (int i = 0; i < removedIds.size(); i += chunkSize) {
+            detachedCount += relationshipRepository.detachSimilarRelationships(
+                    removedIds.subList(i, Math.min(i + chunkSize, removedIds.size())));
+        }
+        if (detachedCount > 0) {
+            log.info("삭제된 트랙의 유사성 관계 제거 완료: {} 트랙", detachedCount);
+        }
 
-            if (response.getStatusCode() != HttpStatus.OK) {
-                log.error("FastAPI 요청 실패: {}", response.getStatusCode());
-                return Collections.emptyMap();
-            }
+        if (trackIds.isEmpty()) {
+            return;
+        }
+        int[] result = streamSimilarities(trackIds);
+        // 응답에 오지 않은 트랙은 기존 관계와 표시를 그대로 두고 다음 실행 때 다시 시도
+        log.info("유사성 관계 교체 완료: {} 트랙, {} 관계 생성됨, 실패한 트랙 {}개",
+                result[0], result[1], trackIds.size() - result[0]);
+    }
 
-            return response.getBody();
+    /**
+     * FastAPI 유사도 NDJSON 스트림을 받아 도착하는 대로 묶음 단위로 관계 교체
+     * 한 줄 = 한 트랙 {"trackId": 1, "similar": [{"trackId": 2, "similarity": 0.9}, ...]}
+     * 응답 전체를 담지 않고 기본형 배열 묶음 두 개(읽는 중 / 쓰는 중)만 유지하므로, 메모리 사용이 (트랙 수 x 이웃 수)와 무관하다.
+     *
+     * @param trackIds 유사 트랙 목록을 다시 계산할 트랙 id
+     * @return {교체한 트랙 수, 생성한 관계 수}
+     */
+    private int[] streamSimilarities(List<Integer> trackIds) {
+        int[] result = new int[2];
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "similarity-writer"));
+        try {
+            RestTemplate restTemplate = new RestTemplate();
+            restTemplate.execute(
+                    FASTAPI_HOST + "/api/FastAPI/track/similarity/stream",
+                    HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON));
+                        request.getBody().write(objectMapper.writeValueAsBytes(Map.of("trackIds", trackIds)));
+                    },
+                    response -> {
+                        if (response.getStatusCode() != HttpStatus.OK) {
+                            log.error("FastAPI 요청 실패: {}", response.getStatusCode());
+                            return null;
+                        }
+                        try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                            readSimilarities(parser, writer, result);
+                        }
+                        return null;
+                    });
         } catch (Exception e) {
-            log.error("FastAPI 요청 중 오류 발생", e);
-            return Collections.emptyMap();
+            // 이미 교체한 묶음은 유지된다
+            log.error("FastAPI 유사성 스트림 처리 중 오류 발생", e);
+        } finally {
+            writer.shutdown();
         }
+        return result;
     }
 
-    private int createSimilarRelationships(Map<String, List<Map<String, Object>>> similarities) {
-        int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), 8); // 최대 8개 스레드로 제한
-        log.info("사용할 스레드 수: {}", numThreads);
-
-        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
-        AtomicInteger totalCreatedRelationships = new AtomicInteger(0);
-
+    /**
+     * 스트림을 한 트랙씩 읽어 묶음을 채우고, 묶음이 차면 쓰기 스레드로 넘긴다.
+     * 쓰기는 한 번에 한 묶음만 진행하며, 그동안 다음 묶음을 읽는다.
+     */
+    private void readSimilarities(JsonParser parser, ExecutorService writer, int[] result) throws IOException {
+        SimilarityBatch batch = new SimilarityBatch(chunkSize);
+        Future<Integer> writing = null;
+        int writingTracks = 0;
         try {
-            List<Map<String, Object>> batchParams = new ArrayList<>();
-
-            // 모든 유사성 관계 데이터 수집
-            similarities.forEach((key, value) -> {
-                for (Map<String, Object> sim : value) {
-                    Map<String, Object> params = new HashMap<>();
-                    params.put("fromTrackId", Integer.parseInt(key));
-                    params.put("toTrackId", Integer.parseInt(sim.get("trackId").toString()));
-                    params.put("similarity", Double.parseDouble(sim.get("similarity").toString()));
-//                    log.info("from : {}, to : {}, sim : {}",key, sim.get("trackId"), sim.get("similarity"));
-                    batchParams.add(params);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int trackId = -1;
+                int firstEdge = batch.edgeCount;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "trackId" -> trackId = parser.getValueAsInt(-1);
+                        case "similar" -> readNeighbours(parser, batch);
+                        default -> parser.skipChildren();
+                    }
+                }
+                if (trackId < 0) {
+                    batch.edgeCount = firstEdge;
+                    continue;
+                }
+                batch.addSource(trackId, firstEdge);
+                if (batch.sourceCount < chunkSize) {
+                    continue;
                 }
-            });
-
-            log.info("생성할 유사성 관계 수: {}", batchParams.size());
-
-            // 배치 단위로 처리
-            List<Future<Integer>> futures = new ArrayList<>();
-            for (int i = 0; i < batchParams.size(); i += BATCH_SIZE) {
-                int endIndex = Math.min(i + BATCH_SIZE, batchParams.size());
-                List<Map<String, Object>> batch = batchParams.subList(i, endIndex);
 
-                futures.add(executorService.submit(() -> processBatch(batch)));
+                collect(writing, writingTracks, result);
+                SimilarityBatch full = batch;
+                writing = writer.submit(() -> processBatch(full));
+                writingTracks = full.sourceCount;
+                batch = new SimilarityBatch(chunkSize);
+            }
+            if (batch.sourceCount > 0) {
+                collect(writing, writingTracks, result);
+                SimilarityBatch last = batch;
+                writing = writer.submit(() -> processBatch(last));
+                writingTracks = last.sourceCount;
             }
+        } finally {
+            // 읽기가 실패해도 이미 넘긴 묶음은 끝까지 반영
+            collect(writing, writingTracks, result);
+        }
+    }
 
-            // 모든 배치 처리 결과 수집
-            for (Future<Integer> future : futures) {
-                try {
-                    int createdCount = future.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
-                    totalCreatedRelationships.addAndGet(createdCount);
-                } catch (Exception e) {
-                    log.error("배치 처리 결과 수집 중 오류 발생", e);
+    private void readNeighbours(JsonParser parser, SimilarityBatch batch) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            int toTrackId = -1;
+            double similarity = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "trackId" -> toTrackId = parser.getValueAsInt(-1);
+                    case "similarity" -> similarity = parser.getValueAsDouble();
+                    default -> parser.skipChildren();
                 }
             }
-
-            executorService.shutdown();
-            if (!executorService.awaitTermination(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
-                log.warn("일부 작업이 제한 시간 내에 완료되지 않았습니다.");
-                executorService.shutdownNow();
+            if (toTrackId >= 0) {
+                batch.addEdge(toTrackId, similarity);
             }
+        }
+    }
 
-            return totalCreatedRelationships.get();
+    /**
+     * 진행 중인 묶음 쓰기가 끝날 때까지 기다려 결과 합산
+     */
+    private void collect(Future<Integer> writing, int tracks, int[] result) {
+        if (writing == null || writing.isCancelled()) {
+            return;
+        }
+        try {
+            int created = writing.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            if (created >= 0) {
+                result[0] += tracks;
+                result[1] += created;
+            }
         } catch (InterruptedException e) {
-            log.error("병렬 처리 중 인터럽트 발생", e);
             Thread.currentThread().interrupt();
-            return totalCreatedRelationships.get();
-        } finally {
-            if (!executorService.isTerminated()) {
-                executorService.shutdownNow();
-            }
+            writing.cancel(true);
+        } catch (Exception e) {
+            log.error("배치 처리 결과 수집 중 오류 발생", e);
+            writing.cancel(true);
         }
     }
 
-    private int processBatch(List<Map<String, Object>> batch) {
+    /**
+     * 묶음에 포함된 트랙의 나가는 SIMILAR 관계를 새 목록으로 교체 (한 트랜잭션)
+     * 묶음에 없는 트랙은 기존 관계와 표시를 그대로 둔다.
+     *
+     * @return 생성한 관계 수, 실패하면 -1
+     */
+    private int processBatch(SimilarityBatch batch) {
         try (Session session = driver.session()) {
             return session.executeWrite(tx -> {
+                String deleteQuery =
+                        "UNWIND $trackIds AS trackId " +
+                                "MATCH (t:Track {id: trackId}) " +
+                                "OPTIONAL MATCH (t)-[old:SIMILAR]->() " +
+                                "DELETE old " +
+                                "WITH DISTINCT t " +
+                                "SET t.similarityDirty = false";
+                tx.run(deleteQuery, Map.of("trackIds", Values.value(batch.sourceIds()))).consume();
+
+                // 관계마다 Map을 만들지 않고 같은 위치의 값을 배열 세 개로 넘긴다
                 String batchQuery =
-                        "UNWIND $batch AS item " +
-                                "MATCH (t1:Track {id: item.fromTrackId}) " +
-                                "MATCH (t2:Track {id: item.toTrackId}) " +
-                                "MERGE (t1)-[r:SIMILAR {similarity: item.similarity}]->(t2) " +
+                        "UNWIND range(0, size($from) - 1) AS i " +
+                                "MATCH (t1:Track {id: $from[i]}) " +
+                                "MATCH (t2:Track {id: $to[i]}) " +
+                                "MERGE (t1)-[r:SIMILAR]->(t2) " +
+                                "SET r.similarity = $similarity[i] " +
                                 "RETURN count(r) as createdCount";
 
                 Map<String, Object> parameters = new HashMap<>();
-                parameters.put("batch", batch);
+                parameters.put("from", Values.value(batch.fromIds()));
+                parameters.put("to", Values.value(batch.toIds()));
+                parameters.put("similarity", Values.value(batch.similarities()));
 
                 Result result = tx.run(batchQuery, parameters);
                 int createdCount = 0;
@@ -193,14 +311,69 @@ public class DataReconstructor {
                 }
 
                 ResultSummary summary = result.consume();
-                log.debug("배치 처리 결과: 생성된 관계 수 = {}, 쿼리 요약 = {}",
-                        createdCount, summary.counters().relationshipsCreated());
+                log.debug("배치 처리 결과: 교체한 트랙 수 = {}, 생성된 관계 수 = {}, 쿼리 요약 = {}",
+                        batch.sourceCount, createdCount, summary.counters().relationshipsCreated());
 
                 return createdCount;
             });
         } catch (Exception e) {
             log.error("배치 처리 중 오류 발생: {}", e.getMessage(), e);
-            return 0;
+            return -1;
+        }
+    }
+
+    /**
+     * 관계 교체 묶음 (기본형 배열)
+     * 이웃의 출발 트랙은 그 트랙 줄을 다 읽은 뒤에 채운다 (필드 순서와 무관하게).
+     */
+    private static class SimilarityBatch {
+        private int[] sources;
+        private int sourceCount = 0;
+        private int[] from;
+        private int[] to;
+        private double[] similarity;
+        private int edgeCount = 0;
+
+        SimilarityBatch(int tracks) {
+            sources = new int[tracks];
+            from = new int[tracks * 16];
+            to = new int[tracks * 16];
+            similarity = new double[tracks * 16];
+        }
+
+        void addEdge(int toTrackId, double value) {
+            if (edgeCount == to.length) {
+                from = Arrays.copyOf(from, edgeCount * 2);
+                to = Arrays.copyOf(to, edgeCount * 2);
+                similarity = Arrays.copyOf(similarity, edgeCount * 2);
+            }
+            to[edgeCount] = toTrackId;
+            similarity[edgeCount] = value;
+            edgeCount++;
+        }
+
+        void addSource(int trackId, int firstEdge) {
+            if (sourceCount == sources.length) {
+                sources = Arrays.copyOf(sources, sourceCount * 2);
+            }
+            sources[sourceCount++] = trackId;
+            Arrays.fill(from, firstEdge, edgeCount, trackId);
+        }
+
+        int[] sourceIds() {
+            return Arrays.copyOf(sources, sourceCount);
+        }
+
+        int[] fromIds() {
+            return Arrays.copyOf(from, edgeCount);
+        }
+
+        int[] toIds() {
+            return Arrays.copyOf(to, edgeCount);
+        }
+
+        double[] similarities() {
+            return Arrays.copyOf(similarity, edgeCount);
         }
     }
 
@@ -0,0 +1,158 @@
+package com.ssafy.backend.graph.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <pre>Neo4j 스키마 관리</pre>
+ * 기동 시 버전이 매겨진 스키마 변경(제약 조건, 인덱스)을 순서대로 적용한다.
+ * - 적용한 버전은 (:SchemaMigration {id: 'graph'}) 노드에 기록하고, 그 이후 버전만 실행
+ * - 모든 구문은 IF NOT EXISTS로 작성해 여러 번 실행해도 결과가 같음
+ * - 적용 후 실제 스키마와 비교해 빠진 항목은 경고 후 다시 만들고, 관리하지 않는 항목은 알림만 남긴다
+ * 중복된 id 등으로 실패한 버전이 있으면 이후 버전은 다음 기동 때 다시 시도한다 (기동은 계속).
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-27
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GraphSchemaManager {
+    private static final String SCHEMA_ID = "graph";
+
+    /**
+     * 스키마 변경 목록 (버전 순, 이미 배포된 항목은 수정하지 않고 새 버전으로 추가)
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "노드 id 유일 제약", Map.of(
+                    "track_id_unique", "CREATE CONSTRAINT track_id_unique IF NOT EXISTS FOR (t:Track) REQUIRE t.id IS UNIQUE",
+                    "member_id_unique", "CREATE CONSTRAINT member_id_unique IF NOT EXISTS FOR (m:Member) REQUIRE m.id IS UNIQUE",
+                    "tag_id_unique", "CREATE CONSTRAINT tag_id_unique IF NOT EXISTS FOR (t:Tag) REQUIRE t.id IS UNIQUE")),
+            new Migration(2, "활성 여부 / 관계 가중치 인덱스", Map.of(
+                    "track_enabled", "CREATE INDEX track_enabled IF NOT EXISTS FOR (t:Track) ON (t.enabled)",
+                    "member_enabled", "CREATE INDEX member_enabled IF NOT EXISTS FOR (m:Member) ON (m.enabled)",
+                    "similar_similarity", "CREATE INDEX similar_similarity IF NOT EXISTS FOR ()-[r:SIMILAR]-() ON (r.similarity)",
+                    "like_weight", "CREATE INDEX like_weight IF NOT EXISTS FOR ()-[r:LIKE]-() ON (r.weight)",
+                    "prefer_weight", "CREATE INDEX prefer_weight IF NOT EXISTS FOR ()-[r:PREFER]-() ON (r.weight)"))
+    );
+
+    private final Driver driver;
+
+    @Value("${GRAPH_SCHEMA_MIGRATE:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try (Session session = driver.session()) {
+            int applied = currentVersion(session);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= applied) {
+                    continue;
+                }
+                if (!apply(session, migration)) {
+                    break;
+                }
+                applied = migration.getVersion();
+                int version = applied;
+                session.executeWrite(tx -> tx.run("MERGE (v:SchemaMigration {id: $id}) SET v.version = $version, v.appliedAt = datetime()",
+                        Map.of("id", SCHEMA_ID, "version", version)).consume());
+                log.info("그래프 스키마 {}버전 적용: {}", migration.getVersion(), migration.getDescription());
+            }
+            checkDrift(session, applied);
+        } catch (Exception e) {
+            // 스키마 적용 실패로 기동을 막지 않는다 (조회 성능만 영향)
+            log.error("그래프 스키마 적용 실패: {}", e.getMessage());
+        }
+    }
+
+    private int currentVersion(Session session) {
+        return session.executeRead(tx -> {
+            List<Record> records = tx.run("MATCH (v:SchemaMigration {id: $id}) RETURN v.version AS version",
+                    Map.of("id", SCHEMA_ID)).list();
+            return records.isEmpty() ? 0 : records.get(0).get("version").asInt(0);
+        });
+    }
+
+    /**
+     * 스키마 변경 한 버전 적용 (스키마 구문은 자동 커밋 트랜잭션으로 하나씩 실행)
+     *
+     * @return 모든 구문이 성공했으면 true
+     */
+    private boolean apply(Session session, Migration migration) {
+        boolean success = true;
+        for (Map.Entry<String, String> statement : migration.getStatements().entrySet()) {
+            try {
+                session.run(statement.getValue()).consume();
+            } catch (Exception e) {
+                log.error("그래프 스키마 {}버전 {} 생성 실패: {}", migration.getVersion(), statement.getKey(), e.getMessage());
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * 적용된 버전까지의 제약 조건 / 인덱스가 실제로 있는지 확인
+     * 빠진 항목은 다시 만들고, 목록에 없는 항목은 알림만 남긴다.
+     */
+    private void checkDrift(Session session, int applied) {
+        Map<String, String> expected = new LinkedHashMap<>();
+        Set<String> managed = new HashSet<>();
+        for (Migration migration : MIGRATIONS) {
+            managed.addAll(migration.getStatements().keySet());
+            if (migration.getVersion() <= applied) {
+                expected.putAll(migration.getStatements());
+            }
+        }
+
+        Set<String> actual = new HashSet<>();
+        session.run("SHOW CONSTRAINTS YIELD name").list().forEach(record -> actual.add(record.get("name").asString()));
+        // 유일 제약이 만든 인덱스와 기본 LOOKUP 인덱스는 따로 관리하지 않는다
+        session.run("SHOW INDEXES YIELD name, type, owningConstraint WHERE type <> 'LOOKUP' AND owningConstraint IS NULL RETURN name")
+                .list().forEach(record -> actual.add(record.get("name").asString()));
+
+        for (Map.Entry<String, String> statement : expected.entrySet()) {
+            if (actual.contains(statement.getKey())) {
+                continue;
+            }
+            log.warn("그래프 스키마 불일치: {} 없음, 다시 생성", statement.getKey());
+            try {
+                session.run(statement.getValue()).consume();
+            } catch (Exception e) {
+                log.error("그래프 스키마 {} 재생성 실패: {}", statement.getKey(), e.getMessage());
+            }
+        }
+        for (String name : actual) {
+            if (!managed.contains(name)) {
+                log.info("그래프 스키마 관리 대상이 아닌 항목: {}", name);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Migration {
+        private int version;
+        private String description;
+        // 이름 → 생성 구문
+        private Map<String, String> statements;
+    }
+}
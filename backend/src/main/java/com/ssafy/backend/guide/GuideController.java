@@ -2,6 +2,7 @@ package com.ssafy.backend.guide;
 
 import com.ssafy.backend.auth.service.AuthService;
 import com.ssafy.backend.common.ApiResponse;
+import com.ssafy.backend.common.service.AudioCacheService;
 import com.ssafy.backend.common.error.exception.NotFoundPageException;
 import com.ssafy.backend.graph.model.entity.type.WeightType;
 import com.ssafy.backend.graph.service.DataCollectingService;
@@ -28,6 +29,7 @@ public class GuideController {
     private final DataCollectingService dataCollectingService;
     private final DataGenerator generator;
     private final FFmpegTestService ffmpegTestService;
+    private final AudioCacheService audioCacheService;
 
 
     @GetMapping("/one")
@@ -82,6 +84,16 @@ public class GuideController {
                 .build();
     }
 
+    /**
+     * 음원 로컬 캐시 적중/미스/제거 통계
+     */
+    @GetMapping("/cache/audio")
+    public ApiResponse<?> audioCacheStats() {
+        return new ApiResponse.builder<Object>()
+                .payload(audioCacheService.getStats())
+                .build();
+    }
+
     @GetMapping("/error")
     public void except(){
         throw new NotFoundPageException();
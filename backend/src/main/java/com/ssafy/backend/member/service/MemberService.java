@@ -358,6 +358,9 @@ public class MemberService {
                     .imageUrl(track.getImageUrl())
                     .key(track.getKey())
                     .bpm(track.getBpm())
+                    .loudnessLufs(track.getLoudnessLufs())
+                    .truePeakDbtp(track.getTruePeakDbtp())
+                    .gainDb(track.getGainDb())
                     .build();
 
             trackInfoList.add(trackInfo);
@@ -407,6 +410,9 @@ public class MemberService {
                     .imageUrl(track.getImageUrl())
                     .key(track.getKey())
                     .bpm(track.getBpm())
+                    .loudnessLufs(track.getLoudnessLufs())
+                    .truePeakDbtp(track.getTruePeakDbtp())
+                    .gainDb(track.getGainDb())
                     .build();
 
             trackInfoList.add(trackInfo);
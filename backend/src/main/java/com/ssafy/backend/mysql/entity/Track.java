@@ -38,6 +38,26 @@ public class Track extends Common{
     @Column(name = "sound_url", nullable = false)
     private String soundUrl;
 
+    // 업로드 후처리로 생성된 HLS master 플레이리스트 (없으면 soundUrl로 재생)
+    @Column(name = "hls_url")
+    private String hlsUrl;
+
+    // 업로드 후처리로 생성된 파형(peak) 데이터
+    @Column(name = "waveform_url")
+    private String waveformUrl;
+
+    // 업로드 후처리로 분석한 통합 라우드니스 (LUFS)
+    @Column(name = "loudness_lufs")
+    private Double loudnessLufs;
+
+    // 업로드 후처리로 분석한 트루 피크 (dBTP)
+    @Column(name = "true_peak_dbtp")
+    private Double truePeakDbtp;
+
+    // 재생 시 적용할 권장 게인 (dB)
+    @Column(name = "gain_db")
+    private Double gainDb;
+
     @Column(name = "image_url")
     private String imageUrl;
 
@@ -1,9 +1,60 @@
 package com.ssafy.backend.mysql.repository;
 
 import com.ssafy.backend.mysql.entity.LayerFile;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LayerFileRepository extends JpaRepository<LayerFile, Integer> {
+    Optional<LayerFile> findByContentHash(String contentHash);
+    List<LayerFile> findAllBySoundUrl(String soundUrl);
+
+    // 같은 해시의 행이 없으면 gap lock을 잡아 트랜잭션이 끝날 때까지 같은 해시의 insert를 막는다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lf FROM LayerFile lf WHERE lf.contentHash = :contentHash")
+    Optional<LayerFile> findByContentHashForUpdate(@Param("contentHash") String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lf FROM LayerFile lf WHERE lf.id = :id")
+    Optional<LayerFile> findByIdForUpdate(@Param("id") int id);
+
+    @Query("SELECT lf.refCount FROM LayerFile lf WHERE lf.id = :id")
+    Integer findRefCountById(@Param("id") int id);
+
+    // 없으면 참조 수 1로 생성, 있으면 참조 수만 증가 (참조가 모두 사라졌던 행은 새로 올린 음원 URL로 교체)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO layer_file (sound_url, content_hash, ref_count, created_at) " +
+                   "VALUES (:soundUrl, :contentHash, 1, :createdAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "sound_url = IF(IFNULL(ref_count, 1) > 0, sound_url, VALUES(sound_url)), " +
+                   "ref_count = IFNULL(ref_count, 1) + 1", nativeQuery = true)
+    int upsertRef(@Param("soundUrl") String soundUrl, @Param("contentHash") String contentHash,
+                  @Param("createdAt") String createdAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE LayerFile lf SET lf.refCount = lf.refCount - 1 WHERE lf.id = :id AND lf.refCount > 0")
+    int decrementRefCount(@Param("id") int id);
+
+    // 후처리 결과 컬럼만 갱신 (null은 기존 값 유지, 참조 수 / 음원 URL은 건드리지 않음)
+    @Transactional
+    @Modifying
+    @Query("UPDATE LayerFile lf SET " +
+           "lf.hlsUrl = COALESCE(:hlsUrl, lf.hlsUrl), " +
+           "lf.waveformUrl = COALESCE(:waveformUrl, lf.waveformUrl), " +
+           "lf.loudnessLufs = COALESCE(:loudnessLufs, lf.loudnessLufs), " +
+           "lf.truePeakDbtp = COALESCE(:truePeakDbtp, lf.truePeakDbtp), " +
+           "lf.gainDb = COALESCE(:gainDb, lf.gainDb) " +
+           "WHERE lf.id = :id")
+    int updateArtifacts(@Param("id") int id, @Param("hlsUrl") String hlsUrl, @Param("waveformUrl") String waveformUrl,
+                        @Param("loudnessLufs") Double loudnessLufs, @Param("truePeakDbtp") Double truePeakDbtp,
+                        @Param("gainDb") Double gainDb);
 }
@@ -17,6 +17,8 @@ public interface TrackRepository extends JpaRepository<Track, Integer> {
     List<Track> findByMemberIdAndVisibility(int memberId, boolean visibility, PageRequest pageRequest);
     List<Track> findByMemberId(int memberId, PageRequest pageRequest);
     int countByMemberId(int memberId);
+    boolean existsBySoundUrl(String soundUrl);
+    List<Track> findAllBySoundUrl(String soundUrl);
 
     @Query(value = "SELECT t.* FROM track t WHERE t.track_id NOT IN " +
                    "(SELECT lr.track_id FROM listen_record lr WHERE lr.member_id = :memberId) " +
@@ -4,6 +4,7 @@ import com.ssafy.backend.common.ApiResponse;
 import com.ssafy.backend.common.FilterApiResponse;
 import com.ssafy.backend.common.error.exception.MissingParameterException;
 import com.ssafy.backend.graph.service.DataCollectingService;
+import com.ssafy.backend.graph.service.NodeService;
 import com.ssafy.backend.openl3.dto.SimilarCallbackDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,7 @@ import java.util.List;
 public class Openl3CallbackController {
 
     private final DataCollectingService dataCollectingService;
+    private final NodeService nodeService;
 
     @PostMapping("/similar/callback/{id}")
     public ApiResponse<?> handleCallback(@PathVariable int id, @RequestBody FilterApiResponse<List<SimilarCallbackDto>> request) {
@@ -38,6 +40,9 @@ public class Openl3CallbackController {
             }
         }
 
+        // 임베딩이 새로 만들어졌으므로 다음 증분 재구성 때 이웃 목록을 다시 계산
+        nodeService.markTrackSimilarityDirty(id);
+
         return new ApiResponse.builder<Object>()
                 .payload(null)
                 .build();
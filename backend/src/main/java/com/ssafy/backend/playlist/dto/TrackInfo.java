@@ -17,4 +17,7 @@ public class TrackInfo {
     private String imageUrl;
     private String key;
     private int bpm;
+    private Double loudnessLufs;
+    private Double truePeakDbtp;
+    private Double gainDb;
 }
@@ -145,6 +145,9 @@ public class PlaylistService {
                                     .imageUrl(playlistTrack.getTrack().getImageUrl())
                                     .key(playlistTrack.getTrack().getKey())
                                     .bpm(playlistTrack.getTrack().getBpm())
+                                    .loudnessLufs(playlistTrack.getTrack().getLoudnessLufs())
+                                    .truePeakDbtp(playlistTrack.getTrack().getTruePeakDbtp())
+                                    .gainDb(playlistTrack.getTrack().getGainDb())
                                     .build()
                             )
                             .build()
@@ -1,20 +1,27 @@
 package com.ssafy.backend.track.controller;
 
+import com.ssafy.backend.audio.service.AudioWaveformService;
+import com.ssafy.backend.audio.service.HlsPlaylistService;
 import com.ssafy.backend.auth.service.AuthService;
 import com.ssafy.backend.common.ApiResponse;
+import com.ssafy.backend.common.service.AudioStreamService;
 import com.ssafy.backend.track.dto.request.*;
+import com.ssafy.backend.track.dto.response.PlayUrlResponseDto;
 import com.ssafy.backend.track.service.TrackCommentService;
 import com.ssafy.backend.track.service.TrackService;
 import com.ssafy.backend.workstation.service.WorkstationService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * <pre>Track 컨트롤러</pre>
@@ -31,6 +38,7 @@ public class TrackController {
     private final TrackCommentService trackCommentService;
     private final AuthService authService;
     private final WorkstationService workstationService;
+    private final AudioStreamService audioStreamService;
 
 
     @GetMapping()
@@ -64,14 +72,46 @@ public class TrackController {
                 .build();
     }
 
+    /**
+     * 트랙 재생 (원본 스트리밍)
+     * hls=true이면 HLS 변환이 끝난 음원은 HLS 플레이리스트로 이동시킨다. (변환 전이거나 Range 요청이면 원본 스트리밍)
+     */
     @GetMapping("/play")
-    public ResponseEntity<Resource> trackPlay(int trackId) {
-        byte[] file = trackService.trackPlay(trackId);
-        ByteArrayResource resource = new ByteArrayResource(file);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("audio/wav"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audio.wav\"")
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> trackPlay(int trackId, @RequestParam(defaultValue = "false") boolean hls,
+                                                           @RequestHeader HttpHeaders headers) {
+        if (hls && !headers.containsKey(HttpHeaders.RANGE)) {
+            Optional<String> hlsUrl = trackService.trackHlsPlayUrl(trackId);
+            if (hlsUrl.isPresent()) {
+                return hlsRedirect(hlsUrl.get());
+            }
+        }
+        return audioStreamService.stream(trackService.trackPlay(trackId), headers);
+    }
+
+    /**
+     * 트랙 음원 Presigned URL 발급
+     * redirect=true이면 302로 S3 URL로 바로 이동시킨다
+     */
+    @GetMapping("/play/url")
+    public ResponseEntity<?> trackPlayUrl(int trackId, @RequestParam(defaultValue = "false") boolean redirect) {
+        return playUrlResponse(trackService.trackPlayUrl(trackId), redirect);
+    }
+
+    /**
+     * 트랙 HLS 플레이리스트
+     * variant 없이 요청하면 master, variant를 지정하면 세그먼트 Presigned URL이 들어간 비트레이트별 플레이리스트
+     */
+    @GetMapping("/play/hls")
+    public ResponseEntity<String> trackHls(int trackId, @RequestParam(required = false) String variant) {
+        return hlsResponse(trackService.trackHlsPlaylist(trackId, variant));
+    }
+
+    /**
+     * 트랙 파형(peak) 데이터 조회
+     */
+    @GetMapping("/waveform")
+    public ResponseEntity<byte[]> trackWaveform(int trackId, @RequestHeader HttpHeaders headers) {
+        return audioStreamService.immutable(trackService.trackWaveform(trackId), AudioWaveformService.CONTENT_TYPE, headers);
     }
 
     @PostMapping("/play")
@@ -90,13 +130,57 @@ public class TrackController {
     }
 
     @GetMapping("/layer/play")
-    public ResponseEntity<Resource> layerPlay(int layerId) {
-        byte[] file = trackService.layerPlay(layerId);
-        ByteArrayResource resource = new ByteArrayResource(file);
+    public ResponseEntity<StreamingResponseBody> layerPlay(int layerId, @RequestParam(defaultValue = "false") boolean hls,
+                                                           @RequestHeader HttpHeaders headers) {
+        if (hls && !headers.containsKey(HttpHeaders.RANGE)) {
+            Optional<String> hlsUrl = trackService.layerHlsPlayUrl(layerId);
+            if (hlsUrl.isPresent()) {
+                return hlsRedirect(hlsUrl.get());
+            }
+        }
+        return audioStreamService.stream(trackService.layerPlay(layerId), headers);
+    }
+
+    @GetMapping("/layer/play/url")
+    public ResponseEntity<?> layerPlayUrl(int layerId, @RequestParam(defaultValue = "false") boolean redirect) {
+        return playUrlResponse(trackService.layerPlayUrl(layerId), redirect);
+    }
+
+    @GetMapping("/layer/play/hls")
+    public ResponseEntity<String> layerHls(int layerId, @RequestParam(required = false) String variant) {
+        return hlsResponse(trackService.layerHlsPlaylist(layerId, variant));
+    }
+
+    @GetMapping("/layer/waveform")
+    public ResponseEntity<byte[]> layerWaveform(int layerId, @RequestHeader HttpHeaders headers) {
+        return audioStreamService.immutable(trackService.layerWaveform(layerId), AudioWaveformService.CONTENT_TYPE, headers);
+    }
+
+    private <T> ResponseEntity<T> hlsRedirect(String hlsUrl) {
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(hlsUrl))
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    private ResponseEntity<String> hlsResponse(String playlist) {
+        // variant 플레이리스트에는 만료되는 서명 URL이 들어 있으므로 저장하지 않음
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("audio/wav"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audio.wav\"")
-                .body(resource);
+                .contentType(MediaType.parseMediaType(HlsPlaylistService.CONTENT_TYPE))
+                .cacheControl(CacheControl.noStore())
+                .body(playlist);
+    }
+
+    private ResponseEntity<?> playUrlResponse(PlayUrlResponseDto playUrl, boolean redirect) {
+        if (redirect) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(playUrl.getUrl()))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+        return new ApiResponse.builder<Object>()
+                .payload(playUrl)
+                .build();
     }
 
     @PostMapping("/like")
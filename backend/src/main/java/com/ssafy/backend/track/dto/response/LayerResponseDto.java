@@ -12,4 +12,5 @@ public class LayerResponseDto {
     int layerId;
     String name;
     int instrumentType;
+    String hlsUrl;
 }
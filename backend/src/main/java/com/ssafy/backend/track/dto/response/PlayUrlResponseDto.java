@@ -0,0 +1,16 @@
+package com.ssafy.backend.track.dto.response;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlayUrlResponseDto {
+    String url;
+    long expiresIn;
+    // HLS 변환이 끝난 경우에만 존재 (권한 확인 후 플레이리스트를 내려주는 API, 있으면 우선 재생)
+    String hlsUrl;
+}
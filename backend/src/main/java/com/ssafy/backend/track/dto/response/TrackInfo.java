@@ -13,4 +13,7 @@ public class TrackInfo {
     String title;
     int duration;
     String imageUrl;
+    Double loudnessLufs;
+    Double truePeakDbtp;
+    Double gainDb;
 }
@@ -16,6 +16,10 @@ public class TrackResponseDto {
     String description;
     int duration;
     String imageUrl;
+    String hlsUrl;
+    Double loudnessLufs;
+    Double truePeakDbtp;
+    Double gainDb;
     ArtistInfoDto artist;
     Boolean isLiked;
     Integer importCount;
@@ -1,6 +1,9 @@
 package com.ssafy.backend.track.service;
 
+import com.ssafy.backend.audio.event.LayerFilesReleasedEvent;
+import com.ssafy.backend.audio.service.HlsPlaylistService;
 import com.ssafy.backend.auth.service.AuthService;
+import com.ssafy.backend.common.error.exception.NotFoundException;
 import com.ssafy.backend.common.error.exception.NotFoundLayerException;
 import com.ssafy.backend.common.error.exception.NotFoundMemberException;
 import com.ssafy.backend.common.error.exception.TrackNotFoundException;
@@ -17,14 +20,22 @@ import com.ssafy.backend.track.dto.request.TrackUploadRequestDto;
 import com.ssafy.backend.track.dto.response.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +54,7 @@ public class TrackService {
     private final TrackRepository trackRepository;
     private final TrackTagRepository trackTagRepository;
     private final LayerRepository layerRepository;
+    private final LayerFileRepository layerFileRepository;
     private final LikeRepository likeRepository;
     private final SamplingRepository samplingRepository;
     private final ReportRepository reportRepository;
@@ -51,35 +63,228 @@ public class TrackService {
 
     private final DataCollectingService dataCollectingService;
     private final S3Service s3Service;
+    private final HlsPlaylistService hlsPlaylistService;
 
     private final AuthService authService;
     private final NodeService nodeService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${S3_PRESIGN_EXPIRE_SECONDS:300}")
+    private long presignExpireSeconds;
+
+    @Value("${BACKEND_HOST}")
+    private String BACKEND_HOST;
 
 
     /**
-     * 트랙 음원 데이터를 반환
+     * 트랙 음원의 S3 키를 반환
+     * 음원 데이터는 AudioStreamService를 통해 스트리밍
      *
      * @param trackId 반환할 음원의 트랙 id
-     * @return byte[] 형식의 음원 데이터
+     * @return S3 파일 키 (폴더/파일명)
+     */
+    public String trackPlay(int trackId) {
+        return S3FileKeyExtractor.extractS3FileKey(findPlayableTrack(trackId).getSoundUrl());
+    }
+
+    /**
+     * 레이어 음원의 S3 키를 반환
+     *
+     * @param layerId 반환할 음원의 레이어 id
+     * @return S3 파일 키 (폴더/파일명)
+     */
+    @Transactional(readOnly = true)
+    public String layerPlay(int layerId) {
+        return S3FileKeyExtractor.extractS3FileKey(findPlayableLayer(layerId).getLayerFile().getSoundUrl());
+    }
+
+    /**
+     * 트랙 음원의 Presigned URL 발급
+     * 권한 검사 후 S3에서 직접 내려받을 수 있는 단기 URL을 반환
+     * HLS 변환이 끝난 음원은 hlsUrl(권한 확인 후 플레이리스트를 내려주는 API)을 함께 반환하며, 클라이언트는 hlsUrl을 우선 재생한다.
+     *
+     * @param trackId 재생할 트랙 id
+     * @return 서명 URL과 유효 시간(초), HLS 플레이리스트 URL
+     */
+    public PlayUrlResponseDto trackPlayUrl(int trackId) {
+        Track track = findPlayableTrack(trackId);
+        return presignPlayUrl(S3FileKeyExtractor.extractS3FileKey(track.getSoundUrl()), trackHlsUrl(track));
+    }
+
+    /**
+     * 레이어 음원의 Presigned URL 발급
+     *
+     * @param layerId 재생할 레이어 id
+     * @return 서명 URL과 유효 시간(초), HLS 플레이리스트 URL
+     */
+    @Transactional(readOnly = true)
+    public PlayUrlResponseDto layerPlayUrl(int layerId) {
+        Layer layer = findPlayableLayer(layerId);
+        return presignPlayUrl(S3FileKeyExtractor.extractS3FileKey(layer.getLayerFile().getSoundUrl()), layerHlsUrl(layer));
+    }
+
+    /**
+     * 트랙 HLS 플레이리스트
+     * S3의 HLS 결과는 비공개이므로 권한 확인 후 세그먼트를 Presigned URL로 바꾼 플레이리스트를 내려준다.
+     *
+     * @param trackId 재생할 트랙 id
+     * @param variant 비트레이트 폴더명, null이면 master 플레이리스트
+     * @return m3u8 플레이리스트
+     */
+    public String trackHlsPlaylist(int trackId, String variant) {
+        return hlsPlaylistService.playlist(findPlayableTrack(trackId).getHlsUrl(), variant,
+                name -> "hls?trackId=" + trackId + "&variant=" + name);
+    }
+
+    /**
+     * 레이어 HLS 플레이리스트
+     *
+     * @param layerId 재생할 레이어 id
+     * @param variant 비트레이트 폴더명, null이면 master 플레이리스트
+     * @return m3u8 플레이리스트
+     */
+    @Transactional(readOnly = true)
+    public String layerHlsPlaylist(int layerId, String variant) {
+        return hlsPlaylistService.playlist(findPlayableLayer(layerId).getLayerFile().getHlsUrl(), variant,
+                name -> "hls?layerId=" + layerId + "&variant=" + name);
+    }
+
+    /**
+     * 트랙 기본 재생 경로 (HLS 변환이 끝났으면 플레이리스트 API URL)
+     *
+     * @param trackId 재생할 트랙 id
+     * @return HLS 플레이리스트 API URL, 변환 전이면 empty (원본 스트리밍)
+     */
+    public Optional<String> trackHlsPlayUrl(int trackId) {
+        return Optional.ofNullable(trackHlsUrl(findPlayableTrack(trackId)));
+    }
+
+    /**
+     * 레이어 기본 재생 경로 (HLS 변환이 끝났으면 플레이리스트 API URL)
+     *
+     * @param layerId 재생할 레이어 id
+     * @return HLS 플레이리스트 API URL, 변환 전이면 empty (원본 스트리밍)
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> layerHlsPlayUrl(int layerId) {
+        return Optional.ofNullable(layerHlsUrl(findPlayableLayer(layerId)));
+    }
+
+    /**
+     * 음원 URL을 Presigned URL로 변환
+     * 음원 객체는 비공개이므로 응답에 원본 URL 대신 단기 서명 URL을 담는다. (권한 검사는 호출하는 쪽에서 수행)
+     *
+     * @param soundUrl 저장된 음원 URL
+     * @return 서명 URL, 음원이 없으면 null
+     */
+    public String presignSoundUrl(String soundUrl) {
+        if (soundUrl == null) {
+            return null;
+        }
+        return s3Service.presignGetUrl(S3FileKeyExtractor.extractS3FileKey(soundUrl), Duration.ofSeconds(presignExpireSeconds));
+    }
+
+    /**
+     * 트랙 HLS 플레이리스트 API URL
+     *
+     * @return HLS 변환 전이면 null
+     */
+    public String trackHlsUrl(Track track) {
+        return track.getHlsUrl() != null ? BACKEND_HOST + "/api/track/play/hls?trackId=" + track.getId() : null;
+    }
+
+    /**
+     * 레이어 HLS 플레이리스트 API URL
+     *
+     * @return HLS 변환 전이면 null
+     */
+    public String layerHlsUrl(Layer layer) {
+        return layer.getLayerFile() != null && layer.getLayerFile().getHlsUrl() != null
+                ? BACKEND_HOST + "/api/track/layer/play/hls?layerId=" + layer.getId() : null;
+    }
+
+    /**
+     * 트랙 파형 데이터의 S3 키를 반환
+     *
+     * @param trackId 트랙 id
+     * @return S3 파일 키, 후처리가 끝나지 않았으면 NotFoundException
+     */
+    public String trackWaveform(int trackId) {
+        return waveformKey(findPlayableTrack(trackId).getWaveformUrl());
+    }
+
+    /**
+     * 레이어 파형 데이터의 S3 키를 반환
+     *
+     * @param layerId 레이어 id
+     * @return S3 파일 키, 후처리가 끝나지 않았으면 NotFoundException
+     */
+    @Transactional(readOnly = true)
+    public String layerWaveform(int layerId) {
+        return waveformKey(findPlayableLayer(layerId).getLayerFile().getWaveformUrl());
+    }
+
+    private String waveformKey(String waveformUrl) {
+        if (waveformUrl == null) {
+            throw new NotFoundException();
+        }
+        return S3FileKeyExtractor.extractS3FileKey(waveformUrl);
+    }
+
+    private PlayUrlResponseDto presignPlayUrl(String key, String hlsUrl) {
+        return PlayUrlResponseDto.builder()
+                .url(s3Service.presignGetUrl(key, Duration.ofSeconds(presignExpireSeconds)))
+                .expiresIn(presignExpireSeconds)
+                .hlsUrl(hlsUrl)
+                .build();
+    }
+
+    /**
+     * 재생 권한이 있는 트랙 조회
+     *
+     * @param trackId 트랙 id
+     * @return 트랙 (비공개 트랙은 작성자만 조회 가능)
      */
-    public byte[] trackPlay(int trackId) {
+    public Track findPlayableTrack(int trackId) {
         Track track = trackRepository.findById(trackId).orElseThrow(
                 () -> {
                     log.warn("Track id {} not found", trackId);
                     return new TrackNotFoundException("Track not found");
                 }
         );
-        return s3Service.downloadFile(S3FileKeyExtractor.extractS3FileKey(track.getSoundUrl()));
+        checkPlayable(track);
+        return track;
     }
 
-    public byte[] layerPlay(int layerId) {
+    /**
+     * 재생 권한이 있는 레이어 조회
+     *
+     * @param layerId 레이어 id
+     * @return 레이어 (비공개 트랙의 레이어는 작성자만 조회 가능)
+     */
+    public Layer findPlayableLayer(int layerId) {
         Layer layer = layerRepository.findById(layerId).orElseThrow(
                 () -> {
                     log.warn("Layer id {} not found", layerId);
                     return new NotFoundLayerException();
                 }
         );
-        return s3Service.downloadFile(S3FileKeyExtractor.extractS3FileKey(layer.getLayerFile().getSoundUrl()));
+        checkPlayable(layer.getTrack());
+        return layer;
+    }
+
+    /**
+     * 재생 권한 확인
+     * 비공개 트랙은 작성자 본인만 재생할 수 있다 (트랙 조회와 동일한 규칙)
+     */
+    private void checkPlayable(Track track) {
+        if (!track.getVisibility()) {
+            int memberId = authService.getMember().getId();
+            if (track.getMember().getId() != memberId) {
+                log.info("{}번 트랙은 {}번 회원이 재생할 수 없는 데이터", track.getId(), memberId);
+                throw new TrackNotFoundException("");
+            }
+        }
     }
 
 
@@ -131,6 +336,9 @@ public class TrackService {
                     .title(sampling.getOriginTrack().getTitle())
                     .duration(sampling.getOriginTrack().getDuration())
                     .imageUrl(sampling.getOriginTrack().getImageUrl())
+                    .loudnessLufs(sampling.getOriginTrack().getLoudnessLufs())
+                    .truePeakDbtp(sampling.getOriginTrack().getTruePeakDbtp())
+                    .gainDb(sampling.getOriginTrack().getGainDb())
                     .build());
         });
         // 임포트해간 트랙들
@@ -141,6 +349,9 @@ public class TrackService {
                     .title(sampling.getTrack().getTitle())
                     .duration(sampling.getTrack().getDuration())
                     .imageUrl(sampling.getTrack().getImageUrl())
+                    .loudnessLufs(sampling.getTrack().getLoudnessLufs())
+                    .truePeakDbtp(sampling.getTrack().getTruePeakDbtp())
+                    .gainDb(sampling.getTrack().getGainDb())
                     .build());
         });
 
@@ -160,6 +371,10 @@ public class TrackService {
                 .duration(track.getDuration())
                 .description(track.getDescription())
                 .imageUrl(track.getImageUrl())
+                .loudnessLufs(track.getLoudnessLufs())
+                .truePeakDbtp(track.getTruePeakDbtp())
+                .gainDb(track.getGainDb())
+                .hlsUrl(trackHlsUrl(track))
                 .bpm(track.getBpm())
                 .key(track.getKey())
                 .artist(ArtistInfoDto.builder().memberId(track.getMember().getId()).nickname(track.getMember().getNickname()).profileImage(track.getMember().getProfileImage()).build())
@@ -243,10 +458,65 @@ public class TrackService {
         // soft delete
         track.setEnabled(false);
         trackRepository.save(track);
+        releaseLayerFiles(trackId);
 
         nodeService.deleteTrackNode(trackId);
     }
 
+    /**
+     * 삭제된 트랙의 레이어 파일 참조 해제
+     * 참조가 모두 사라진 레이어 파일은 커밋 후 음원을 지우도록 이벤트로 넘긴다.
+     * (롤백되면 참조 수와 함께 음원도 그대로 남는다)
+     *
+     * @param trackId 삭제된 트랙 ID
+     */
+    private void releaseLayerFiles(int trackId) {
+        List<Integer> releasedIds = new ArrayList<>();
+        for (Layer layer : layerRepository.findAllByTrackId(trackId)) {
+            LayerFile layerFile = layer.getLayerFile();
+            if (layerFile == null || layerFileRepository.decrementRefCount(layerFile.getId()) == 0) {
+                continue;
+            }
+            Integer refCount = layerFileRepository.findRefCountById(layerFile.getId());
+            if (refCount != null && refCount == 0) {
+                releasedIds.add(layerFile.getId());
+            }
+        }
+        if (!releasedIds.isEmpty()) {
+            eventPublisher.publishEvent(new LayerFilesReleasedEvent(trackId, releasedIds));
+        }
+    }
+
+    /**
+     * 참조가 모두 사라진 레이어 음원 삭제 (트랙 삭제 커밋 후, best effort)
+     * 행을 잠그고 다시 확인해 그 사이 같은 음원이 다시 참조되었으면 남겨 둔다.
+     * 별도 스레드에서 실행하며 삭제 실패는 로그만 남겨 트랙 삭제 응답에는 영향을 주지 않는다.
+     * (HLS, 파형은 같은 음원을 쓰는 트랙과 공유할 수 있어 남겨 둔다)
+     *
+     * @param event 참조 해제 이벤트
+     */
+    @Async("audioTaskExecutor")
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLayerFilesReleased(LayerFilesReleasedEvent event) {
+        for (int layerFileId : event.getLayerFileIds()) {
+            Optional<LayerFile> layerFile = layerFileRepository.findByIdForUpdate(layerFileId);
+            if (layerFile.isEmpty() || !Integer.valueOf(0).equals(layerFile.get().getRefCount())) {
+                continue;
+            }
+            String soundUrl = layerFile.get().getSoundUrl();
+            if (trackRepository.existsBySoundUrl(soundUrl)) {
+                continue;
+            }
+            try {
+                s3Service.deleteFile(soundUrl);
+                log.info("참조가 없는 레이어 음원 삭제: {}", soundUrl);
+            } catch (RuntimeException e) {
+                log.warn("참조가 없는 레이어 음원 삭제 실패 (트랙 {}): {}, {}", event.getTrackId(), soundUrl, e.getMessage());
+            }
+        }
+    }
+
     /**
      * 15초 이상 들었을 시 그래프 반영
      * (Member)-[VIEW]->(Track)
@@ -269,6 +539,7 @@ public class TrackService {
             layerResponseDtoList.add(LayerResponseDto.builder()
                     .layerId(layer.getId())
                     .instrumentType(layer.getInstrumentType())
+                    .hlsUrl(layerHlsUrl(layer))
                     .name(layer.getName()).build());
         });
         return layerResponseDtoList;
@@ -391,7 +662,7 @@ public class TrackService {
                     .trackId(track.getId())
                     .nickname(track.getMember().getNickname())
                     .imageUrl(track.getImageUrl())
-                    .soundUrl(track.getSoundUrl())
+                    .soundUrl(presignSoundUrl(track.getSoundUrl()))
                     .duration(track.getDuration())
                     .build());
         }
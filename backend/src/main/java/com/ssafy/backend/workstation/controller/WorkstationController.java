@@ -5,6 +5,8 @@ import com.ssafy.backend.common.ApiResponse;
 import com.ssafy.backend.openl3.dto.AiRecommendRequestDto;
 import com.ssafy.backend.track.dto.request.TrackUploadRequestDto;
 import com.ssafy.backend.track.service.TrackService;
+import com.ssafy.backend.workstation.dto.request.MixdownRequestDto;
+import com.ssafy.backend.workstation.service.TrackUploadService;
 import com.ssafy.backend.workstation.service.WorkstationService;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
@@ -13,7 +15,12 @@ import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -31,13 +38,14 @@ import java.util.Map;
 public class WorkstationController {
     private final TrackService trackService;
     private final WorkstationService workstationService;
+    private final TrackUploadService trackUploadService;
     private final Neo4jContentRetrieverService neo4jContentRetrieverService;
 
     @PostMapping()
     public ApiResponse<?> createTrack(@ModelAttribute TrackUploadRequestDto trackUploadRequestDto) {
         log.info("⭐ Create new track ⭐ {}", trackUploadRequestDto.toString());
         return new ApiResponse.builder<Object>()
-                .payload(workstationService.createTrack(trackUploadRequestDto))
+                .payload(trackUploadService.publishTrack(trackUploadRequestDto))
                 .build();
     }
 
@@ -48,6 +56,27 @@ public class WorkstationController {
                 .build();
     }
 
+    /**
+     * 트랙 임포트 묶음 다운로드 (원본 + 레이어 음원 + manifest.json ZIP)
+     */
+    @GetMapping("/import/bundle")
+    public ResponseEntity<StreamingResponseBody> importBundle(int trackId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"track-" + trackId + ".zip\"")
+                .body(workstationService.importBundle(trackId));
+    }
+
+    /**
+     * 레이어 믹스다운 결과 스트리밍 (WAV)
+     */
+    @PostMapping("/mixdown")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> mixdown(@RequestBody MixdownRequestDto mixdownRequestDto,
+                                                                         @RequestHeader HttpHeaders headers) {
+        log.info("⭐ Mixdown ⭐ {}", mixdownRequestDto);
+        return workstationService.mixdown(mixdownRequestDto, headers);
+    }
+
     @PostMapping("/ai/recommend")
     public ApiResponse<?> recommendImportTrack(@RequestBody AiRecommendRequestDto requset) {
 
@@ -0,0 +1,29 @@
+package com.ssafy.backend.workstation.dto;
+
+import com.ssafy.backend.common.service.S3Service;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * <pre>트랙 업로드 시 S3에 먼저 올린 파일 URL</pre>
+ *
+ * @author 박병주
+ * @version 1.0
+ * @since 2025-04-19
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TrackUploadFiles {
+    String imageUrl;
+    String soundUrl;
+    List<String> layerSoundUrls;
+    // 레이어 음원 내용 SHA-256 (layerSoundUrls와 같은 순서)
+    List<String> layerContentHashes;
+    // 이번 요청에서 새로 만든 파일 (저장 실패 시 삭제 대상, 재사용한 파일은 제외)
+    List<S3Service.StoredFile> createdFiles;
+}
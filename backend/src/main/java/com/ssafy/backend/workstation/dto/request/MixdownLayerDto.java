@@ -0,0 +1,18 @@
+package com.ssafy.backend.workstation.dto.request;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MixdownLayerDto {
+    int layerId;
+    // 선형 배율 (없으면 1.0)
+    Float gain;
+    boolean mute;
+    // 시작 위치 (4/4박자 기준 마디 수)
+    int offsetBars;
+}
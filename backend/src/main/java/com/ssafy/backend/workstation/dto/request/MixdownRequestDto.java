@@ -0,0 +1,19 @@
+package com.ssafy.backend.workstation.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MixdownRequestDto {
+    // 마디 오프셋 계산용 BPM (없으면 첫 번째 레이어의 트랙 BPM)
+    Integer bpm;
+    List<MixdownLayerDto> layers;
+    // 레이어별 권장 게인(라우드니스 분석 결과)을 요청 게인에 더해 적용
+    boolean normalize;
+}
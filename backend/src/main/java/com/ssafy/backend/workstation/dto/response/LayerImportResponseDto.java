@@ -16,5 +16,9 @@ public class LayerImportResponseDto {
     String name;
     Integer instrumentType;
     String soundUrl;
+    String hlsUrl;
+    Double loudnessLufs;
+    Double truePeakDbtp;
+    Double gainDb;
     List<Integer> bars;
 }
@@ -15,6 +15,7 @@ public class TrackImportResponseDto {
     String title;
     String imageUrl;
     String soundUrl;
+    String hlsUrl;
     String key;
     int bpm;
     List<LayerImportResponseDto> layers;
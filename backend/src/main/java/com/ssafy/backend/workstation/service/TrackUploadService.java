@@ -0,0 +1,146 @@
+package com.ssafy.backend.workstation.service;
+
+import com.ssafy.backend.common.service.S3Service;
+import com.ssafy.backend.track.dto.request.TrackUploadRequestDto;
+import com.ssafy.backend.workstation.dto.TrackUploadFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * <pre>트랙 업로드 서비스</pre>
+ * 이미지, 원본 음원, 레이어 음원을 모두 동시에 S3에 올린 뒤 DB 트랜잭션을 시작한다.
+ * 업로드 중에는 DB 커넥션을 잡지 않고, 저장이 실패하면 올린 파일을 지운다.
+ * 음원은 내용 해시로 저장해 같은 파일(샘플링, 임포트한 레이어 등)은 다시 올리지 않는다.
+ *
+ * @author 박병주
+ * @version 1.1
+ * @since 2025-04-19
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrackUploadService {
+    private final S3Service s3Service;
+    private final WorkstationService workstationService;
+
+    /**
+     * 트랙 업로드
+     *
+     * @param trackUploadRequestDto 업로드 정보
+     * @return 생성된 트랙 ID
+     */
+    public int publishTrack(TrackUploadRequestDto trackUploadRequestDto) {
+        // 1. 파일 업로드 (트랜잭션 밖에서 병렬 처리)
+        TrackUploadFiles files = uploadFiles(trackUploadRequestDto);
+
+        // 2. DB 저장 (트랜잭션)
+        int trackId;
+        try {
+            trackId = workstationService.createTrack(trackUploadRequestDto, files);
+        } catch (RuntimeException e) {
+            discard(files.getCreatedFiles());
+            throw e;
+        }
+
+        // 3. 저장 완료 후 FastAPI로 음원 보내기
+        workstationService.uploadAndFindSimilar(trackUploadRequestDto.getTrackSoundFile().getResource(), trackId,
+                trackUploadRequestDto.getInstrumentType(), 10);
+        return trackId;
+    }
+
+    /**
+     * 모든 파일을 동시에 업로드하고 전부 끝날 때까지 대기
+     * 음원은 내용 해시를 키로 저장해 이미 있는 파일은 다시 올리지 않는다.
+     * 하나라도 실패하면 새로 올린 파일을 지우고 실패 원인을 던진다.
+     */
+    private TrackUploadFiles uploadFiles(TrackUploadRequestDto trackUploadRequestDto) {
+        CompletableFuture<S3Service.StoredFile> image = trackUploadRequestDto.getTrackImg() != null
+                ? start(() -> s3Service.uploadFileAsync(trackUploadRequestDto.getTrackImg(), S3Service.IMAGE)
+                        .thenApply(url -> new S3Service.StoredFile(url, null, true)))
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<S3Service.StoredFile> sound = start(() ->
+                s3Service.uploadContentAddressedAsync(trackUploadRequestDto.getTrackSoundFile(), S3Service.MUSIC));
+        List<CompletableFuture<S3Service.StoredFile>> layers = new ArrayList<>();
+        MultipartFile[] layerSoundFiles = trackUploadRequestDto.getLayerSoundFiles();
+        for (int i = 0; i < trackUploadRequestDto.getLayerName().length; i++) {
+            MultipartFile layerSoundFile = layerSoundFiles[i];
+            layers.add(start(() -> s3Service.uploadContentAddressedAsync(layerSoundFile, S3Service.MUSIC)));
+        }
+
+        List<CompletableFuture<S3Service.StoredFile>> all = new ArrayList<>(layers);
+        all.add(image);
+        all.add(sound);
+        try {
+            CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            discard(createdFiles(all.stream()
+                    .filter(future -> !future.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .toList()));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        List<S3Service.StoredFile> layerFiles = layers.stream().map(CompletableFuture::join).toList();
+        List<S3Service.StoredFile> stored = all.stream().map(CompletableFuture::join).toList();
+        return TrackUploadFiles.builder()
+                .imageUrl(image.join() != null ? image.join().getUrl() : null)
+                .soundUrl(sound.join().getUrl())
+                .layerSoundUrls(layerFiles.stream().map(S3Service.StoredFile::getUrl).toList())
+                .layerContentHashes(layerFiles.stream().map(S3Service.StoredFile::getContentHash).toList())
+                .createdFiles(createdFiles(stored))
+                .build();
+    }
+
+    /**
+     * 업로드 시작 (확장자 검사 실패 등도 다른 업로드와 같이 처리하도록 실패한 future로 반환)
+     */
+    private CompletableFuture<S3Service.StoredFile> start(Supplier<CompletableFuture<S3Service.StoredFile>> upload) {
+        try {
+            return upload.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private List<S3Service.StoredFile> createdFiles(List<S3Service.StoredFile> files) {
+        // 같은 내용의 파일은 URL이 같으므로 한 번만 남긴다
+        Map<String, S3Service.StoredFile> created = new LinkedHashMap<>();
+        files.stream()
+                .filter(Objects::nonNull)
+                .filter(S3Service.StoredFile::isCreated)
+                .forEach(file -> created.putIfAbsent(file.getUrl(), file));
+        return new ArrayList<>(created.values());
+    }
+
+    /**
+     * 업로드 취소
+     * 내용 기반 키는 동시에 올라온 다른 트랙이 참조할 수 있으므로, 레이어 파일 행을 잠근 트랜잭션에서 참조가 없을 때만 지운다.
+     */
+    private void discard(List<S3Service.StoredFile> files) {
+        for (S3Service.StoredFile file : files) {
+            try {
+                if (file.getContentHash() != null) {
+                    workstationService.discardUploadedSound(file.getUrl(), file.getContentHash());
+                } else {
+                    s3Service.deleteFile(file.getUrl());
+                }
+            } catch (RuntimeException e) {
+                log.warn("업로드 취소 파일 삭제 실패: {}", file.getUrl());
+            }
+        }
+    }
+}
@@ -1,30 +1,62 @@
 package com.ssafy.backend.workstation.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssafy.backend.audio.event.AudioUploadedEvent;
+import com.ssafy.backend.audio.service.AudioMixdownService;
+import com.ssafy.backend.audio.util.WavUtils;
 import com.ssafy.backend.auth.service.AuthService;
+import com.ssafy.backend.common.error.exception.FileUploadFailedException;
+import com.ssafy.backend.common.error.exception.InvalidFormattedRequest;
 import com.ssafy.backend.common.error.exception.TrackNotFoundException;
+import com.ssafy.backend.common.service.AudioStreamService;
 import com.ssafy.backend.common.service.S3Service;
+import com.ssafy.backend.common.util.S3FileKeyExtractor;
+import com.ssafy.backend.common.util.ZipUtils;
 import com.ssafy.backend.graph.service.DataCollectingService;
 import com.ssafy.backend.mysql.entity.*;
 import com.ssafy.backend.mysql.repository.*;
 import com.ssafy.backend.track.dto.request.TrackUploadRequestDto;
+import com.ssafy.backend.track.service.TrackService;
+import com.ssafy.backend.workstation.dto.TrackUploadFiles;
+import com.ssafy.backend.workstation.dto.request.MixdownLayerDto;
+import com.ssafy.backend.workstation.dto.request.MixdownRequestDto;
 import com.ssafy.backend.workstation.dto.response.LayerImportResponseDto;
 import com.ssafy.backend.workstation.dto.response.TrackImportResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Service
@@ -38,8 +70,21 @@ public class WorkstationService {
 
     private final DataCollectingService dataCollectingService;
     private final S3Service s3Service;
+    private final AudioStreamService audioStreamService;
 
     private final AuthService authService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TrackService trackService;
+    private final AudioMixdownService audioMixdownService;
+
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_MIXDOWN_LAYERS = 32;
+    private static final String BUNDLE_MANIFEST = "manifest.json";
+    private static final int BUNDLE_BUFFER_SIZE = 64 * 1024;
+    private static final float MAX_MIXDOWN_GAIN = 4f;
+    private static final int MIN_MIXDOWN_BPM = 20;
+    private static final int MAX_MIXDOWN_BPM = 300;
 
     @Value("${BACKEND_HOST}")
     private String BACKEND_HOST;
@@ -48,12 +93,14 @@ public class WorkstationService {
     private String FASTAPI_HOST;
 
     /**
-     * 트랙의 업로드
+     * 트랙의 업로드 (DB 저장)
+     * 파일은 {@link TrackUploadService}에서 트랜잭션 밖에서 먼저 업로드한다.
      *
      * @param trackUploadRequestDto 업로드 정보
+     * @param files                 업로드된 파일 URL
      */
     @Transactional
-    public int createTrack(TrackUploadRequestDto trackUploadRequestDto) {
+    public int createTrack(TrackUploadRequestDto trackUploadRequestDto, TrackUploadFiles files) {
         Member m = authService.getMember();
         // 트랜젝션
         Member member = new Member();
@@ -64,10 +111,10 @@ public class WorkstationService {
                 .title(trackUploadRequestDto.getTitle()).description(trackUploadRequestDto.getDescription())
                 .member(member).blocked(false).duration(trackUploadRequestDto.getDuration()).visibility(trackUploadRequestDto.isVisibility())
                 .enabled(true).importCount(0).viewCount(0).likeCount(0)
-                // 1-1. 트랙 이미지 업로드(이미지 null 검사 처리)
-                .imageUrl(trackUploadRequestDto.getTrackImg() != null ? s3Service.uploadFile(trackUploadRequestDto.getTrackImg(), S3Service.IMAGE) : null)
-                // 1-2. 트랙 음성 업로드
-                .soundUrl(s3Service.uploadFile(trackUploadRequestDto.getTrackSoundFile(), S3Service.MUSIC))
+                // 1-1. 트랙 이미지
+                .imageUrl(files.getImageUrl())
+                // 1-2. 트랙 음성
+                .soundUrl(files.getSoundUrl())
                 .key(trackUploadRequestDto.getKey())
                 .bpm(trackUploadRequestDto.getBpm())
                 .build();
@@ -111,12 +158,12 @@ public class WorkstationService {
 
         // 2. 레이어 목록 저장
         int layerSize = trackUploadRequestDto.getLayerName().length;
+        List<Integer> layerFileIds = new ArrayList<>();
 
         for (int i = 0; i < layerSize; i++) {
-            // 2-1. 음성 업로드
-            LayerFile layerFile = new LayerFile();
-            layerFile.setSoundUrl(s3Service.uploadFile(trackUploadRequestDto.getLayerSoundFiles()[i], S3Service.MUSIC));
-            LayerFile lf = layerFileRepository.save(layerFile);
+            // 2-1. 음성 (같은 내용의 레이어 파일이 있으면 재사용)
+            LayerFile lf = findOrCreateLayerFile(files.getLayerSoundUrls().get(i), files.getLayerContentHashes().get(i));
+            layerFileIds.add(lf.getId());
             String list = null;
             if(trackUploadRequestDto.getBars() != null && trackUploadRequestDto.getBars().length > 0) {
                 list = listToStr(Arrays.stream(trackUploadRequestDto.getBars()[i])
@@ -134,17 +181,69 @@ public class WorkstationService {
             // 2-2. 레이어 정보 insert
             layerRepository.save(layer);
         }
-        // 저장 완료 후 FastAPI로 음원 보내기
-        uploadAndFindSimilar(trackUploadRequestDto.getTrackSoundFile().getResource(), t.getId(), trackUploadRequestDto.getInstrumentType(), 10);
+        // 3. 커밋 후 음원 후처리(HLS 변환) 시작
+        eventPublisher.publishEvent(new AudioUploadedEvent(t.getId(), layerFileIds));
         return t.getId();
     }
 
+    /**
+     * 내용 해시가 같은 레이어 파일은 참조 수만 늘려 재사용하고, 없으면 새로 만든다
+     * 증가와 생성을 한 문장(upsert)으로 처리해 같은 파일을 동시에 올려도 unique 제약에 걸리지 않는다.
+     * 이 트랜잭션이 유일한 참조면 다른 요청의 업로드 취소로 음원이 지워졌을 수 있으므로 S3에 있는지 확인한다.
+     *
+     * @param soundUrl    업로드된 음원 URL
+     * @param contentHash 음원 내용 SHA-256
+     * @return 레이어 파일
+     */
+    private LayerFile findOrCreateLayerFile(String soundUrl, String contentHash) {
+        layerFileRepository.upsertRef(soundUrl, contentHash, LocalDateTime.now().toString());
+        LayerFile layerFile = layerFileRepository.findByContentHash(contentHash).orElseThrow(IllegalStateException::new);
+        Integer refCount = layerFileRepository.findRefCountById(layerFile.getId());
+        if (refCount != null && refCount == 1
+                && !s3Service.exists(S3FileKeyExtractor.extractS3FileKey(layerFile.getSoundUrl()))) {
+            log.warn("레이어 음원이 삭제되어 저장 실패: {}", layerFile.getSoundUrl());
+            throw new FileUploadFailedException();
+        }
+        return layerFile;
+    }
+
+    /**
+     * 저장에 실패한 업로드의 내용 기반 음원 삭제
+     * 같은 해시의 레이어 파일 행을 잠가, 같은 내용을 저장 중인 트랜잭션이 있으면 끝날 때까지 기다린 뒤 참조가 없을 때만 지운다.
+     * 잠금은 커밋까지 유지되므로 삭제 도중 시작한 저장은 기다렸다가 S3 확인에서 실패한다.
+     *
+     * @param soundUrl    삭제할 음원 URL
+     * @param contentHash 음원 내용 SHA-256
+     */
+    @Transactional
+    public void discardUploadedSound(String soundUrl, String contentHash) {
+        Integer refCount = layerFileRepository.findByContentHashForUpdate(contentHash)
+                .map(LayerFile::getRefCount)
+                .orElse(0);
+        if (refCount == null || refCount > 0 || trackRepository.existsBySoundUrl(soundUrl)) {
+            log.info("다른 트랙이 참조하는 파일이라 삭제하지 않음: {}", soundUrl);
+            return;
+        }
+        s3Service.deleteFile(soundUrl);
+    }
+
     /**
      * 트랙 임포트
+     * 음원 객체는 비공개이므로 원본 / 레이어 음원 URL은 바로 내려받을 수 있는 Presigned URL로 반환한다.
      * @param trackId 임포트 대상 트랙 ID
      * @return 트랙 및 하위 레이어 정보
      */
     public TrackImportResponseDto importTrack(int trackId) {
+        return importTrack(trackId, trackService::presignSoundUrl);
+    }
+
+    /**
+     * 트랙 임포트 정보 조회
+     * @param trackId  임포트 대상 트랙 ID
+     * @param soundUrl 저장된 음원 URL을 응답에 담을 URL로 바꾸는 함수
+     * @return 트랙 및 하위 레이어 정보
+     */
+    private TrackImportResponseDto importTrack(int trackId, UnaryOperator<String> soundUrl) {
         // 임포트 가능 여부 검사
         Track track = trackRepository.findById(trackId).orElseThrow(
                 () -> new TrackNotFoundException("Track not found")
@@ -155,7 +254,8 @@ public class WorkstationService {
                 .title(track.getTitle())
                 .layers(new ArrayList<>())
                 .imageUrl(track.getImageUrl())
-                .soundUrl(track.getSoundUrl())
+                .soundUrl(soundUrl.apply(track.getSoundUrl()))
+                .hlsUrl(trackService.trackHlsUrl(track))
                 .key(track.getKey())
                 .bpm(track.getBpm())
                 .build();
@@ -173,12 +273,193 @@ public class WorkstationService {
                     .bars(bars)
                     .name(layer.getName())
                     .instrumentType(layer.getInstrumentType())
-                    .soundUrl(layer.getLayerFile().getSoundUrl())
+                    .soundUrl(soundUrl.apply(layer.getLayerFile().getSoundUrl()))
+                    .hlsUrl(trackService.layerHlsUrl(layer))
+                    .loudnessLufs(layer.getLayerFile().getLoudnessLufs())
+                    .truePeakDbtp(layer.getLayerFile().getTruePeakDbtp())
+                    .gainDb(layer.getLayerFile().getGainDb())
                     .build());
         }
         return trackImportResponseDto;
     }
 
+    /**
+     * 트랙 임포트 묶음 다운로드 (ZIP)
+     * 원본 트랙, 모든 레이어 음원, manifest.json을 하나의 ZIP으로 스트리밍한다.
+     * 음원은 재압축하지 않는 STORED 항목으로 기록한다.
+     * 헤더에 필요한 크기와 CRC는 업로드할 때 기록한 S3 메타데이터에서 읽어 S3 스트림을 그대로 전송한다.
+     * CRC가 없는 기존 객체만 임시 파일로 받아 CRC를 구한다. (재생 캐시에는 넣지 않음)
+     * 파일 하나라도 받지 못하면 ZIP을 마무리하지 않고 응답을 중단한다.
+     *
+     * @param trackId 임포트 대상 트랙 ID
+     * @return ZIP 응답 본문
+     */
+    public StreamingResponseBody importBundle(int trackId) {
+        trackService.findPlayableTrack(trackId);
+        // 묶음 안의 manifest에는 만료되는 서명 URL 대신 저장된 URL을 기록
+        TrackImportResponseDto trackImportResponseDto = importTrack(trackId, UnaryOperator.identity());
+
+        // 응답 스트림은 별도 스레드에서 쓰이므로 엔티티 조회는 미리 끝내둔다
+        List<BundleEntry> entries = new ArrayList<>();
+        Map<String, Object> files = new LinkedHashMap<>();
+        String masterName = "master." + extension(trackImportResponseDto.getSoundUrl());
+        entries.add(new BundleEntry(masterName, S3FileKeyExtractor.extractS3FileKey(trackImportResponseDto.getSoundUrl())));
+        files.put("master", masterName);
+
+        Map<Integer, String> layerFiles = new LinkedHashMap<>();
+        List<LayerImportResponseDto> layers = trackImportResponseDto.getLayers();
+        for (int i = 0; i < layers.size(); i++) {
+            LayerImportResponseDto layer = layers.get(i);
+            String name = String.format("layers/%02d_%s.%s", i + 1, safeFileName(layer.getName()), extension(layer.getSoundUrl()));
+            entries.add(new BundleEntry(name, S3FileKeyExtractor.extractS3FileKey(layer.getSoundUrl())));
+            layerFiles.put(layer.getLayerId(), name);
+        }
+        files.put("layers", layerFiles);
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("track", trackImportResponseDto);
+        manifest.put("files", files);
+        byte[] manifestBytes;
+        try {
+            manifestBytes = objectMapper.writeValueAsBytes(manifest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return outputStream -> {
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+            byte[] buffer = new byte[BUNDLE_BUFFER_SIZE];
+            ZipUtils.putStoredEntry(zip, BUNDLE_MANIFEST, manifestBytes);
+
+            for (BundleEntry entry : entries) {
+                Path temp = null;
+                try {
+                    HeadObjectResponse head = s3Service.headFile(entry.getKey());
+                    Long crc = s3Service.crc32(head);
+                    if (crc != null) {
+                        try (ResponseInputStream<GetObjectResponse> in = s3Service.getFileStream(entry.getKey(), null)) {
+                            ZipUtils.putStoredEntry(zip, entry.getName(), in, head.contentLength(), crc, buffer);
+                        }
+                    } else {
+                        temp = Files.createTempFile("bundle-", ".part");
+                        Files.delete(temp);
+                        ZipUtils.putStoredEntry(zip, entry.getName(), s3Service.downloadToFile(entry.getKey(), temp), buffer);
+                    }
+                } catch (RuntimeException e) {
+                    // 빠진 파일이 있는 ZIP이 정상 완료된 것처럼 보이지 않도록 응답을 중단한다
+                    log.error("임포트 묶음 파일 조회 실패: {}, {}", entry.getKey(), e.getMessage());
+                    throw new IOException("임포트 묶음 파일 조회 실패: " + entry.getName(), e);
+                } catch (ZipException e) {
+                    // 기록한 CRC / 크기와 S3 내용이 다름
+                    log.error("임포트 묶음 항목 검증 실패: {}, {}", entry.getKey(), e.getMessage());
+                    throw e;
+                } catch (IOException e) {
+                    log.debug("임포트 묶음 전송 중단: {}", e.getMessage());
+                    throw e;
+                } finally {
+                    if (temp != null) {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+            zip.finish();
+            zip.flush();
+        };
+    }
+
+    private String extension(String url) {
+        String extension = StringUtils.getFilenameExtension(url);
+        return extension != null ? extension : "wav";
+    }
+
+    private String safeFileName(String name) {
+        if (name == null || name.isBlank()) {
+            return "layer";
+        }
+        return name.replaceAll("[^\\p{L}\\p{N}._-]", "_");
+    }
+
+    /**
+     * 레이어 믹스다운
+     * 레이어별 게인/음소거/마디 오프셋을 적용해 하나의 WAV로 합친다. (같은 조합은 캐시 재사용)
+     * normalize 요청 시 업로드 때 분석한 레이어별 권장 게인을 함께 적용한다.
+     * 레이어 디코딩이 끝나면 응답을 시작해 합산 결과를 청크마다 바로 전송한다. (WAV 길이는 먼저 확정)
+     *
+     * @param mixdownRequestDto 믹스할 레이어 목록과 BPM
+     * @param headers           요청 헤더 (캐시 적중 시 Range 처리)
+     * @return 레이어 디코딩이 끝나면 완료되는 스트리밍 응답
+     */
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> mixdown(MixdownRequestDto mixdownRequestDto, HttpHeaders headers) {
+        List<MixdownLayerDto> layerDtos = mixdownRequestDto.getLayers();
+        if (layerDtos == null || layerDtos.isEmpty() || layerDtos.size() > MAX_MIXDOWN_LAYERS) {
+            throw new InvalidFormattedRequest();
+        }
+        Integer requestedBpm = mixdownRequestDto.getBpm();
+        if (requestedBpm != null && (requestedBpm < MIN_MIXDOWN_BPM || requestedBpm > MAX_MIXDOWN_BPM)) {
+            throw new InvalidFormattedRequest();
+        }
+
+        List<Layer> layers = new ArrayList<>();
+        for (MixdownLayerDto layerDto : layerDtos) {
+            float gain = layerDto.getGain() != null ? layerDto.getGain() : 1f;
+            if (layerDto.getOffsetBars() < 0 || gain < 0f || gain > MAX_MIXDOWN_GAIN) {
+                throw new InvalidFormattedRequest();
+            }
+            layers.add(trackService.findPlayableLayer(layerDto.getLayerId()));
+        }
+        // 요청 BPM이 없으면 첫 번째 레이어의 트랙 BPM (범위 밖의 값은 범위 안으로 맞춤)
+        int bpm = requestedBpm != null ? requestedBpm
+                : Math.max(MIN_MIXDOWN_BPM, Math.min(MAX_MIXDOWN_BPM, layers.get(0).getTrack().getBpm()));
+        // 4/4박자 기준 한 마디 길이
+        double secondsPerBar = 4 * 60.0 / bpm;
+
+        List<AudioMixdownService.MixdownInput> inputs = new ArrayList<>();
+        for (int i = 0; i < layers.size(); i++) {
+            MixdownLayerDto layerDto = layerDtos.get(i);
+            if (layerDto.isMute()) {
+                continue;
+            }
+            double offsetSeconds = layerDto.getOffsetBars() * secondsPerBar;
+            // 레이어 길이는 디코딩 후에 확인하므로 시작 위치부터 먼저 제한
+            if (offsetSeconds >= AudioMixdownService.MAX_MIX_SECONDS) {
+                throw new InvalidFormattedRequest();
+            }
+            LayerFile layerFile = layers.get(i).getLayerFile();
+            float gain = layerDto.getGain() != null ? layerDto.getGain() : 1f;
+            // 분석 전인 레이어는 요청 게인만 적용
+            if (mixdownRequestDto.isNormalize() && layerFile.getGainDb() != null) {
+                gain *= (float) Math.pow(10, layerFile.getGainDb() / 20);
+            }
+            inputs.add(new AudioMixdownService.MixdownInput(layerFile.getSoundUrl(), gain, offsetSeconds));
+        }
+        if (inputs.isEmpty()) {
+            throw new InvalidFormattedRequest();
+        }
+
+        DeferredResult<ResponseEntity<StreamingResponseBody>> response = new DeferredResult<>();
+        audioMixdownService.mixdown(inputs).whenComplete((mixdown, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause != null) {
+                log.error("믹스다운 실패: {}", cause.getMessage());
+                response.setErrorResult(cause);
+                return;
+            }
+            if (mixdown.isCached()) {
+                response.setResult(audioStreamService.stream(mixdown.getCached(), headers));
+                return;
+            }
+            ResponseEntity<StreamingResponseBody> entity = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(WavUtils.CONTENT_TYPE))
+                    .contentLength(mixdown.getContentLength())
+                    .body(mixdown::writeTo);
+            if (!response.setResult(entity)) {
+                // 디코딩 중 요청이 끝난 경우 (타임아웃, 연결 종료) 같은 조합을 기다리는 요청을 위해 캐시에만 렌더링
+                mixdown.writeToCache();
+            }
+        });
+        return response;
+    }
+
     /**
      * FastAPI에 음원 업로드 및 유사 트랙 찾기
      *
@@ -350,4 +631,14 @@ public class WorkstationService {
                 .doOnError(error -> log.error("backend->fastapi delete 요청 실패: {}", error.getMessage()))
                 .subscribe();
     }
+
+    /**
+     * ZIP 항목 이름과 S3 키
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class BundleEntry {
+        private String name;
+        private String key;
+    }
 }